@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.joekerouac.plugin.loader;
+
+/**
+ * 类加载委派决策
+ *
+ * @author JoeKerouac
+ * @date 2026-10-16 10:00
+ * @since 4.0.1
+ */
+enum Delegation {
+
+    /**
+     * 系统类，由ExtClassLoader加载
+     */
+    EXT,
+
+    /**
+     * 强制父加载器加载，父加载器加载不到时直接抛出异常
+     */
+    FORCE_PARENT,
+
+    /**
+     * 优先父加载器加载，父加载器加载不到时由本加载器加载
+     */
+    PARENT_FIRST,
+
+    /**
+     * 强制本加载器加载，本加载器加载不到时直接抛出异常
+     */
+    FORCE_CHILD,
+
+    /**
+     * 优先本加载器加载，本加载器加载不到时根据loadByParentAfterFail决定是否由父加载器加载
+     */
+    CHILD_FIRST
+
+}
@@ -0,0 +1,207 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.joekerouac.plugin.loader;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 类加载委派规则，构造时将needLoadByParent、forceLoadByParent、forceLoadByChild三组类名前缀编译为一棵不可变的前缀树，匹配时只需要对类名
+ * 做一次遍历即可得出委派决策，匹配过程不会产生任何对象分配
+ * <p>
+ * 前缀树使用数组平铺存储：节点i的子节点边位于{@link #edgeChars}、{@link #edgeTargets}的[{@link #edgeStart}[i],
+ * {@link #edgeStart}[i+1])区间内，并按字符升序排列，查找子节点时使用二分查找
+ *
+ * @author JoeKerouac
+ * @date 2026-10-16 10:00
+ * @since 4.0.1
+ */
+final class DelegationRules {
+
+    /**
+     * 命中needLoadByParent规则
+     */
+    private static final byte NEED_PARENT = 1;
+
+    /**
+     * 命中forceLoadByParent规则
+     */
+    private static final byte FORCE_PARENT = 1 << 1;
+
+    /**
+     * 命中forceLoadByChild规则
+     */
+    private static final byte FORCE_CHILD = 1 << 2;
+
+    /**
+     * 每个节点上命中的规则，节点0是根节点，对应空前缀
+     */
+    private final byte[] flags;
+
+    /**
+     * 每个节点的子节点边在edgeChars、edgeTargets中的起始位置，长度为节点数+1
+     */
+    private final int[] edgeStart;
+
+    /**
+     * 边上的字符
+     */
+    private final char[] edgeChars;
+
+    /**
+     * 边指向的节点
+     */
+    private final int[] edgeTargets;
+
+    private DelegationRules(byte[] flags, int[] edgeStart, char[] edgeChars, int[] edgeTargets) {
+        this.flags = flags;
+        this.edgeStart = edgeStart;
+        this.edgeChars = edgeChars;
+        this.edgeTargets = edgeTargets;
+    }
+
+    /**
+     * 编译委派规则
+     *
+     * @param needLoadByParent
+     *            需要父加载器加载的类前缀，允许为null
+     * @param forceLoadByParent
+     *            强制父加载器加载的类前缀，允许为null
+     * @param forceLoadByChild
+     *            强制子加载器加载的类前缀，允许为null
+     * @return 编译后的委派规则
+     */
+    static DelegationRules compile(String[] needLoadByParent, String[] forceLoadByParent, String[] forceLoadByChild) {
+        Node root = new Node();
+        add(root, needLoadByParent, NEED_PARENT);
+        add(root, forceLoadByParent, FORCE_PARENT);
+        add(root, forceLoadByChild, FORCE_CHILD);
+
+        // 广度优先平铺，保证同一节点的子节点连续存放
+        List<Node> nodes = new ArrayList<>();
+        nodes.add(root);
+        int edgeCount = 0;
+        for (int i = 0; i < nodes.size(); i++) {
+            Node node = nodes.get(i);
+            node.id = i;
+            nodes.addAll(node.children.values());
+            edgeCount += node.children.size();
+        }
+
+        byte[] flags = new byte[nodes.size()];
+        int[] edgeStart = new int[nodes.size() + 1];
+        char[] edgeChars = new char[edgeCount];
+        int[] edgeTargets = new int[edgeCount];
+        int edge = 0;
+        for (Node node : nodes) {
+            flags[node.id] = node.flags;
+            edgeStart[node.id] = edge;
+            for (Map.Entry<Character, Node> entry : node.children.entrySet()) {
+                edgeChars[edge] = entry.getKey();
+                edgeTargets[edge] = entry.getValue().id;
+                edge++;
+            }
+        }
+        edgeStart[nodes.size()] = edge;
+        return new DelegationRules(flags, edgeStart, edgeChars, edgeTargets);
+    }
+
+    private static void add(Node root, String[] prefixes, byte flag) {
+        if (prefixes == null) {
+            return;
+        }
+        for (String prefix : prefixes) {
+            if (prefix == null) {
+                continue;
+            }
+            Node node = root;
+            for (int i = 0; i < prefix.length(); i++) {
+                node = node.children.computeIfAbsent(prefix.charAt(i), c -> new Node());
+            }
+            node.flags |= flag;
+        }
+    }
+
+    /**
+     * 匹配类名，得出委派决策（不包含{@link Delegation#EXT}，是否是系统类需要调用方自行判断）
+     *
+     * @param className
+     *            类名
+     * @return 委派决策
+     */
+    Delegation match(String className) {
+        int matched = this.flags[0];
+        int node = 0;
+        int length = className.length();
+        for (int i = 0; i < length && (matched & FORCE_PARENT) == 0; i++) {
+            node = child(node, className.charAt(i));
+            if (node < 0) {
+                break;
+            }
+            matched |= this.flags[node];
+        }
+
+        // 优先级：强制父加载器 > 强制子加载器 > 父加载器优先
+        if ((matched & FORCE_PARENT) != 0) {
+            return Delegation.FORCE_PARENT;
+        } else if ((matched & FORCE_CHILD) != 0) {
+            return Delegation.FORCE_CHILD;
+        } else if ((matched & NEED_PARENT) != 0) {
+            return Delegation.PARENT_FIRST;
+        } else {
+            return Delegation.CHILD_FIRST;
+        }
+    }
+
+    /**
+     * 查找指定节点下指定字符对应的子节点
+     *
+     * @param node
+     *            节点
+     * @param c
+     *            字符
+     * @return 子节点，不存在时返回-1
+     */
+    private int child(int node, char c) {
+        int low = this.edgeStart[node];
+        int high = this.edgeStart[node + 1] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char midChar = this.edgeChars[mid];
+            if (midChar < c) {
+                low = mid + 1;
+            } else if (midChar > c) {
+                high = mid - 1;
+            } else {
+                return this.edgeTargets[mid];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 构建期间使用的可变节点
+     */
+    private static final class Node {
+
+        private final Map<Character, Node> children = new TreeMap<>();
+
+        private byte flags;
+
+        private int id;
+
+    }
+
+}
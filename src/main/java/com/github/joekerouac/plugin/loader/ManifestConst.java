@@ -29,4 +29,26 @@ public class ManifestConst {
      */
     public static final String BIZ_MAIN_CLASS = "Biz-Main-Class";
 
+    /**
+     * 需要在后台预加载的包，多个使用逗号或者空白分隔，包（包括子包）下的所有类都会被预加载，例如：com.example.service,
+     * com.example.dao.*
+     */
+    public static final String PRELOAD_PACKAGES = "Preload-Packages";
+
+    /**
+     * 需要在后台预加载的类，多个使用逗号或者空白分隔
+     */
+    public static final String PRELOAD_CLASSES = "Preload-Classes";
+
+    /**
+     * 需要在后台预加载的类列表文件，值为插件jar中的资源路径，多个使用逗号或者空白分隔；文件使用UTF-8编码，每行一个类名，#开头的行为注释
+     */
+    public static final String PRELOAD_CLASS_LIST = "Preload-Class-List";
+
+    /**
+     * 插件class path的索引方式：eager表示启动时为所有jar构建全局索引，lazy表示启动时不构建全局索引，查找时按照class path顺序逐个探测jar；
+     * 不声明时不使用索引，由URLClassPath查找；系统属性plugin.loader.classpath.index优先于该属性
+     */
+    public static final String CLASSPATH_INDEX = "Plugin-Classpath-Index";
+
 }
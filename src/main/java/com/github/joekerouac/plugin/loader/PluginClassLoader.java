@@ -12,20 +12,48 @@
  */
 package com.github.joekerouac.plugin.loader;
 
+import java.io.File;
 import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.net.JarURLConnection;
+import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.security.CodeSigner;
+import java.security.CodeSource;
+import java.security.ProtectionDomain;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
 import java.util.jar.JarFile;
 import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
 
 import com.github.joekerouac.plugin.loader.counter.NopClassLoadCounter;
 import com.github.joekerouac.plugin.loader.counter.SunClassLoadCounter;
+import com.github.joekerouac.plugin.loader.jar.ClassPathIndex;
 import com.github.joekerouac.plugin.loader.jar.Handler;
+import com.github.joekerouac.plugin.loader.jar.RootJarFileCache;
+import com.github.joekerouac.plugin.loader.metrics.ClassLoadSource;
+import com.github.joekerouac.plugin.loader.metrics.ClassLoaderListener;
+import com.github.joekerouac.plugin.loader.metrics.ClassLoaderMetrics;
+import com.github.joekerouac.plugin.loader.metrics.JfrEvent;
+import com.github.joekerouac.plugin.loader.preload.ClassLoadRecorder;
+import com.github.joekerouac.plugin.loader.preload.ClassPrefetcher;
+import com.github.joekerouac.plugin.loader.preload.ClassPreloader;
 import com.github.joekerouac.plugin.loader.util.ClassUtil;
+import com.github.joekerouac.plugin.loader.util.PlatformPackageIndex;
 
 /**
  *
@@ -64,25 +92,36 @@ public class PluginClassLoader extends URLClassLoader {
     }
 
     /**
-     * sun.misc.Launcher$ExtClassLoader，父级是BootstrapClassLoader，BootstrapClassLoader用于加载系统核心class，而ExtClassLoader
-     * 加载系统扩展包，最后我们应用的class以及命令行指定的class path上的class是由sun.misc.Launcher$AppClassLoader（继承ExtClassLoader）加载的
+     * JDK9+中的ClassLoader#getDefinedPackage(String)，JDK8中没有该方法，为null
      */
-    private final ClassLoader extClassLoader;
+    private static final MethodHandle GET_DEFINED_PACKAGE;
+
+    static {
+        MethodHandle getDefinedPackage;
+        try {
+            getDefinedPackage = MethodHandles.publicLookup().findVirtual(ClassLoader.class, "getDefinedPackage",
+                MethodType.methodType(Package.class, String.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            getDefinedPackage = null;
+        }
+        GET_DEFINED_PACKAGE = getDefinedPackage;
+    }
 
     /**
-     * 需要父加载器加载的类
+     * sun.misc.Launcher$ExtClassLoader，父级是BootstrapClassLoader，BootstrapClassLoader用于加载系统核心class，而ExtClassLoader
+     * 加载系统扩展包，最后我们应用的class以及命令行指定的class path上的class是由sun.misc.Launcher$AppClassLoader（继承ExtClassLoader）加载的
      */
-    private final String[] needLoadByParent;
+    private final ClassLoader extClassLoader;
 
     /**
-     * 强制父类加载器加载的类
+     * 系统包索引，用于快速判断类是否是系统类，为null时回退到通过extClassLoader探测资源的方式
      */
-    private final String[] forceLoadByParent;
+    private final PlatformPackageIndex platformPackageIndex;
 
     /**
-     * 强制子类加载器加载的类
+     * 委派规则，由needLoadByParent、forceLoadByParent、forceLoadByChild编译而来
      */
-    private final String[] forceLoadByChild;
+    private final DelegationRules delegationRules;
 
     /**
      * 父级加载器
@@ -94,23 +133,225 @@ public class PluginClassLoader extends URLClassLoader {
      */
     private final boolean loadByParentAfterFail;
 
+    /**
+     * class path索引，为null时通过URLClassPath逐个jar查找类和资源
+     */
+    private final ClassPathIndex classPathIndex;
+
+    /**
+     * 每个jar中未签名的类共用的ProtectionDomain，与classPathIndex中的jar一一对应，classPathIndex为null时为null
+     */
+    private final AtomicReferenceArray<ProtectionDomain> protectionDomains;
+
+    /**
+     * class path上的jar url对应的根jar，在{@link RootJarFileCache}中被本加载器引用，关闭时释放
+     */
+    private final List<File> rootFiles;
+
+    /**
+     * 统计{@link #rootFiles}中真正打开的嵌套jar，不区分是否使用class path索引，关闭时移除
+     */
+    private final Consumer<com.github.joekerouac.plugin.loader.jar.JarFile> nestedJarOpenListener =
+        this::onNestedJarOpened;
+
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    /**
+     * 子类是否覆写了{@link #findClass(String)}，没有覆写时loadClass直接通过返回值判断类不存在，不需要创建ClassNotFoundException
+     */
+    private final boolean findClassOverridden = isFindClassOverridden(getClass());
+
+    /**
+     * 没有使用class path索引时class path上的url以及每个url对应的jar，用于在不创建连接、不抛出异常的情况下查找资源；第一次查找时
+     * 创建，之后只在{@link #addURL(URL)}时重新创建
+     */
+    private volatile ClassPathJars classPathJars;
+
+    /**
+     * 创建{@link #classPathJars}时使用的锁，保证与{@link #addURL(URL)}并发时不会保存过期的class path
+     */
+    private final Object classPathJarsLock = new Object();
+
+    /**
+     * 没有使用class path索引时包目录到class path上jar的索引，用于定义包时直接定位到包所在的jar，第一次定义包时构建
+     */
+    private volatile PackageIndex packageIndex;
+
+    /**
+     * 类加载记录器，为null时不记录
+     */
+    private volatile ClassLoadRecorder classLoadRecorder;
+
+    /**
+     * 类预加载器，为null时没有预加载
+     */
+    private volatile ClassPreloader classPreloader;
+
+    /**
+     * 基于常量池的类预取器，为null时不预取
+     */
+    private volatile ClassPrefetcher classPrefetcher;
+
+    /**
+     * 本加载器的类加载统计
+     */
+    private final ClassLoaderMetrics metrics = new ClassLoaderMetrics();
+
     public PluginClassLoader(URL[] urls, ClassLoader parent, String[] needLoadByParent, String[] forceLoadByParent,
         String[] forceLoadByChild, boolean loadByParentAfterFail) {
+        this(urls, parent, needLoadByParent, forceLoadByParent, forceLoadByChild, loadByParentAfterFail, null);
+    }
+
+    /**
+     * 构造器
+     *
+     * @param urls
+     *            class path
+     * @param parent
+     *            父加载器，如果为空则使用extClassLoader
+     * @param needLoadByParent
+     *            需要父加载器加载的类
+     * @param forceLoadByParent
+     *            需要强制父加载器加载的类
+     * @param forceLoadByChild
+     *            需要强制子加载器加载的类
+     * @param loadByParentAfterFail
+     *            当本加载器加载类失败时是否允许父加载器加载，true表示允许
+     * @param classPathIndex
+     *            class path索引，必须与urls一一对应，允许为null，为null时通过URLClassPath逐个jar查找类和资源
+     */
+    public PluginClassLoader(URL[] urls, ClassLoader parent, String[] needLoadByParent, String[] forceLoadByParent,
+        String[] forceLoadByChild, boolean loadByParentAfterFail, ClassPathIndex classPathIndex) {
         super(urls, null);
+        if (classPathIndex != null && classPathIndex.getJarCount() != urls.length) {
+            throw new IllegalArgumentException(String.format("class path索引中jar数量[%d]与url数量[%d]不一致",
+                classPathIndex.getJarCount(), urls.length));
+        }
+        this.classPathIndex = classPathIndex;
+        this.protectionDomains =
+            classPathIndex == null ? null : new AtomicReferenceArray<>(classPathIndex.getJarCount());
+        this.rootFiles = retainRootFiles(urls);
         this.loadByParentAfterFail = loadByParentAfterFail;
-        this.needLoadByParent = needLoadByParent == null || needLoadByParent.length == 0 ? new String[0]
-            : Arrays.copyOfRange(needLoadByParent, 0, needLoadByParent.length);
-        this.forceLoadByParent = forceLoadByParent == null || forceLoadByParent.length == 0 ? new String[0]
-            : Arrays.copyOfRange(forceLoadByParent, 0, forceLoadByParent.length);
-        this.forceLoadByChild = forceLoadByChild == null || forceLoadByChild.length == 0 ? new String[0]
-            : Arrays.copyOfRange(forceLoadByChild, 0, forceLoadByChild.length);
+        this.delegationRules = DelegationRules.compile(needLoadByParent, forceLoadByParent, forceLoadByChild);
 
         this.extClassLoader = ClassUtil.getExtClassLoader(parent);
+        this.platformPackageIndex = PlatformPackageIndex.get(extClassLoader);
         if (parent == null) {
             this.parent = extClassLoader;
         } else {
             this.parent = parent;
         }
+
+        com.github.joekerouac.plugin.loader.jar.JarFile.addNestedJarOpenListener(nestedJarOpenListener);
+        metrics.registerMBeanIfEnabled();
+    }
+
+    /**
+     * 嵌套jar被真正打开（没有命中父jar中的缓存）时回调，只统计根jar被本加载器引用的嵌套jar
+     *
+     * @param nestedJarFile
+     *            打开的嵌套jar
+     */
+    private void onNestedJarOpened(com.github.joekerouac.plugin.loader.jar.JarFile nestedJarFile) {
+        try {
+            URL url = nestedJarFile.getUrl();
+            File rootFile = RootJarFileCache.getRootFile(url);
+            if (rootFile != null && rootFiles.contains(rootFile)) {
+                metrics.nestedJarOpened(url);
+            }
+        } catch (MalformedURLException e) {
+            // 只用于统计，忽略
+        }
+    }
+
+    /**
+     * 在根jar缓存中引用class path上的根jar，保证加载器存活期间根jar不会被淘汰
+     *
+     * @param urls
+     *            class path
+     * @return 引用的根jar
+     */
+    private static List<File> retainRootFiles(URL[] urls) {
+        List<File> rootFiles = new ArrayList<>();
+        for (URL url : urls) {
+            File rootFile = RootJarFileCache.getRootFile(url);
+            if (rootFile != null && !rootFiles.contains(rootFile)) {
+                rootFiles.add(rootFile);
+            }
+        }
+        for (File rootFile : rootFiles) {
+            RootJarFileCache.getInstance().retain(rootFile);
+        }
+        return rootFiles;
+    }
+
+    private static boolean isFindClassOverridden(Class<?> clazz) {
+        for (Class<?> current = clazz; current != PluginClassLoader.class; current = current.getSuperclass()) {
+            try {
+                current.getDeclaredMethod("findClass", String.class);
+                return true;
+            } catch (NoSuchMethodException e) {
+                // 继续查找父类
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 设置类加载记录器，之后本加载器定义的类都会被记录，关闭加载器时写入profile
+     *
+     * @param classLoadRecorder
+     *            类加载记录器
+     */
+    void setClassLoadRecorder(ClassLoadRecorder classLoadRecorder) {
+        this.classLoadRecorder = classLoadRecorder;
+    }
+
+    /**
+     * 设置类预加载器，关闭加载器时取消预加载
+     *
+     * @param classPreloader
+     *            类预加载器
+     */
+    void setClassPreloader(ClassPreloader classPreloader) {
+        this.classPreloader = classPreloader;
+    }
+
+    /**
+     * 获取类预加载器
+     *
+     * @return 类预加载器，没有预加载时返回null
+     */
+    public ClassPreloader getClassPreloader() {
+        return classPreloader;
+    }
+
+    /**
+     * 设置类预取器，之后通过class path索引定义的类都会预取其常量池中引用的类，关闭加载器时停止预取
+     *
+     * @param classPrefetcher
+     *            类预取器
+     */
+    void setClassPrefetcher(ClassPrefetcher classPrefetcher) {
+        this.classPrefetcher = classPrefetcher;
+    }
+
+    /**
+     * 获取类预取器
+     *
+     * @return 类预取器，没有启用预取时返回null
+     */
+    public ClassPrefetcher getClassPrefetcher() {
+        return classPrefetcher;
+    }
+
+    /**
+     * 获取本加载器的类加载统计，可以通过{@link ClassLoaderMetrics#addListener(ClassLoaderListener)}注册监听器
+     *
+     * @return 类加载统计
+     */
+    public ClassLoaderMetrics getMetrics() {
+        return metrics;
     }
 
     /**
@@ -133,19 +374,24 @@ public class PluginClassLoader extends URLClassLoader {
 
     @Override
     public URL findResource(String name) {
+        Object jfrEvent = JfrEvent.RESOURCE_LOOKUP.begin();
+        long start = System.nanoTime();
         URL url;
-        Handler.setUseFastConnectionExceptions(true);
-        try {
-            url = super.findResource(name);
-        } finally {
-            Handler.setUseFastConnectionExceptions(false);
+        if (classPathIndex != null) {
+            url = findResourceByIndex(name);
+        } else {
+            url = findResourceInClassPath(name);
         }
+        metrics.resourceLookup(name, url != null, System.nanoTime() - start);
 
-        if (url != null) {
-            return url;
+        if (url == null) {
+            url = parent.getResource(name);
         }
 
-        return parent.getResource(name);
+        if (jfrEvent != null) {
+            JfrEvent.RESOURCE_LOOKUP.commit(jfrEvent, name, url == null ? null : url.toExternalForm());
+        }
+        return url;
     }
 
     @SuppressWarnings("unchecked")
@@ -153,15 +399,153 @@ public class PluginClassLoader extends URLClassLoader {
     public Enumeration<URL> findResources(String name) throws IOException {
         Enumeration<URL> parentResources = parent.getResources(name);
 
+        long start = System.nanoTime();
+        if (classPathIndex != null) {
+            Enumeration<URL> currentResources = findResourcesByIndex(name);
+            metrics.resourceLookup(name, currentResources.hasMoreElements(), System.nanoTime() - start);
+            return new MergedEnumeration<>(currentResources, parentResources);
+        }
+
+        Enumeration<URL> classPathResources = findResourcesInClassPath(name);
+        if (classPathResources != null) {
+            metrics.resourceLookup(name, classPathResources.hasMoreElements(), System.nanoTime() - start);
+            return new MergedEnumeration<>(classPathResources, parentResources);
+        }
+
         Handler.setUseFastConnectionExceptions(true);
         try {
             Enumeration<URL> currentResources = new UseFastConnectionExceptionsEnumeration(super.findResources(name));
+            // URLClassPath的结果是延迟查找的，无法确定是否找到，按照找到统计
+            metrics.resourceLookup(name, true, System.nanoTime() - start);
             return new MergedEnumeration<>(currentResources, parentResources);
         } finally {
             Handler.setUseFastConnectionExceptions(false);
         }
     }
 
+    /**
+     * 没有使用class path索引时从class path上查找资源，资源所在的jar可以确定时直接创建url，无法确定时通过URLClassPath查找
+     *
+     * @param name
+     *            资源名
+     * @return 资源url，不存在时返回null
+     */
+    private URL findResourceInClassPath(String name) {
+        ClassPathJars jars = getClassPathJars();
+        int jar = jars.find(name);
+        if (jar == ClassPathJars.NOT_FOUND) {
+            return null;
+        }
+        if (jar != ClassPathJars.UNKNOWN) {
+            try {
+                return jars.getResourceUrl(jar, name);
+            } catch (MalformedURLException e) {
+                // 交给URLClassPath处理
+            }
+        }
+
+        Handler.setUseFastConnectionExceptions(true);
+        try {
+            return super.findResource(name);
+        } finally {
+            Handler.setUseFastConnectionExceptions(false);
+        }
+    }
+
+    /**
+     * 没有使用class path索引时从class path上查找所有资源
+     *
+     * @param name
+     *            资源名
+     * @return 资源url，按照class path顺序排列，class path上有无法判断是否包含资源的url时返回null
+     */
+    private Enumeration<URL> findResourcesInClassPath(String name) {
+        ClassPathJars jars = getClassPathJars();
+        int[] found = jars.findAll(name);
+        if (found == null) {
+            return null;
+        }
+
+        List<URL> urls = new ArrayList<>(found.length);
+        for (int jar : found) {
+            try {
+                urls.add(jars.getResourceUrl(jar, name));
+            } catch (MalformedURLException e) {
+                return null;
+            }
+        }
+        return Collections.enumeration(urls);
+    }
+
+    /**
+     * 获取class path上的url以及每个url对应的jar，第一次调用时创建
+     *
+     * @return class path上的url以及每个url对应的jar
+     */
+    private ClassPathJars getClassPathJars() {
+        ClassPathJars jars = classPathJars;
+        if (jars == null) {
+            synchronized (classPathJarsLock) {
+                jars = classPathJars;
+                if (jars == null) {
+                    jars = new ClassPathJars(getURLs());
+                    classPathJars = jars;
+                }
+            }
+        }
+        return jars;
+    }
+
+    @Override
+    protected void addURL(URL url) {
+        synchronized (classPathJarsLock) {
+            super.addURL(url);
+            // URLClassPath会忽略重复的url，所以按照添加后的class path重新创建
+            if (classPathJars != null) {
+                classPathJars = new ClassPathJars(getURLs());
+            }
+        }
+    }
+
+    /**
+     * 通过class path索引查找资源
+     *
+     * @param name
+     *            资源名
+     * @return 资源url，不存在时返回null
+     */
+    private URL findResourceByIndex(String name) {
+        long location = classPathIndex.find(name);
+        if (location == ClassPathIndex.NOT_FOUND) {
+            return null;
+        }
+
+        try {
+            return classPathIndex.getResourceUrl(location, name);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 通过class path索引查找所有资源
+     *
+     * @param name
+     *            资源名
+     * @return 资源url，按照class path顺序排列
+     */
+    private Enumeration<URL> findResourcesByIndex(String name) {
+        List<URL> urls = new ArrayList<>();
+        for (long location : classPathIndex.findAll(name)) {
+            try {
+                urls.add(classPathIndex.getResourceUrl(location, name));
+            } catch (IOException e) {
+                // 与URLClassPath保持一致，忽略无法访问的资源
+            }
+        }
+        return Collections.enumeration(urls);
+    }
+
     /**
      * 使用父加载器加载class
      *
@@ -190,52 +574,84 @@ public class PluginClassLoader extends URLClassLoader {
 
     @Override
     protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
-        // 先判断是不是必须父类加载的，如果类是系统类或者是用户指定了需要父加载器加载的，使用父加载器加载
-        boolean loadByExt = extClassLoader.getResource(name.replaceAll("\\.", "/").concat(".class")) != null;
-        boolean loadByParent = false;
-        boolean forceLoadByParent = Arrays.stream(this.forceLoadByParent).anyMatch(name::startsWith);
-        boolean forceLoadByChild = false;
-        if (!forceLoadByParent) {
-            forceLoadByChild = Arrays.stream(this.forceLoadByChild).anyMatch(name::startsWith);
-        }
-
-        if (!forceLoadByParent && !forceLoadByChild) {
-            loadByParent = Arrays.stream(needLoadByParent).anyMatch(name::startsWith);
+        // 已经加载过的类不需要加锁，也不计入统计，findLoadedClass本身是线程安全的
+        Class<?> loaded = findLoadedClass(name);
+        if (loaded != null) {
+            ClassPrefetcher prefetcher = classPrefetcher;
+            if (prefetcher != null) {
+                prefetcher.onLoaded(name);
+            }
+            if (resolve) {
+                resolveClass(loaded);
+            }
+            return loaded;
         }
 
         // 加锁，准备加载
+        long lockStart = System.nanoTime();
         synchronized (getClassLoadingLock(name)) {
+            long start = System.nanoTime();
+            metrics.lockWait(name, start - lockStart);
+            Object jfrEvent = JfrEvent.CLASS_LOAD.begin();
+
             // 先查找已经加载过的类
             Class<?> clazz = findLoadedClass(name);
+            ClassPrefetcher prefetcher = classPrefetcher;
+            if (clazz != null && prefetcher != null) {
+                prefetcher.onLoaded(name);
+            }
+
+            // 先判断是不是系统类，如果是系统类，使用ExtClassLoader加载
+            if (clazz == null && isPlatformClass(name)) {
+                clazz = loadClass(extClassLoader, name, false);
+                if (clazz != null) {
+                    classLoaded(name, Delegation.EXT, ClassLoadSource.EXT, System.nanoTime() - start, jfrEvent);
+                }
+            }
 
             if (clazz == null) {
+                // 系统加载不到时按照委派规则处理，注意，系统包索引只能说明类所在的包属于系统，类本身不一定由系统加载（例如JDK8中javax.annotation这种拆分包）
+                Delegation delegation = delegationRules.match(name);
+
                 // 如果是需要父加载器加载则直接调用父类加载器加载
-                if (loadByExt) {
-                    clazz = loadClass(extClassLoader, name, false);
-                } else if (forceLoadByParent) {
-                    clazz = loadClass(parent, name, true);
-                } else if (loadByParent) {
+                if (delegation == Delegation.FORCE_PARENT) {
+                    clazz = loadClassByParent(name, delegation, start, jfrEvent);
+                } else if (delegation == Delegation.PARENT_FIRST) {
                     // 这里不应该抛出异常，找不到了还可以使用子加载器加载
                     clazz = loadClass(parent, name, false);
+                    if (clazz != null) {
+                        classLoaded(name, delegation, ClassLoadSource.PARENT, System.nanoTime() - start, jfrEvent);
+                    }
                 }
 
                 if (clazz == null) {
+                    ClassNotFoundException notFound = null;
+                    long t0 = System.nanoTime();
                     try {
-                        long t0 = System.nanoTime();
-                        // 调用本类加载器查找类
-                        clazz = findClass(name);
+                        // 调用本类加载器查找类，未覆写findClass时类不存在通过返回null表示，不需要创建异常
+                        clazz = findClassOverridden ? findClass(name) : findClassOrNull(name);
+                    } catch (ClassNotFoundException e) {
+                        notFound = e;
+                    }
+
+                    if (clazz != null) {
                         long t1 = System.nanoTime();
                         // 统计信息，因为我们没有调用父类的loadClass（没有走到这段逻辑），所以需要自己统计
                         COUNTER.addTime(t1 - t0);
                         COUNTER.addElapsedTimeFrom(t1);
                         COUNTER.increment();
-                    } catch (ClassNotFoundException e) {
-                        // 如果我们没有优先使用父加载器加载，并且允许对加载失败的类使用父加载器加载，则尝试使用父加载器加载，加载不到就抛出异常，否则直接抛出异常
-                        if (!loadByExt && !loadByParent && !forceLoadByChild && loadByParentAfterFail) {
-                            clazz = loadClass(parent, name, true);
-                        } else {
-                            throw e;
+                        classLoaded(name, delegation, ClassLoadSource.CHILD, t1 - t0, jfrEvent);
+
+                        ClassLoadRecorder recorder = classLoadRecorder;
+                        if (recorder != null) {
+                            recorder.record(name);
                         }
+                    } else if (delegation == Delegation.CHILD_FIRST && loadByParentAfterFail) {
+                        // 如果我们没有优先使用父加载器加载，并且允许对加载失败的类使用父加载器加载，则尝试使用父加载器加载，加载不到就抛出异常，否则直接抛出异常
+                        clazz = loadClassByParent(name, delegation, start, jfrEvent);
+                    } else {
+                        classNotFound(name, delegation, System.nanoTime() - start, jfrEvent);
+                        throw notFound != null ? notFound : new ClassNotFoundException(name);
                     }
                 }
 
@@ -250,17 +666,330 @@ public class PluginClassLoader extends URLClassLoader {
         }
     }
 
+    /**
+     * 使用父加载器加载class并统计，父加载器加载不到时抛出异常
+     *
+     * @param name
+     *            class name
+     * @param delegation
+     *            委派规则
+     * @param start
+     *            开始加载的时间，nano time
+     * @param jfrEvent
+     *            JFR事件，可能为null
+     * @return 加载到的class
+     * @throws ClassNotFoundException
+     *             父加载器不能找到指定class时抛出
+     */
+    private Class<?> loadClassByParent(String name, Delegation delegation, long start, Object jfrEvent)
+        throws ClassNotFoundException {
+        try {
+            Class<?> clazz = loadClass(parent, name, true);
+            classLoaded(name, delegation, ClassLoadSource.PARENT, System.nanoTime() - start, jfrEvent);
+            return clazz;
+        } catch (ClassNotFoundException e) {
+            classNotFound(name, delegation, System.nanoTime() - start, jfrEvent);
+            throw e;
+        }
+    }
+
+    /**
+     * 记录类加载成功的统计和JFR事件
+     *
+     * @param name
+     *            类名
+     * @param delegation
+     *            委派规则
+     * @param source
+     *            加载类的加载器
+     * @param nanos
+     *            耗时，单位纳秒
+     * @param jfrEvent
+     *            JFR事件，可能为null
+     */
+    private void classLoaded(String name, Delegation delegation, ClassLoadSource source, long nanos,
+        Object jfrEvent) {
+        metrics.classLoaded(name, source, nanos);
+        if (jfrEvent != null) {
+            JfrEvent.CLASS_LOAD.commit(jfrEvent, name, delegation.name(), source.name());
+        }
+    }
+
+    /**
+     * 记录类不存在的统计和JFR事件
+     *
+     * @param name
+     *            类名
+     * @param delegation
+     *            委派规则
+     * @param nanos
+     *            耗时，单位纳秒
+     * @param jfrEvent
+     *            JFR事件，可能为null
+     */
+    private void classNotFound(String name, Delegation delegation, long nanos, Object jfrEvent) {
+        metrics.classNotFound(name, nanos);
+        if (jfrEvent != null) {
+            JfrEvent.CLASS_LOAD.commit(jfrEvent, name, delegation.name(), "NOT_FOUND");
+        }
+    }
+
+    /**
+     * 判断指定类是否是系统类
+     *
+     * @param name
+     *            类名
+     * @return true表示是系统类，应该由ExtClassLoader加载
+     */
+    private boolean isPlatformClass(String name) {
+        if (platformPackageIndex != null) {
+            return platformPackageIndex.contains(name);
+        }
+        return extClassLoader.getResource(name.replace('.', '/').concat(".class")) != null;
+    }
+
     @Override
     protected Class<?> findClass(String name) throws ClassNotFoundException {
+        Class<?> clazz = findClassOrNull(name);
+        if (clazz == null) {
+            throw new ClassNotFoundException(name);
+        }
+        return clazz;
+    }
+
+    /**
+     * 查找并定义类，与{@link #findClass(String)}不同的是类不存在时返回null
+     *
+     * @param name
+     *            类名
+     * @return 类，不存在时返回null
+     * @throws ClassNotFoundException
+     *             类存在但是读取失败时抛出
+     */
+    private Class<?> findClassOrNull(String name) throws ClassNotFoundException {
+        if (classPathIndex != null) {
+            return findClassByIndex(name);
+        }
+
+        String entryName = name.replace('.', '/').concat(".class");
+        ClassPathJars jars = getClassPathJars();
+        int jar = jars.find(entryName);
+        if (jar == ClassPathJars.NOT_FOUND) {
+            return null;
+        }
+        // 类所在的jar可以确定时直接从该jar定义类，jar被关闭时交给URLClassPath重新打开
+        com.github.joekerouac.plugin.loader.jar.JarFile jarFile =
+            jar == ClassPathJars.UNKNOWN ? null : jars.jarFiles[jar];
+        if (jarFile != null && !jarFile.isClosed()) {
+            com.github.joekerouac.plugin.loader.jar.JarEntry entry = jarFile.getJarEntry(entryName);
+            return entry == null ? null : defineClassFromJar(name, jarFile, entry, jars.urls[jar], -1);
+        }
+
+        Object jfrEvent = JfrEvent.CLASS_DEFINE.begin();
         Handler.setUseFastConnectionExceptions(true);
         try {
             definePackageIfNecessary(name);
-            return super.findClass(name);
+            Class<?> clazz = super.findClass(name);
+            if (jfrEvent != null) {
+                // URLClassPath不提供字节码大小
+                CodeSource codeSource = clazz.getProtectionDomain().getCodeSource();
+                URL location = codeSource == null ? null : codeSource.getLocation();
+                JfrEvent.CLASS_DEFINE.commit(jfrEvent, name, location == null ? null : location.toExternalForm(), -1L);
+            }
+            return clazz;
         } finally {
             Handler.setUseFastConnectionExceptions(false);
         }
     }
 
+    /**
+     * 通过class path索引查找并定义类，类所在的包使用类所在jar的manifest定义
+     *
+     * @param name
+     *            类名
+     * @return 类，不存在时返回null
+     * @throws ClassNotFoundException
+     *             读取失败时抛出
+     */
+    private Class<?> findClassByIndex(String name) throws ClassNotFoundException {
+        long location = classPathIndex.find(name.replace('.', '/').concat(".class"));
+        if (location == ClassPathIndex.NOT_FOUND) {
+            return null;
+        }
+
+        int jarIndex = classPathIndex.getJarIndex(location);
+        try {
+            return defineClassFromJar(name, classPathIndex.getJarFile(jarIndex), classPathIndex.getEntry(location),
+                classPathIndex.getUrl(jarIndex), jarIndex);
+        } catch (IOException e) {
+            throw new ClassNotFoundException(name, e);
+        }
+    }
+
+    /**
+     * 从类所在的jar读取并定义类，类所在的包使用该jar的manifest定义
+     *
+     * @param name
+     *            类名
+     * @param jarFile
+     *            类所在的jar
+     * @param entry
+     *            类对应的entry
+     * @param url
+     *            jar在class path上的url
+     * @param jarIndex
+     *            jar在class path索引中的序号，用于复用ProtectionDomain；没有使用class path索引时传-1
+     * @return 类
+     * @throws ClassNotFoundException
+     *             读取失败时抛出
+     */
+    private Class<?> defineClassFromJar(String name, com.github.joekerouac.plugin.loader.jar.JarFile jarFile,
+        com.github.joekerouac.plugin.loader.jar.JarEntry entry, URL url, int jarIndex) throws ClassNotFoundException {
+        Object jfrEvent = JfrEvent.CLASS_DEFINE.begin();
+        try {
+            // 未压缩的entry并且jar是内存映射的时候直接使用映射的内存定义类，不拷贝字节码
+            ByteBuffer buffer = jarFile.getStoredBuffer(entry);
+            byte[] bytes = buffer == null ? jarFile.getBytes(entry) : null;
+
+            int lastDot = name.lastIndexOf('.');
+            if (lastDot >= 0) {
+                definePackageIfNecessary(name.substring(0, lastDot), jarFile.getManifest(), url);
+            }
+
+            // defineClass会移动buffer的position，预取需要的字节码提前保留
+            ClassPrefetcher prefetcher = classPrefetcher;
+            ByteBuffer classBytes =
+                prefetcher == null ? null : (buffer != null ? buffer.duplicate() : ByteBuffer.wrap(bytes));
+
+            Class<?> clazz;
+            if (entry.getMethod() == ZipEntry.STORED) {
+                metrics.classBytesRead(name, entry.getSize(), 0);
+            } else {
+                metrics.classBytesRead(name, entry.getCompressedSize(), entry.getSize());
+            }
+
+            // 签名信息必须在读取完类的字节码之后获取
+            CodeSigner[] codeSigners = entry.getCodeSigners();
+            if (codeSigners != null || jarIndex < 0) {
+                // 没有使用class path索引时与URLClassLoader一样按照CodeSource定义，SecureClassLoader会缓存ProtectionDomain
+                CodeSource codeSource = new CodeSource(url, codeSigners);
+                clazz = buffer != null ? defineClass(name, buffer, codeSource)
+                    : defineClass(name, bytes, 0, bytes.length, codeSource);
+            } else {
+                ProtectionDomain protectionDomain = getJarProtectionDomain(jarIndex, url);
+                clazz = buffer != null ? defineClass(name, buffer, protectionDomain)
+                    : defineClass(name, bytes, 0, bytes.length, protectionDomain);
+            }
+
+            if (prefetcher != null) {
+                prefetcher.onDefine(name, classBytes);
+            }
+            if (jfrEvent != null) {
+                JfrEvent.CLASS_DEFINE.commit(jfrEvent, name, url.toExternalForm(), entry.getSize());
+            }
+            return clazz;
+        } catch (IOException e) {
+            throw new ClassNotFoundException(name, e);
+        }
+    }
+
+    /**
+     * 判断类是否会由本加载器从class path索引中定义，用于过滤预取的类
+     *
+     * @param name
+     *            类名
+     * @return true表示类由本加载器定义
+     */
+    boolean isDefinedByIndex(String name) {
+        if (classPathIndex == null || isPlatformClass(name)) {
+            return false;
+        }
+
+        Delegation delegation = delegationRules.match(name);
+        if (delegation == Delegation.FORCE_PARENT || delegation == Delegation.PARENT_FIRST) {
+            return false;
+        }
+        return classPathIndex.find(name.replace('.', '/').concat(".class")) != ClassPathIndex.NOT_FOUND;
+    }
+
+    /**
+     * 获取jar中未签名的类使用的ProtectionDomain，每个jar只创建一次，之后定义类时不再需要创建CodeSource
+     *
+     * @param jarIndex
+     *            jar序号
+     * @param url
+     *            jar的url
+     * @return ProtectionDomain
+     */
+    private ProtectionDomain getJarProtectionDomain(int jarIndex, URL url) {
+        ProtectionDomain protectionDomain = protectionDomains.get(jarIndex);
+        if (protectionDomain == null) {
+            // 与SecureClassLoader按照CodeSource创建ProtectionDomain的方式一致，并发创建时只保留一个
+            CodeSource codeSource = new CodeSource(url, (CodeSigner[])null);
+            protectionDomain = new ProtectionDomain(codeSource, getPermissions(codeSource), this, null);
+            if (!protectionDomains.compareAndSet(jarIndex, null, protectionDomain)) {
+                protectionDomain = protectionDomains.get(jarIndex);
+            }
+        }
+        return protectionDomain;
+    }
+
+    /**
+     * 定义包（如果还没有定义的话），与URLClassLoader一样会校验sealed
+     *
+     * @param packageName
+     *            包名
+     * @param manifest
+     *            类所在jar的manifest，允许为null
+     * @param url
+     *            类所在jar的url
+     */
+    private void definePackageIfNecessary(String packageName, Manifest manifest, URL url) {
+        Package pkg = getDefinedPackageOf(packageName);
+        if (pkg == null) {
+            try {
+                if (manifest != null) {
+                    definePackage(packageName, manifest, url);
+                } else {
+                    definePackage(packageName, null, null, null, null, null, null, null);
+                }
+                return;
+            } catch (IllegalArgumentException ex) {
+                // 并行定义package时只会有一个成功
+                pkg = getDefinedPackageOf(packageName);
+                if (pkg == null) {
+                    throw new AssertionError(
+                        "Package " + packageName + " has already been defined but it could not be found");
+                }
+            }
+        }
+
+        if (pkg.isSealed() && !pkg.isSealed(url)) {
+            throw new SecurityException("sealing violation: package " + packageName + " is sealed");
+        }
+    }
+
+    /**
+     * 获取本加载器已经定义的包，JDK9+中使用getDefinedPackage，JDK8中使用已经废弃的getPackage
+     *
+     * @param packageName
+     *            包名
+     * @return 包，没有定义时返回null
+     */
+    @SuppressWarnings("deprecation")
+    private Package getDefinedPackageOf(String packageName) {
+        if (GET_DEFINED_PACKAGE == null) {
+            return getPackage(packageName);
+        }
+        try {
+            return (Package)GET_DEFINED_PACKAGE.invokeExact((ClassLoader)this, packageName);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     /**
      * Define a package before a {@code findClass} call is made. This is necessary to ensure that the appropriate
      * manifest for nested JARs is associated with the package.
@@ -272,12 +1001,12 @@ public class PluginClassLoader extends URLClassLoader {
         int lastDot = className.lastIndexOf('.');
         if (lastDot >= 0) {
             String packageName = className.substring(0, lastDot);
-            if (getPackage(packageName) == null) {
+            if (getDefinedPackageOf(packageName) == null) {
                 try {
                     definePackage(className, packageName);
                 } catch (IllegalArgumentException ex) {
                     // 因为我们允许并行，所以可能会出现并行创建package的场景，其中会有一个成功，其他失败，并且抛出IllegalArgumentException异常
-                    if (getPackage(packageName) == null) {
+                    if (getDefinedPackageOf(packageName) == null) {
                         // 理论上不可能走到这里
                         throw new AssertionError(
                             "Package " + packageName + " has already been defined but it could not be found");
@@ -290,17 +1019,40 @@ public class PluginClassLoader extends URLClassLoader {
     private void definePackage(String className, String packageName) {
         String packageEntryName = packageName.replace('.', '/') + "/";
         String classEntryName = className.replace('.', '/') + ".class";
-        for (URL url : getURLs()) {
-            try {
-                URLConnection connection = url.openConnection();
-                if (connection instanceof JarURLConnection) {
-                    JarURLConnection jarURLConnection = (JarURLConnection)connection;
-                    JarFile jarFile = jarURLConnection.getJarFile();
-                    if (jarFile.getEntry(classEntryName) != null && jarFile.getEntry(packageEntryName) != null
-                        && jarFile.getManifest() != null) {
-                        definePackage(packageName, jarFile.getManifest(), url);
+        ClassPathJars jars = getClassPathJars();
+        URL[] urls = jars.urls;
+        com.github.joekerouac.plugin.loader.jar.JarFile[] jarFiles = jars.jarFiles;
+        PackageIndex index = getPackageIndex(jarFiles);
+        if (index != null) {
+            for (int jar : index.getJars(packageEntryName)) {
+                JarFile jarFile = jarFiles[jar];
+                if (jar < urls.length && jarFile.getEntry(classEntryName) != null) {
+                    try {
+                        definePackage(packageName, jarFile.getManifest(), urls[jar]);
                         return;
+                    } catch (IOException ex) {
+                        // Ignore
+                    }
+                }
+            }
+            return;
+        }
+
+        for (int i = 0; i < urls.length; i++) {
+            URL url = urls[i];
+            try {
+                JarFile jarFile = i < jarFiles.length ? jarFiles[i] : null;
+                if (jarFile == null) {
+                    URLConnection connection = url.openConnection();
+                    if (!(connection instanceof JarURLConnection)) {
+                        continue;
                     }
+                    jarFile = ((JarURLConnection)connection).getJarFile();
+                }
+                if (jarFile.getEntry(classEntryName) != null && jarFile.getEntry(packageEntryName) != null
+                    && jarFile.getManifest() != null) {
+                    definePackage(packageName, jarFile.getManifest(), url);
+                    return;
                 }
             } catch (IOException ex) {
                 // Ignore
@@ -308,6 +1060,51 @@ public class PluginClassLoader extends URLClassLoader {
         }
     }
 
+    /**
+     * 获取包索引，class path上的jar变化时重新构建
+     *
+     * @param jarFiles
+     *            class path上每个url对应的jar
+     * @return 包索引，class path上有无法获取jar的url时返回null
+     */
+    private PackageIndex getPackageIndex(com.github.joekerouac.plugin.loader.jar.JarFile[] jarFiles) {
+        PackageIndex index = packageIndex;
+        if (index != null && index.jarFiles == jarFiles) {
+            return index;
+        }
+
+        Map<String, int[]> packages = new HashMap<>();
+        for (int i = 0; i < jarFiles.length; i++) {
+            com.github.joekerouac.plugin.loader.jar.JarFile jarFile = jarFiles[i];
+            if (jarFile == null) {
+                return null;
+            }
+            try {
+                // 与逐个url查找时一样，只有有manifest的jar才需要使用该jar定义包
+                if (jarFile.getManifest() == null) {
+                    continue;
+                }
+                for (String directoryName : jarFile.getDirectoryNames()) {
+                    int[] jars = packages.get(directoryName);
+                    if (jars == null) {
+                        packages.put(directoryName, new int[] {i});
+                    } else if (jars[jars.length - 1] != i) {
+                        jars = Arrays.copyOf(jars, jars.length + 1);
+                        jars[jars.length - 1] = i;
+                        packages.put(directoryName, jars);
+                    }
+                }
+            } catch (IOException ex) {
+                // Ignore
+            }
+        }
+
+        // 并发构建时只是重复计算，结果相同
+        index = new PackageIndex(jarFiles, packages);
+        packageIndex = index;
+        return index;
+    }
+
     @Override
     protected Package definePackage(String name, Manifest man, URL url) throws IllegalArgumentException {
         return super.definePackage(name, man, url);
@@ -320,10 +1117,46 @@ public class PluginClassLoader extends URLClassLoader {
             sealBase);
     }
 
+    @Override
+    public void close() throws IOException {
+        ClassPreloader preloader = classPreloader;
+        if (preloader != null) {
+            preloader.cancel();
+        }
+        ClassPrefetcher prefetcher = classPrefetcher;
+        if (prefetcher != null) {
+            prefetcher.close();
+        }
+        metrics.unregisterMBean();
+        ClassLoadRecorder recorder = classLoadRecorder;
+        if (recorder != null) {
+            recorder.close();
+        }
+
+        try {
+            super.close();
+        } finally {
+            if (closed.compareAndSet(false, true)) {
+                com.github.joekerouac.plugin.loader.jar.JarFile.removeNestedJarOpenListener(nestedJarOpenListener);
+                for (File rootFile : rootFiles) {
+                    RootJarFileCache.getInstance().release(rootFile);
+                }
+            }
+            if (classPathIndex != null) {
+                classPathIndex.close();
+            }
+        }
+    }
+
     /**
      * Clear URL caches.
      */
     public void clearCache() {
+        if (classPathIndex != null) {
+            classPathIndex.clearCache();
+            return;
+        }
+
         for (URL url : getURLs()) {
             try {
                 URLConnection connection = url.openConnection();
@@ -374,6 +1207,124 @@ public class PluginClassLoader extends URLClassLoader {
         }
     }
 
+    /**
+     * 没有使用class path索引时class path上的url以及每个url对应的jar
+     */
+    private static final class ClassPathJars {
+
+        /**
+         * class path上所有的url都是嵌套jar并且都不包含资源
+         */
+        private static final int NOT_FOUND = -1;
+
+        /**
+         * 在找到资源之前遇到了不是嵌套jar的url，无法判断资源所在的jar
+         */
+        private static final int UNKNOWN = -2;
+
+        private final URL[] urls;
+
+        /**
+         * class path上每个url对应的jar，元素为null表示url不是嵌套jar的url，无法通过{@link Handler#getJarFile(URL)}获取
+         */
+        private final com.github.joekerouac.plugin.loader.jar.JarFile[] jarFiles;
+
+        private ClassPathJars(URL[] urls) {
+            this.urls = urls;
+            this.jarFiles = new com.github.joekerouac.plugin.loader.jar.JarFile[urls.length];
+            for (int i = 0; i < urls.length; i++) {
+                this.jarFiles[i] = Handler.getJarFile(urls[i]);
+            }
+        }
+
+        /**
+         * 按照class path顺序查找第一个包含资源的jar，只查询jar的entry表，不创建连接也不抛出异常；jar被关闭后entry表仍然可以查询
+         *
+         * @param name
+         *            资源名
+         * @return 包含资源的jar的序号，{@link #NOT_FOUND}表示资源不存在，{@link #UNKNOWN}表示无法判断
+         */
+        private int find(String name) {
+            for (int i = 0; i < jarFiles.length; i++) {
+                com.github.joekerouac.plugin.loader.jar.JarFile jarFile = jarFiles[i];
+                if (jarFile == null) {
+                    return UNKNOWN;
+                }
+                if (jarFile.containsEntry(name)) {
+                    return i;
+                }
+            }
+            return NOT_FOUND;
+        }
+
+        /**
+         * 查找所有包含资源的jar
+         *
+         * @param name
+         *            资源名
+         * @return 包含资源的jar的序号，按照class path顺序排列，class path上有不是嵌套jar的url时返回null
+         */
+        private int[] findAll(String name) {
+            int[] found = PackageIndex.EMPTY;
+            for (int i = 0; i < jarFiles.length; i++) {
+                com.github.joekerouac.plugin.loader.jar.JarFile jarFile = jarFiles[i];
+                if (jarFile == null) {
+                    return null;
+                }
+                if (jarFile.containsEntry(name)) {
+                    found = Arrays.copyOf(found, found.length + 1);
+                    found[found.length - 1] = i;
+                }
+            }
+            return found;
+        }
+
+        /**
+         * 与URLClassPath一样以class path上的url为基础创建资源url
+         *
+         * @param jar
+         *            jar序号
+         * @param name
+         *            资源名
+         * @return 资源url
+         * @throws MalformedURLException
+         *             url不合法时抛出
+         */
+        private URL getResourceUrl(int jar, String name) throws MalformedURLException {
+            return new URL(urls[jar], ClassPathIndex.encodePath(name));
+        }
+
+    }
+
+    /**
+     * 包目录到class path上包含该目录并且有manifest的jar序号的索引
+     */
+    private static final class PackageIndex {
+
+        private static final int[] EMPTY = new int[0];
+
+        /**
+         * 构建索引时class path上每个url对应的jar
+         */
+        private final com.github.joekerouac.plugin.loader.jar.JarFile[] jarFiles;
+
+        /**
+         * 包目录（例如com/example/）到jar序号的映射，jar序号按照class path顺序排列
+         */
+        private final Map<String, int[]> packages;
+
+        private PackageIndex(com.github.joekerouac.plugin.loader.jar.JarFile[] jarFiles, Map<String, int[]> packages) {
+            this.jarFiles = jarFiles;
+            this.packages = packages;
+        }
+
+        private int[] getJars(String packageEntryName) {
+            int[] jars = packages.get(packageEntryName);
+            return jars == null ? EMPTY : jars;
+        }
+
+    }
+
     private static class UseFastConnectionExceptionsEnumeration implements Enumeration<URL> {
 
         private final Enumeration<URL> delegate;
@@ -15,17 +15,31 @@ package com.github.joekerouac.plugin.loader;
 import java.io.File;
 import java.io.IOException;
 import java.net.MalformedURLException;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
 import java.util.jar.Attributes;
 import java.util.jar.Manifest;
 
 import com.github.joekerouac.plugin.loader.archive.Archive;
+import com.github.joekerouac.plugin.loader.archive.JarFileArchive;
 import com.github.joekerouac.plugin.loader.exception.ClassLoaderException;
+import com.github.joekerouac.plugin.loader.jar.ClassPathIndex;
+import com.github.joekerouac.plugin.loader.jar.ClassPathIndexFile;
+import com.github.joekerouac.plugin.loader.jar.JarFile;
+import com.github.joekerouac.plugin.loader.preload.ClassLoadProfile;
+import com.github.joekerouac.plugin.loader.preload.ClassLoadRecorder;
+import com.github.joekerouac.plugin.loader.preload.ClassPrefetcher;
+import com.github.joekerouac.plugin.loader.preload.ClassPreloader;
+import com.github.joekerouac.plugin.loader.preload.PreloadHints;
+import com.github.joekerouac.plugin.loader.preload.PreloadMode;
+import com.github.joekerouac.plugin.loader.util.ConcurrentUtil;
+import com.github.joekerouac.plugin.loader.util.JarFileUtil;
 
 /**
  * PluginClassLoader工具
@@ -41,6 +55,17 @@ public class PluginClassLoaderUtil {
      */
     private static final String[] NEED_PARENT_LOAD = new String[] {"com.github.joekerouac.plugin.loader."};
 
+    /**
+     * 是否启用class path索引，默认不启用，使用URLClassPath逐个jar查找；设置为true时启用；设置为direct时不构建全局哈希表，查找时按照
+     * class path顺序逐个探测jar，但是与索引一样直接读取entry，不经过URL、URLConnection
+     */
+    private static final String CLASSPATH_INDEX_PROPERTY = "plugin.loader.classpath.index";
+
+    /**
+     * class path索引持久化目录，设置后第一次启动时会将索引写入该目录，后续启动直接读取索引文件，jar变化时自动重建；默认不持久化
+     */
+    private static final String CLASSPATH_INDEX_DIR_PROPERTY = "plugin.loader.classpath.index.dir";
+
     public static List<URL> getClasspath() throws MalformedURLException {
         String[] classpath = System.getProperty("java.class.path").split(File.pathSeparator);
         List<URL> list = new ArrayList<>();
@@ -133,30 +158,150 @@ public class PluginClassLoaderUtil {
      */
     public static PluginClassLoader build(List<Archive> archives, List<URL> classpath, String[] needParentLoad,
         String[] forceLoadByParent, String[] forceLoadByChild, boolean loadByParentAfterFail, ClassLoader parent) {
+        return build(archives, classpath, needParentLoad, forceLoadByParent, forceLoadByChild, loadByParentAfterFail,
+            parent, null);
+    }
+
+    /**
+     * 构造器，class path上的jar以及archives中的嵌套jar在executor中并发打开，class path顺序与串行构建时一致
+     *
+     * @param archives
+     *            添加到class path上的jar集合，会自动遍历该jar中lib目录下的包
+     * @param classpath
+     *            添加到class path的其他内容
+     * @param needParentLoad
+     *            需要父加载器加载的类
+     * @param loadByParentAfterFail
+     *            当本加载器加载类失败时是否允许父加载器加载，true表示允许
+     * @param parent
+     *            父加载器，如果为空则使用extClassLoader
+     * @param executor
+     *            打开jar使用的线程池，例如ForkJoinPool或者虚拟线程，为null时在当前线程中串行打开
+     */
+    public static PluginClassLoader build(List<Archive> archives, List<URL> classpath, String[] needParentLoad,
+        String[] forceLoadByParent, String[] forceLoadByChild, boolean loadByParentAfterFail, ClassLoader parent,
+        Executor executor) {
         List<URL> classpathUrl = new ArrayList<>(classpath == null ? Collections.emptyList() : classpath);
+        List<JarFile> ownedJarFiles = new ArrayList<>();
+        List<ConcurrentUtil.IOSupplier<Attributes>> manifestTasks = new ArrayList<>(archives.size());
         for (Archive archive : archives) {
-            try {
-                Manifest manifest = archive.getManifest();
-                Attributes mainAttributes = manifest.getMainAttributes();
-                String pluginLibDir =
-                    (String)mainAttributes.getOrDefault(new Attributes.Name(ManifestConst.KEY_PLUGIN_LIB), "lib/");
-                classpathUrl.add(archive.getUrl());
-                Iterator<Archive> nestedArchives = archive.getNestedArchives(Archive.FILTER_ALL,
-                    entry -> entry.getName().startsWith(pluginLibDir) && entry.getName().endsWith(".jar"));
-                nestedArchives.forEachRemaining(a -> {
-                    try {
-                        classpathUrl.add(a.getUrl());
-                    } catch (MalformedURLException e) {
-                        // 理论上这里不应该发生的
-                        throw new RuntimeException(e);
+            manifestTasks.add(() -> {
+                try {
+                    Manifest manifest = archive.getManifest();
+                    return manifest.getMainAttributes();
+                } catch (IOException e) {
+                    throw new ClassLoaderException(String.format("jar文件读取异常, jar: %s", archive), e);
+                }
+            });
+        }
+        List<Attributes> mainAttributes = invokeAll(manifestTasks, executor, ownedJarFiles, archives);
+        List<String> pluginLibDirs = new ArrayList<>(mainAttributes.size());
+        Attributes.Name pluginLib = new Attributes.Name(ManifestConst.KEY_PLUGIN_LIB);
+        for (Attributes attributes : mainAttributes) {
+            pluginLibDirs.add((String)attributes.getOrDefault(pluginLib, "lib/"));
+        }
+
+        String indexMode = getClassPathIndexMode(mainAttributes);
+        // 构建class path索引需要class path上的每个url都能对应到一个JarFile，任意一个对应不上都回退到URLClassPath
+        List<JarFile> jarFiles = "false".equalsIgnoreCase(indexMode) ? null : new ArrayList<>();
+        boolean direct = "direct".equalsIgnoreCase(indexMode);
+        if (jarFiles != null) {
+            List<ConcurrentUtil.IOSupplier<JarFile>> tasks = new ArrayList<>(classpathUrl.size());
+            for (URL url : classpathUrl) {
+                tasks.add(() -> openJarFile(url));
+            }
+            for (JarFile jarFile : invokeAll(tasks, executor, ownedJarFiles, classpathUrl)) {
+                if (jarFile == null) {
+                    jarFiles = null;
+                } else {
+                    ownedJarFiles.add(jarFile);
+                    if (jarFiles != null) {
+                        jarFiles.add(jarFile);
                     }
-                });
+                }
+            }
+        }
 
+        // 顶层jar（classpath以及archives本身），持久化索引以此为key
+        List<URL> topUrls = new ArrayList<>(classpathUrl);
+        for (Archive archive : archives) {
+            try {
+                topUrls.add(archive.getUrl());
+                jarFiles = addJarFile(jarFiles, archive);
             } catch (IOException e) {
+                closeQuietly(ownedJarFiles);
                 throw new ClassLoaderException(String.format("jar文件读取异常, jar: %s", archive), e);
             }
         }
 
+        // URLClassPath模式下预加载提示从archive对应的jar中解析
+        List<JarFile> archiveJarFiles = new ArrayList<>();
+        // 构建class path时打开的嵌套jar，加载器创建后计入统计
+        List<URL> nestedJarUrls = new ArrayList<>();
+        ClassPathIndex classPathIndex = null;
+        File indexFile = null;
+        String indexKey = null;
+        String indexDir = System.getProperty(CLASSPATH_INDEX_DIR_PROPERTY);
+        if (jarFiles != null && !direct && indexDir != null && !indexDir.isEmpty()) {
+            try {
+                indexFile = ClassPathIndexFile.getFile(new File(indexDir), topUrls);
+                indexKey = ClassPathIndexFile.createKey(topUrls, jarFiles, pluginLibDirs);
+                classPathIndex = ClassPathIndexFile.load(indexFile, indexKey, topUrls, jarFiles, ownedJarFiles);
+            } catch (IOException e) {
+                // 无法使用持久化索引，退化为每次启动时构建索引
+                indexFile = null;
+            }
+        }
+
+        if (classPathIndex != null) {
+            // 持久化索引命中，class path直接从索引中获取，不需要打开任何嵌套jar
+            classpathUrl.clear();
+            for (int i = 0; i < classPathIndex.getJarCount(); i++) {
+                classpathUrl.add(classPathIndex.getUrl(i));
+            }
+        } else {
+            List<JarFile> topJarFiles = jarFiles == null ? null : new ArrayList<>(jarFiles);
+            if (jarFiles != null) {
+                jarFiles = new ArrayList<>(jarFiles.subList(0, classpathUrl.size()));
+            }
+
+            for (int i = 0; i < archives.size(); i++) {
+                Archive archive = archives.get(i);
+                String pluginLibDir = pluginLibDirs.get(i);
+                try {
+                    classpathUrl.add(archive.getUrl());
+                    jarFiles = addJarFile(jarFiles, archive);
+                    addJarFile(archiveJarFiles, archive);
+                    List<Archive> nestedArchives = archive.getNestedArchives(Archive.FILTER_ALL,
+                        entry -> entry.getName().startsWith(pluginLibDir) && entry.getName().endsWith(".jar"),
+                        executor);
+                    for (Archive nestedArchive : nestedArchives) {
+                        classpathUrl.add(nestedArchive.getUrl());
+                        nestedJarUrls.add(nestedArchive.getUrl());
+                        jarFiles = addJarFile(jarFiles, nestedArchive);
+                        addJarFile(archiveJarFiles, nestedArchive);
+                    }
+                } catch (IOException e) {
+                    closeQuietly(ownedJarFiles);
+                    throw new ClassLoaderException(String.format("jar文件读取异常, jar: %s", archive), e);
+                } catch (RuntimeException e) {
+                    closeQuietly(ownedJarFiles);
+                    throw e;
+                }
+            }
+
+            if (jarFiles != null && direct) {
+                classPathIndex = ClassPathIndex.direct(classpathUrl, jarFiles, ownedJarFiles);
+            } else if (jarFiles != null) {
+                classPathIndex = ClassPathIndex.build(classpathUrl, jarFiles, ownedJarFiles);
+                if (indexFile != null) {
+                    ClassPathIndexFile.store(indexFile, indexKey, classPathIndex, topJarFiles);
+                }
+            } else {
+                closeQuietly(ownedJarFiles);
+            }
+        }
+
         String[] finalNeedParentLoad = needParentLoad;
 
         if (finalNeedParentLoad == null) {
@@ -168,7 +313,178 @@ public class PluginClassLoaderUtil {
                 finalNeedParentLoad.length - NEED_PARENT_LOAD.length, NEED_PARENT_LOAD.length);
         }
 
-        return new PluginClassLoader(classpathUrl.toArray(new URL[0]), parent, finalNeedParentLoad, forceLoadByParent,
-            forceLoadByChild, loadByParentAfterFail);
+        PluginClassLoader loader = new PluginClassLoader(classpathUrl.toArray(new URL[0]), parent,
+            finalNeedParentLoad, forceLoadByParent, forceLoadByChild, loadByParentAfterFail, classPathIndex);
+        for (URL nestedJarUrl : nestedJarUrls) {
+            loader.getMetrics().nestedJarOpened(nestedJarUrl);
+        }
+        if (classPathIndex != null) {
+            // 只有通过class path索引定义类时才能拿到字节码
+            loader.setClassPrefetcher(ClassPrefetcher.create(loader, loader::isDefinedByIndex));
+        }
+        ClassPathIndex finalClassPathIndex = classPathIndex;
+        startPreload(loader, topUrls, PreloadHints.parse(mainAttributes), () -> {
+            if (finalClassPathIndex == null) {
+                return archiveJarFiles;
+            }
+            List<JarFile> indexJarFiles = new ArrayList<>(finalClassPathIndex.getJarCount());
+            for (int i = 0; i < finalClassPathIndex.getJarCount(); i++) {
+                indexJarFiles.add(finalClassPathIndex.getJarFile(i));
+            }
+            return indexJarFiles;
+        });
+        return loader;
+    }
+
+    /**
+     * 根据{@link PreloadMode}开始记录类加载，并且在后台预加载上次启动记录的profile以及Manifest中声明的类
+     *
+     * @param loader
+     *            加载器
+     * @param topUrls
+     *            顶层jar的url，profile文件以此为key
+     * @param hints
+     *            Manifest中声明的预加载提示
+     * @param hintJarFiles
+     *            获取解析预加载提示使用的jar，在预加载线程中调用
+     */
+    private static void startPreload(PluginClassLoader loader, List<URL> topUrls, PreloadHints hints,
+        Callable<List<JarFile>> hintJarFiles) {
+        PreloadMode mode = PreloadMode.getDefault();
+        String dir = System.getProperty(ClassLoadProfile.DIR_PROPERTY);
+        ClassLoadProfile profile = null;
+        if (mode != PreloadMode.NONE && dir != null && !dir.isEmpty()) {
+            File file = ClassLoadProfile.getFile(new File(dir), topUrls);
+            String key = ClassLoadProfile.createKey(topUrls);
+            if (mode == PreloadMode.PRELOAD && file.isFile()) {
+                try {
+                    profile = ClassLoadProfile.read(file);
+                } catch (IOException e) {
+                    // profile损坏，重新记录
+                }
+                if (profile != null && !key.equals(profile.getKey())) {
+                    // jar已经被替换，profile过期，重新记录
+                    profile = null;
+                }
+            }
+            if (profile == null) {
+                loader.setClassLoadRecorder(ClassLoadRecorder.create(file, key));
+            }
+        }
+
+        if (profile != null && hints.isEmpty()) {
+            loader.setClassPreloader(ClassPreloader.start(loader, profile.getClassNames()));
+        } else if (!hints.isEmpty()) {
+            List<String> profileClassNames = profile == null ? Collections.emptyList() : profile.getClassNames();
+            // profile中的类是上次启动真正用到的，优先加载
+            loader.setClassPreloader(ClassPreloader.start(loader, () -> {
+                List<String> classNames = new ArrayList<>(profileClassNames);
+                classNames.addAll(hints.resolve(hintJarFiles.call()));
+                return classNames;
+            }, ClassPreloader.getConfiguredThreads()));
+        }
+    }
+
+    /**
+     * 获取class path索引方式，系统属性优先，其次是第一个声明了{@link ManifestConst#CLASSPATH_INDEX}的Manifest，都没有声明时不使用索引
+     *
+     * @param mainAttributes
+     *            archives的Manifest
+     * @return false表示不使用索引，direct表示不构建全局哈希表，其他表示构建索引
+     */
+    private static String getClassPathIndexMode(List<Attributes> mainAttributes) {
+        String mode = System.getProperty(CLASSPATH_INDEX_PROPERTY);
+        if (mode != null) {
+            return mode;
+        }
+
+        for (Attributes attributes : mainAttributes) {
+            String value = attributes.getValue(ManifestConst.CLASSPATH_INDEX);
+            if (value == null) {
+                continue;
+            } else if ("lazy".equalsIgnoreCase(value.trim())) {
+                return "direct";
+            } else if ("eager".equalsIgnoreCase(value.trim())) {
+                return "true";
+            }
+        }
+        return "false";
+    }
+
+    /**
+     * 将archive对应的JarFile添加到列表中
+     *
+     * @param jarFiles
+     *            JarFile列表，为null表示已经无法构建索引
+     * @param archive
+     *            archive
+     * @return JarFile列表，如果archive不是由JarFile支撑的则返回null
+     */
+    private static List<JarFile> addJarFile(List<JarFile> jarFiles, Archive archive) {
+        if (jarFiles == null || !(archive instanceof JarFileArchive)) {
+            return null;
+        }
+        jarFiles.add(((JarFileArchive)archive).getJarFile());
+        return jarFiles;
+    }
+
+    /**
+     * 打开class path上url对应的JarFile
+     *
+     * @param url
+     *            url
+     * @return JarFile，url不是jar（例如是目录）或者打开失败时返回null
+     */
+    private static JarFile openJarFile(URL url) {
+        try {
+            String protocol = url.getProtocol();
+            if ("file".equals(protocol)) {
+                File file = new File(url.toURI());
+                return file.isFile() ? new JarFile(file) : null;
+            } else if ("jar".equals(protocol) || "nested".equals(protocol)) {
+                return JarFileUtil.fromUrl(url);
+            }
+        } catch (IOException | URISyntaxException | RuntimeException e) {
+            // 打开失败时回退到URLClassPath，由URLClassPath决定如何处理
+        }
+        return null;
+    }
+
+    /**
+     * 执行任务，失败时关闭已经打开的jar
+     *
+     * @param tasks
+     *            任务
+     * @param executor
+     *            线程池，允许为null
+     * @param ownedJarFiles
+     *            已经打开的jar，失败时关闭
+     * @param target
+     *            任务处理的对象，用于异常信息
+     * @param <T>
+     *            结果类型
+     * @return 任务结果，顺序与任务顺序一致
+     */
+    private static <T> List<T> invokeAll(List<ConcurrentUtil.IOSupplier<T>> tasks, Executor executor,
+        List<JarFile> ownedJarFiles, Object target) {
+        try {
+            return ConcurrentUtil.invokeAll(tasks, executor);
+        } catch (IOException e) {
+            closeQuietly(ownedJarFiles);
+            throw new ClassLoaderException(String.format("jar文件读取异常, jar: %s", target), e);
+        } catch (RuntimeException e) {
+            closeQuietly(ownedJarFiles);
+            throw e;
+        }
+    }
+
+    private static void closeQuietly(List<JarFile> jarFiles) {
+        for (JarFile jarFile : jarFiles) {
+            try {
+                jarFile.close();
+            } catch (IOException e) {
+                // 忽略异常
+            }
+        }
     }
 }
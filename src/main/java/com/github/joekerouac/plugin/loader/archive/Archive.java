@@ -15,7 +15,10 @@ package com.github.joekerouac.plugin.loader.archive;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executor;
 import java.util.jar.Manifest;
 
 /**
@@ -62,6 +65,30 @@ public interface Archive extends AutoCloseable {
      */
     Iterator<Archive> getNestedArchives(EntryFilter searchFilter, EntryFilter includeFilter) throws IOException;
 
+    /**
+     * Returns nested {@link Archive}s for entries that match the specified filters, opening them on the given executor.
+     * The result has the same order as {@link #getNestedArchives(EntryFilter, EntryFilter)} regardless of the order
+     * in which the archives are opened. The default implementation opens them one by one on the calling thread.
+     * 
+     * @param searchFilter
+     *            filter used to limit when additional sub-entry searching is required or {@code null} if all entries
+     *            should be considered.
+     * @param includeFilter
+     *            filter used to determine which entries should be included in the result or {@code null} if all entries
+     *            should be included
+     * @param executor
+     *            the executor used to open the nested archives or {@code null} to open them on the calling thread
+     * @return the nested archives
+     * @throws IOException
+     *             on IO error
+     */
+    default List<Archive> getNestedArchives(EntryFilter searchFilter, EntryFilter includeFilter, Executor executor)
+        throws IOException {
+        List<Archive> archives = new ArrayList<>();
+        getNestedArchives(searchFilter, includeFilter).forEachRemaining(archives::add);
+        return archives;
+    }
+
     /**
      * Return if the archive is exploded (already unpacked).
      * 
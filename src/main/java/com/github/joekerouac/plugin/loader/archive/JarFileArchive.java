@@ -13,13 +13,17 @@
 package com.github.joekerouac.plugin.loader.archive;
 
 import com.github.joekerouac.plugin.loader.jar.JarFile;
+import com.github.joekerouac.plugin.loader.util.ConcurrentUtil;
 import com.github.joekerouac.plugin.loader.util.JarFileUtil;
 
 import java.io.File;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executor;
 import java.util.jar.JarEntry;
 import java.util.jar.Manifest;
 
@@ -72,6 +76,15 @@ public class JarFileArchive implements Archive {
         return this.jarFile.getUrl();
     }
 
+    /**
+     * 获取底层的jar
+     *
+     * @return jar
+     */
+    public JarFile getJarFile() {
+        return this.jarFile;
+    }
+
     @Override
     public Manifest getManifest() throws IOException {
         return this.jarFile.getManifest();
@@ -82,6 +95,19 @@ public class JarFileArchive implements Archive {
         return new NestedArchiveIterator(this.jarFile.iterator(), searchFilter, includeFilter);
     }
 
+    @Override
+    public List<Archive> getNestedArchives(EntryFilter searchFilter, EntryFilter includeFilter, Executor executor)
+        throws IOException {
+        // 先在当前线程中遍历出所有嵌套entry，再并发打开嵌套jar
+        List<ConcurrentUtil.IOSupplier<Archive>> tasks = new ArrayList<>();
+        Iterator<Entry> entries = new EntryIterator(this.jarFile.iterator(), searchFilter, includeFilter);
+        while (entries.hasNext()) {
+            Entry entry = entries.next();
+            tasks.add(() -> getNestedArchive(entry));
+        }
+        return ConcurrentUtil.invokeAll(tasks, executor);
+    }
+
     @Override
     public void close() throws IOException {
         this.jarFile.close();
@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.joekerouac.plugin.loader.data;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * 基于内存的{@link RandomAccessData}，数据可以在堆内（byte数组）、堆外或者是文件映射，读取不会产生任何IO
+ *
+ * @author JoeKerouac
+ * @date 2026-10-16 16:00
+ * @since 4.0.1
+ */
+public final class ByteBufferData implements RandomAccessData {
+
+    /**
+     * 数据，position为0，limit为数据长度，只使用绝对位置访问
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * 创建内存数据
+     *
+     * @param buffer
+     *            数据，从buffer的position到limit之间的数据，之后对buffer的position、limit修改不会影响本对象
+     */
+    public ByteBufferData(ByteBuffer buffer) {
+        this.buffer = buffer.slice();
+    }
+
+    /**
+     * 创建堆内数据
+     *
+     * @param bytes
+     *            数据，不会拷贝
+     */
+    public ByteBufferData(byte[] bytes) {
+        this(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * 获取数据
+     *
+     * @return 数据的只读视图
+     */
+    public ByteBuffer getBuffer() {
+        return this.buffer.asReadOnlyBuffer();
+    }
+
+    /**
+     * 如果数据是一个完整的byte数组，返回该数组，调用方不能修改数组内容
+     *
+     * @return 数据对应的byte数组，数据不在堆内或者只是数组的一部分时返回null
+     */
+    public byte[] getArray() {
+        if (this.buffer.hasArray() && this.buffer.arrayOffset() == 0
+            && this.buffer.array().length == this.buffer.capacity()) {
+            return this.buffer.array();
+        }
+        return null;
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        return new ByteBufferInputStream(this.buffer.duplicate());
+    }
+
+    @Override
+    public RandomAccessData getSubsection(long offset, long length) {
+        if (offset < 0 || length < 0 || offset + length > this.buffer.capacity()) {
+            throw new IndexOutOfBoundsException();
+        }
+        ByteBuffer duplicate = this.buffer.duplicate();
+        duplicate.position((int)offset);
+        duplicate.limit((int)(offset + length));
+        return new ByteBufferData(duplicate);
+    }
+
+    @Override
+    public byte[] read() {
+        byte[] bytes = new byte[this.buffer.capacity()];
+        this.buffer.duplicate().get(bytes);
+        return bytes;
+    }
+
+    @Override
+    public byte[] read(long offset, long length) throws IOException {
+        if (offset > this.buffer.capacity()) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (offset + length > this.buffer.capacity()) {
+            throw new EOFException();
+        }
+        byte[] bytes = new byte[(int)length];
+        ByteBuffer duplicate = this.buffer.duplicate();
+        duplicate.position((int)offset);
+        duplicate.get(bytes);
+        return bytes;
+    }
+
+    @Override
+    public long getSize() {
+        return this.buffer.capacity();
+    }
+
+    /**
+     * {@link InputStream} implementation for the {@link ByteBufferData}.
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return this.buffer.hasRemaining() ? this.buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (b == null) {
+                throw new NullPointerException("Bytes must not be null");
+            }
+            if (len == 0) {
+                return 0;
+            }
+            if (!this.buffer.hasRemaining()) {
+                return -1;
+            }
+            int read = Math.min(len, this.buffer.remaining());
+            this.buffer.get(b, off, read);
+            return read;
+        }
+
+        @Override
+        public long skip(long n) {
+            if (n <= 0) {
+                return 0;
+            }
+            int skip = (int)Math.min(n, this.buffer.remaining());
+            this.buffer.position(this.buffer.position() + skip);
+            return skip;
+        }
+
+        @Override
+        public int available() {
+            return this.buffer.remaining();
+        }
+
+    }
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.joekerouac.plugin.loader.data;
+
+/**
+ * {@link RandomAccessDataFile}读取底层文件的方式
+ *
+ * @author JoeKerouac
+ * @date 2026-10-16 14:00
+ * @since 4.0.1
+ */
+public enum FileAccessMode {
+
+    /**
+     * 使用{@link java.io.RandomAccessFile}读取，所有读取共用一个文件描述符，seek与read必须加锁串行执行
+     */
+    RANDOM_ACCESS_FILE,
+
+    /**
+     * 将整个文件内存映射（超过1G的文件按照1G一个窗口映射），读取时不需要加锁也不需要系统调用；映射在文件关闭后由GC回收
+     */
+    MAPPED,
+
+    /**
+     * 使用{@link java.nio.channels.FileChannel#read(java.nio.ByteBuffer, long)}按位置读取（pread），不需要seek，读取时不需要加锁；
+     * 适用于无法内存映射大文件的场景
+     */
+    CHANNEL;
+
+    /**
+     * 默认读取方式的系统属性，取值为枚举名（忽略大小写），不设置或者取值非法时使用{@link #RANDOM_ACCESS_FILE}
+     */
+    public static final String PROPERTY = "plugin.loader.file.access";
+
+    /**
+     * 获取默认的读取方式
+     *
+     * @return 默认的读取方式
+     */
+    public static FileAccessMode getDefault() {
+        String mode = System.getProperty(PROPERTY);
+        if (mode != null) {
+            for (FileAccessMode value : values()) {
+                if (value.name().equalsIgnoreCase(mode.trim())) {
+                    return value;
+                }
+            }
+        }
+        return RANDOM_ACCESS_FILE;
+    }
+
+}
@@ -13,6 +13,12 @@
 package com.github.joekerouac.plugin.loader.data;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
 
 /**
  * {@link RandomAccessData} implementation backed by a {@link RandomAccessFile}.
@@ -30,7 +36,8 @@ public class RandomAccessDataFile implements RandomAccessData {
     private final long length;
 
     /**
-     * Create a new {@link RandomAccessDataFile} backed by the specified file.
+     * Create a new {@link RandomAccessDataFile} backed by the specified file, using the
+     * {@link FileAccessMode#getDefault() default} access mode.
      * 
      * @param file
      *            the underlying file
@@ -38,10 +45,30 @@ public class RandomAccessDataFile implements RandomAccessData {
      *             if the file is null or does not exist
      */
     public RandomAccessDataFile(File file) {
+        this(file, FileAccessMode.getDefault());
+    }
+
+    /**
+     * Create a new {@link RandomAccessDataFile} backed by the specified file.
+     * 
+     * @param file
+     *            the underlying file
+     * @param mode
+     *            how the underlying file is accessed
+     * @throws IllegalArgumentException
+     *             if the file is null or does not exist
+     */
+    public RandomAccessDataFile(File file, FileAccessMode mode) {
         if (file == null) {
             throw new IllegalArgumentException("File must not be null");
         }
-        this.fileAccess = new FileAccess(file);
+        if (mode == FileAccessMode.MAPPED) {
+            this.fileAccess = new MappedFileAccess(file);
+        } else if (mode == FileAccessMode.CHANNEL) {
+            this.fileAccess = new ChannelFileAccess(file);
+        } else {
+            this.fileAccess = new RandomAccessFileAccess(file);
+        }
         this.offset = 0L;
         this.length = file.length();
     }
@@ -121,6 +148,25 @@ public class RandomAccessDataFile implements RandomAccessData {
         return this.length;
     }
 
+    /**
+     * Return a read-only view of the specified section of this data, only available when the underlying file is
+     * {@link FileAccessMode#MAPPED memory mapped}.
+     * 
+     * @param offset
+     *            the offset of the section
+     * @param length
+     *            the length of the section
+     * @return the view, or {@code null} if the file is not mapped or the section spans several mapped windows
+     * @throws IOException
+     *             if the file cannot be mapped
+     */
+    public ByteBuffer slice(long offset, long length) throws IOException {
+        if (offset < 0 || length < 0 || offset + length > this.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        return this.fileAccess.slice(this.offset + offset, length);
+    }
+
     public void close() throws IOException {
         this.fileAccess.close();
     }
@@ -214,20 +260,49 @@ public class RandomAccessDataFile implements RandomAccessData {
 
     }
 
-    private static final class FileAccess {
+    /**
+     * Provides access to the underlying file.
+     */
+    private abstract static class FileAccess {
+
+        final File file;
 
-        private final Object monitor = new Object();
+        FileAccess(File file) {
+            this.file = file;
+        }
+
+        abstract int read(byte[] bytes, long position, int offset, int length) throws IOException;
+
+        abstract int readByte(long position) throws IOException;
+
+        abstract void close() throws IOException;
 
-        private final File file;
+        ByteBuffer slice(long position, long length) throws IOException {
+            return null;
+        }
+
+        IllegalArgumentException fileMustExist() {
+            return new IllegalArgumentException(String.format("File %s must exist", this.file.getAbsolutePath()));
+        }
+
+    }
+
+    /**
+     * {@link FileAccess} backed by a single {@link RandomAccessFile}, reads are serialized by a monitor.
+     */
+    private static final class RandomAccessFileAccess extends FileAccess {
+
+        private final Object monitor = new Object();
 
         private RandomAccessFile randomAccessFile;
 
-        private FileAccess(File file) {
-            this.file = file;
+        private RandomAccessFileAccess(File file) {
+            super(file);
             openIfNecessary();
         }
 
-        private int read(byte[] bytes, long position, int offset, int length) throws IOException {
+        @Override
+        int read(byte[] bytes, long position, int offset, int length) throws IOException {
             synchronized (this.monitor) {
                 openIfNecessary();
                 this.randomAccessFile.seek(position);
@@ -240,13 +315,13 @@ public class RandomAccessDataFile implements RandomAccessData {
                 try {
                     this.randomAccessFile = new RandomAccessFile(this.file, "r");
                 } catch (FileNotFoundException ex) {
-                    throw new IllegalArgumentException(
-                        String.format("File %s must exist", this.file.getAbsolutePath()));
+                    throw fileMustExist();
                 }
             }
         }
 
-        private void close() throws IOException {
+        @Override
+        void close() throws IOException {
             synchronized (this.monitor) {
                 if (this.randomAccessFile != null) {
                     this.randomAccessFile.close();
@@ -255,7 +330,8 @@ public class RandomAccessDataFile implements RandomAccessData {
             }
         }
 
-        private int readByte(long position) throws IOException {
+        @Override
+        int readByte(long position) throws IOException {
             synchronized (this.monitor) {
                 openIfNecessary();
                 this.randomAccessFile.seek(position);
@@ -265,4 +341,220 @@ public class RandomAccessDataFile implements RandomAccessData {
 
     }
 
+    /**
+     * {@link FileAccess} backed by read-only memory mappings of the whole file. Files larger than
+     * {@link #WINDOW_SIZE} are mapped as several windows. Reads are lock free and do not need any system call. The
+     * mappings can't be released explicitly, closing only drops the references so that they can be reclaimed by the
+     * garbage collector.
+     */
+    private static final class MappedFileAccess extends FileAccess {
+
+        private static final int WINDOW_SHIFT = 30;
+
+        private static final int WINDOW_SIZE = 1 << WINDOW_SHIFT;
+
+        private static final long WINDOW_MASK = WINDOW_SIZE - 1;
+
+        private final Object monitor = new Object();
+
+        private volatile ByteBuffer[] windows;
+
+        private long size;
+
+        private MappedFileAccess(File file) {
+            super(file);
+            try {
+                mapIfNecessary();
+            } catch (NoSuchFileException ex) {
+                throw fileMustExist();
+            } catch (IOException ex) {
+                throw new IllegalStateException(String.format("Unable to map file %s", file.getAbsolutePath()), ex);
+            }
+        }
+
+        private ByteBuffer[] mapIfNecessary() throws IOException {
+            ByteBuffer[] windows = this.windows;
+            if (windows != null) {
+                return windows;
+            }
+            synchronized (this.monitor) {
+                if (this.windows == null) {
+                    try (FileChannel channel = FileChannel.open(this.file.toPath(), StandardOpenOption.READ)) {
+                        long size = channel.size();
+                        ByteBuffer[] mapped = new ByteBuffer[(int)((size + WINDOW_SIZE - 1) >>> WINDOW_SHIFT)];
+                        for (int i = 0; i < mapped.length; i++) {
+                            long position = (long)i << WINDOW_SHIFT;
+                            long windowSize = Math.min(WINDOW_SIZE, size - position);
+                            mapped[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, windowSize);
+                        }
+                        this.size = size;
+                        this.windows = mapped;
+                    }
+                }
+                return this.windows;
+            }
+        }
+
+        @Override
+        int read(byte[] bytes, long position, int offset, int length) throws IOException {
+            ByteBuffer[] windows = mapIfNecessary();
+            if (position >= this.size) {
+                return -1;
+            }
+            int total = (int)Math.min(length, this.size - position);
+            int remaining = total;
+            while (remaining > 0) {
+                ByteBuffer window = windows[(int)(position >>> WINDOW_SHIFT)].duplicate();
+                window.position((int)(position & WINDOW_MASK));
+                int read = Math.min(remaining, window.remaining());
+                window.get(bytes, offset, read);
+                position += read;
+                offset += read;
+                remaining -= read;
+            }
+            return total;
+        }
+
+        @Override
+        int readByte(long position) throws IOException {
+            ByteBuffer[] windows = mapIfNecessary();
+            if (position >= this.size) {
+                return -1;
+            }
+            return windows[(int)(position >>> WINDOW_SHIFT)].get((int)(position & WINDOW_MASK)) & 0xFF;
+        }
+
+        @Override
+        ByteBuffer slice(long position, long length) throws IOException {
+            ByteBuffer[] windows = mapIfNecessary();
+            int index = (int)(position >>> WINDOW_SHIFT);
+            if (length == 0 || index != (int)((position + length - 1) >>> WINDOW_SHIFT)) {
+                return null;
+            }
+            ByteBuffer window = windows[index].duplicate();
+            window.position((int)(position & WINDOW_MASK));
+            window.limit((int)((position & WINDOW_MASK) + length));
+            return window.slice().asReadOnlyBuffer();
+        }
+
+        @Override
+        void close() {
+            synchronized (this.monitor) {
+                this.windows = null;
+            }
+        }
+
+    }
+
+    /**
+     * {@link FileAccess} backed by a {@link FileChannel} using positional reads, concurrent readers don't share a file
+     * pointer so no lock is needed. A channel is closed as a side effect when a reading thread is interrupted, in that
+     * case the channel is reopened and the read is retried so that other readers are not affected.
+     */
+    private static final class ChannelFileAccess extends FileAccess {
+
+        /**
+         * Thread confined buffer for single byte reads, direct so that the channel doesn't copy through a temporary
+         * buffer.
+         */
+        private static final ThreadLocal<ByteBuffer> ONE_BYTE =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(1));
+
+        private final Object monitor = new Object();
+
+        private volatile FileChannel channel;
+
+        private ChannelFileAccess(File file) {
+            super(file);
+            try {
+                openIfNecessary();
+            } catch (NoSuchFileException ex) {
+                throw fileMustExist();
+            } catch (IOException ex) {
+                throw new IllegalStateException(String.format("Unable to open file %s", file.getAbsolutePath()), ex);
+            }
+        }
+
+        private FileChannel openIfNecessary() throws IOException {
+            FileChannel channel = this.channel;
+            if (channel != null) {
+                return channel;
+            }
+            synchronized (this.monitor) {
+                if (this.channel == null) {
+                    this.channel = FileChannel.open(this.file.toPath(), StandardOpenOption.READ);
+                }
+                return this.channel;
+            }
+        }
+
+        @Override
+        int read(byte[] bytes, long position, int offset, int length) throws IOException {
+            return read(ByteBuffer.wrap(bytes, offset, length), position);
+        }
+
+        @Override
+        int readByte(long position) throws IOException {
+            ByteBuffer buffer = ONE_BYTE.get();
+            buffer.clear();
+            return (read(buffer, position) == 1) ? buffer.get(0) & 0xFF : -1;
+        }
+
+        private int read(ByteBuffer buffer, long position) throws IOException {
+            int start = buffer.position();
+            int length = buffer.remaining();
+            boolean interrupted = false;
+            try {
+                while (true) {
+                    FileChannel channel = openIfNecessary();
+                    try {
+                        while (buffer.hasRemaining()) {
+                            int read = channel.read(buffer, position + buffer.position() - start);
+                            if (read < 0) {
+                                break;
+                            }
+                        }
+                        int read = buffer.position() - start;
+                        return (read == 0 && length > 0) ? -1 : read;
+                    } catch (ClosedByInterruptException ex) {
+                        // 清除中断标记后重试，返回前恢复
+                        interrupted |= Thread.interrupted();
+                        reset(channel);
+                    } catch (ClosedChannelException ex) {
+                        // 被其他线程的中断或者close关闭，重新打开
+                        reset(channel);
+                    }
+                }
+            } finally {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        private void reset(FileChannel channel) {
+            synchronized (this.monitor) {
+                if (this.channel == channel) {
+                    this.channel = null;
+                }
+            }
+            try {
+                channel.close();
+            } catch (IOException ex) {
+                // 忽略异常
+            }
+        }
+
+        @Override
+        void close() throws IOException {
+            synchronized (this.monitor) {
+                if (this.channel != null) {
+                    this.channel.close();
+                    this.channel = null;
+                }
+            }
+        }
+
+    }
+
 }
@@ -12,6 +12,7 @@
  */
 package com.github.joekerouac.plugin.loader.jar;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 
 /**
@@ -30,6 +31,10 @@ final class AsciiBytes {
 
     private static final int SUBSEQUENT_BYTE_BITMASK = 0x3F;
 
+    private static final long FNV64_OFFSET_BASIS = 0xCBF29CE484222325L;
+
+    private static final long FNV64_PRIME = 0x100000001B3L;
+
     private final byte[] bytes;
 
     private final int offset;
@@ -127,37 +132,96 @@ final class AsciiBytes {
         return new AsciiBytes(this.bytes, this.offset + beginIndex, length);
     }
 
-    @SuppressWarnings("checkstyle:modifiedcontrolvariable")
     boolean matches(CharSequence name, char suffix) {
+        return matches(this.bytes, this.offset, this.length, name, suffix);
+    }
+
+    /**
+     * Return if the UTF-8 encoded bytes in the given range match the given name and optional suffix. Unlike
+     * {@link #matches(CharSequence, char)} this does not require an {@link AsciiBytes} instance so raw central
+     * directory bytes can be tested in place.
+     * 
+     * @param bytes
+     *            the source bytes
+     * @param offset
+     *            the offset of the encoded name
+     * @param length
+     *            the length of the encoded name
+     * @param name
+     *            the name to test
+     * @param suffix
+     *            an additional suffix (or {@code 0})
+     * @return {@code true} if the bytes match the name
+     */
+    @SuppressWarnings("checkstyle:modifiedcontrolvariable")
+    static boolean matches(byte[] bytes, int offset, int length, CharSequence name, char suffix) {
         int charIndex = 0;
         int nameLen = name.length();
         int totalLen = nameLen + ((suffix != 0) ? 1 : 0);
-        for (int i = this.offset; i < this.offset + this.length; i++) {
-            int b = this.bytes[i];
+        for (int i = offset; i < offset + length; i++) {
+            int b = bytes[i];
             int remainingUtfBytes = getNumberOfUtfBytes(b) - 1;
             b &= INITIAL_BYTE_BITMASK[remainingUtfBytes];
             for (int j = 0; j < remainingUtfBytes; j++) {
-                b = (b << 6) + (this.bytes[++i] & SUBSEQUENT_BYTE_BITMASK);
+                b = (b << 6) + (bytes[++i] & SUBSEQUENT_BYTE_BITMASK);
             }
-            char c = getChar(name, suffix, charIndex++);
-            if (b <= 0xFFFF) {
-                if (c != b) {
-                    return false;
-                }
-            } else {
-                if (c != ((b >> 0xA) + 0xD7C0)) {
-                    return false;
-                }
-                c = getChar(name, suffix, charIndex++);
-                if (c != ((b & 0x3FF) + 0xDC00)) {
-                    return false;
-                }
+            charIndex = matchCodePoint(b, name, suffix, charIndex);
+            if (charIndex < 0) {
+                return false;
+            }
+        }
+        return charIndex == totalLen;
+    }
+
+    /**
+     * Return if the UTF-8 encoded bytes in the given range of the buffer match the given name and optional suffix, the
+     * buffer position is not changed.
+     * 
+     * @param buffer
+     *            the source buffer
+     * @param offset
+     *            the absolute offset of the encoded name
+     * @param length
+     *            the length of the encoded name
+     * @param name
+     *            the name to test
+     * @param suffix
+     *            an additional suffix (or {@code 0})
+     * @return {@code true} if the bytes match the name
+     */
+    @SuppressWarnings("checkstyle:modifiedcontrolvariable")
+    static boolean matches(ByteBuffer buffer, int offset, int length, CharSequence name, char suffix) {
+        int charIndex = 0;
+        int nameLen = name.length();
+        int totalLen = nameLen + ((suffix != 0) ? 1 : 0);
+        for (int i = offset; i < offset + length; i++) {
+            int b = buffer.get(i);
+            int remainingUtfBytes = getNumberOfUtfBytes(b) - 1;
+            b &= INITIAL_BYTE_BITMASK[remainingUtfBytes];
+            for (int j = 0; j < remainingUtfBytes; j++) {
+                b = (b << 6) + (buffer.get(++i) & SUBSEQUENT_BYTE_BITMASK);
+            }
+            charIndex = matchCodePoint(b, name, suffix, charIndex);
+            if (charIndex < 0) {
+                return false;
             }
         }
         return charIndex == totalLen;
     }
 
-    private char getChar(CharSequence name, char suffix, int index) {
+    private static int matchCodePoint(int codePoint, CharSequence name, char suffix, int charIndex) {
+        char c = getChar(name, suffix, charIndex++);
+        if (codePoint <= 0xFFFF) {
+            return (c != codePoint) ? -1 : charIndex;
+        }
+        if (c != ((codePoint >> 0xA) + 0xD7C0)) {
+            return -1;
+        }
+        c = getChar(name, suffix, charIndex++);
+        return (c != ((codePoint & 0x3FF) + 0xDC00)) ? -1 : charIndex;
+    }
+
+    private static char getChar(CharSequence name, char suffix, int index) {
         if (index < name.length()) {
             return name.charAt(index);
         }
@@ -167,7 +231,7 @@ final class AsciiBytes {
         return 0;
     }
 
-    private int getNumberOfUtfBytes(int b) {
+    private static int getNumberOfUtfBytes(int b) {
         if ((b & 0x80) == 0) {
             return 1;
         }
@@ -238,6 +302,67 @@ final class AsciiBytes {
         return (suffix != 0) ? (31 * hash + suffix) : hash;
     }
 
+    /**
+     * Return a seeded 64-bit hash of the name. The hash is calculated over the same chars as {@link #hashCode()} so it
+     * is equal to {@link #hash64(CharSequence, char, long)} of the decoded name. Unlike {@link #hashCode()}, names
+     * that collide for one seed are not expected to collide for another one.
+     * 
+     * @param seed
+     *            the seed
+     * @return the hash
+     */
+    @SuppressWarnings("checkstyle:modifiedcontrolvariable")
+    long hash64(long seed) {
+        long hash = seed ^ FNV64_OFFSET_BASIS;
+        for (int i = this.offset; i < this.offset + this.length; i++) {
+            int b = this.bytes[i];
+            int remainingUtfBytes = getNumberOfUtfBytes(b) - 1;
+            b &= INITIAL_BYTE_BITMASK[remainingUtfBytes];
+            for (int j = 0; j < remainingUtfBytes; j++) {
+                b = (b << 6) + (this.bytes[++i] & SUBSEQUENT_BYTE_BITMASK);
+            }
+            if (b <= 0xFFFF) {
+                hash = (hash ^ b) * FNV64_PRIME;
+            } else {
+                hash = (hash ^ ((b >> 0xA) + 0xD7C0)) * FNV64_PRIME;
+                hash = (hash ^ ((b & 0x3FF) + 0xDC00)) * FNV64_PRIME;
+            }
+        }
+        return fmix64(hash);
+    }
+
+    /**
+     * Return a seeded 64-bit hash of the name and optional suffix, see {@link #hash64(long)}.
+     * 
+     * @param name
+     *            the name
+     * @param suffix
+     *            an additional suffix (or {@code 0})
+     * @param seed
+     *            the seed
+     * @return the hash
+     */
+    static long hash64(CharSequence name, char suffix, long seed) {
+        long hash = seed ^ FNV64_OFFSET_BASIS;
+        for (int i = 0; i < name.length(); i++) {
+            hash = (hash ^ name.charAt(i)) * FNV64_PRIME;
+        }
+        if (suffix != 0) {
+            hash = (hash ^ suffix) * FNV64_PRIME;
+        }
+        return fmix64(hash);
+    }
+
+    private static long fmix64(long hash) {
+        // Finalization mix of MurmurHash3, spreads every input bit over the whole result
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
     @Override
     public String toString() {
         if (this.string == null) {
@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.joekerouac.plugin.loader.jar;
+
+/**
+ * 缓存统计信息快照
+ *
+ * @author JoeKerouac
+ * @date 2026-10-16 15:00
+ * @since 4.0.1
+ */
+public final class CacheStats {
+
+    private final long hitCount;
+
+    private final long missCount;
+
+    private final long evictionCount;
+
+    private final int size;
+
+    private final int capacity;
+
+    public CacheStats(long hitCount, long missCount, long evictionCount, int size, int capacity) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.size = size;
+        this.capacity = capacity;
+    }
+
+    /**
+     * 命中次数
+     *
+     * @return 命中次数
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * 未命中次数
+     *
+     * @return 未命中次数
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * 淘汰次数
+     *
+     * @return 淘汰次数
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * 当前缓存的数量
+     *
+     * @return 当前缓存的数量
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * 缓存容量
+     *
+     * @return 缓存容量
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * 命中率，没有任何请求时返回1
+     *
+     * @return 命中率
+     */
+    public double getHitRate() {
+        long requestCount = hitCount + missCount;
+        return requestCount == 0 ? 1.0 : (double)hitCount / requestCount;
+    }
+
+    /**
+     * 与另一份统计信息相加，用于汇总多个缓存的统计信息
+     *
+     * @param other
+     *            另一份统计信息
+     * @return 相加后的统计信息
+     */
+    public CacheStats plus(CacheStats other) {
+        return new CacheStats(hitCount + other.hitCount, missCount + other.missCount,
+            evictionCount + other.evictionCount, size + other.size, capacity + other.capacity);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CacheStats(hitCount=%d, missCount=%d, evictionCount=%d, size=%d, capacity=%d)", hitCount,
+            missCount, evictionCount, size, capacity);
+    }
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.joekerouac.plugin.loader.jar;
+
+/**
+ * jar中央目录的驻留方式，中央目录驻留内存后，查找entry时解析文件头、比较名字、获取数据偏移都直接在内存上进行，不会再产生任何IO
+ *
+ * @author JoeKerouac
+ * @date 2026-10-16 16:00
+ * @since 4.0.1
+ */
+public enum CentralDirectoryMode {
+
+    /**
+     * 不驻留，解析完成后丢弃中央目录，每次查找未缓存的entry都需要从文件中读取文件头
+     */
+    NONE,
+
+    /**
+     * 中央目录保存在堆内的byte数组中，文件头直接在数组上解析，不需要拷贝
+     */
+    HEAP,
+
+    /**
+     * 中央目录保存在堆外，如果jar是内存映射的（{@link com.github.joekerouac.plugin.loader.data.FileAccessMode#MAPPED}），
+     * 直接使用映射的内存，不需要拷贝
+     */
+    OFF_HEAP;
+
+    /**
+     * 默认驻留方式的系统属性，取值为枚举名（忽略大小写），不设置或者取值非法时使用{@link #NONE}
+     */
+    public static final String PROPERTY = "plugin.loader.central.directory";
+
+    /**
+     * 获取默认的驻留方式
+     *
+     * @return 默认的驻留方式
+     */
+    public static CentralDirectoryMode getDefault() {
+        String mode = System.getProperty(PROPERTY);
+        if (mode != null) {
+            for (CentralDirectoryMode value : values()) {
+                if (value.name().equalsIgnoreCase(mode.trim())) {
+                    return value;
+                }
+            }
+        }
+        return NONE;
+    }
+
+}
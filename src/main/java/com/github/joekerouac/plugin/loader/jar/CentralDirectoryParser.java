@@ -13,10 +13,13 @@
 package com.github.joekerouac.plugin.loader.jar;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
+import com.github.joekerouac.plugin.loader.data.ByteBufferData;
 import com.github.joekerouac.plugin.loader.data.RandomAccessData;
+import com.github.joekerouac.plugin.loader.data.RandomAccessDataFile;
 
 /**
  * Parses the central directory from a JAR file.
@@ -32,6 +35,16 @@ class CentralDirectoryParser {
 
     private final List<CentralDirectoryVisitor> visitors = new ArrayList<>();
 
+    private final CentralDirectoryMode mode;
+
+    CentralDirectoryParser() {
+        this(CentralDirectoryMode.getDefault());
+    }
+
+    CentralDirectoryParser(CentralDirectoryMode mode) {
+        this.mode = mode;
+    }
+
     <T extends CentralDirectoryVisitor> T addVisitor(T visitor) {
         this.visitors.add(visitor);
         return visitor;
@@ -54,15 +67,43 @@ class CentralDirectoryParser {
             data = getArchiveData(endRecord, data);
         }
         RandomAccessData centralDirectoryData = endRecord.getCentralDirectory(data);
+        byte[] bytes = null;
+        if (this.mode == CentralDirectoryMode.HEAP) {
+            bytes = centralDirectoryData.read();
+            centralDirectoryData = new ByteBufferData(bytes);
+        } else if (this.mode == CentralDirectoryMode.OFF_HEAP) {
+            ByteBuffer mapped = getMappedSlice(centralDirectoryData);
+            if (mapped == null) {
+                bytes = centralDirectoryData.read();
+                mapped = ByteBuffer.allocateDirect(bytes.length);
+                mapped.put(bytes);
+                mapped.flip();
+            }
+            centralDirectoryData = new ByteBufferData(mapped);
+        }
         visitStart(endRecord, centralDirectoryData);
-        parseEntries(endRecord, centralDirectoryData);
+        parseEntries(endRecord, (bytes != null) ? bytes : centralDirectoryData.read());
         visitEnd();
         return data;
     }
 
-    private void parseEntries(CentralDirectoryEndRecord endRecord, RandomAccessData centralDirectoryData)
-        throws IOException {
-        byte[] bytes = centralDirectoryData.read(0, centralDirectoryData.getSize());
+    /**
+     * Return the mapped memory of the central directory if the underlying file is memory mapped.
+     * 
+     * @param centralDirectoryData
+     *            the central directory data
+     * @return the mapped memory or {@code null}
+     * @throws IOException
+     *             on error
+     */
+    private ByteBuffer getMappedSlice(RandomAccessData centralDirectoryData) throws IOException {
+        if (centralDirectoryData instanceof RandomAccessDataFile) {
+            return ((RandomAccessDataFile)centralDirectoryData).slice(0, centralDirectoryData.getSize());
+        }
+        return null;
+    }
+
+    private void parseEntries(CentralDirectoryEndRecord endRecord, byte[] bytes) throws IOException {
         CentralDirectoryFileHeader fileHeader = new CentralDirectoryFileHeader();
         int dataOffset = 0;
         for (int i = 0; i < endRecord.getNumberOfRecords(); i++) {
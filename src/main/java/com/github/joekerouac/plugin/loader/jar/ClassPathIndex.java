@@ -0,0 +1,582 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.joekerouac.plugin.loader.jar;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * class path全局索引，将class path上所有jar的中央目录合并为一张 名字 -> (jar, entry index) 的开放寻址哈希表，查找类或者资源时只需要
+ * 一次哈希探测，不再需要按照URL顺序逐个jar探测；同一个名字的多个位置按照URL顺序串成链表，保证与URLClassPath的先匹配先返回语义一致
+ * <p>
+ * 哈希表中只存放名字的哈希值（与{@link String#hashCode()}兼容，直接复用{@link JarFileEntries}中已经计算好的哈希），命中后再回到对应jar的
+ * 中央目录校验名字，索引本身不持有任何名字
+ * <p>
+ * 索引也可以从{@link ClassPathIndexFile}持久化的文件中加载，此时名字校验直接使用文件中的名字，嵌套jar在第一次命中时才会打开，查找过程
+ * 不需要解析任何嵌套jar的中央目录
+ * <p>
+ * 通过{@link #direct(List, List, List)}创建的是不建哈希表的直连模式，查找时按照URL顺序逐个探测jar自己的{@link JarFileEntries}，省去
+ * 构建全局哈希表的时间和内存，但是与索引模式一样直接定位entry，不经过URL、URLConnection
+ *
+ * @author JoeKerouac
+ * @date 2026-10-16 11:00
+ * @since 4.0.1
+ */
+public final class ClassPathIndex {
+
+    private static final char NO_SUFFIX = 0;
+
+    private static final char SLASH = '/';
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /**
+     * 资源名中需要编码的ASCII字符，与sun.net.www.ParseUtil一致
+     */
+    private static final BitSet ENCODED_IN_PATH = new BitSet(128);
+
+    static {
+        for (char c : "=;?#<>%\"{}|\\^[]` ".toCharArray()) {
+            ENCODED_IN_PATH.set(c);
+        }
+        ENCODED_IN_PATH.set(0, 32);
+        ENCODED_IN_PATH.set(127);
+    }
+
+    /**
+     * 查找不到时返回的位置
+     */
+    public static final long NOT_FOUND = -1;
+
+    /**
+     * class path上的url，与jarFiles一一对应
+     */
+    private final URL[] urls;
+
+    /**
+     * class path上的jar，从持久化文件加载的索引中嵌套jar在第一次使用时才会打开
+     */
+    private final AtomicReferenceArray<JarFile> jarFiles;
+
+    /**
+     * 延迟打开的嵌套jar所属的jar序号，-1表示jar已经打开；为null表示所有jar都已经打开
+     */
+    private final int[] owners;
+
+    /**
+     * 延迟打开的嵌套jar在所属jar中的路径，多层嵌套使用{@link Handler#SEPARATOR}分隔
+     */
+    private final String[] entryNames;
+
+    /**
+     * 由索引自己打开、需要在关闭索引时关闭的jar
+     */
+    private final List<JarFile> ownedJarFiles;
+
+    /**
+     * 每个jar的第一个entry在全局序号中的位置，长度为jar数量+1
+     */
+    private final IntBuffer jarStart;
+
+    /**
+     * 哈希槽中存放的名字哈希值
+     */
+    private final IntBuffer slotHashes;
+
+    /**
+     * 哈希槽对应链表的头（全局序号+1），0表示空槽
+     */
+    private final IntBuffer slotHeads;
+
+    /**
+     * 链表中下一个同哈希entry的全局序号+1，0表示链表结束；全局序号按照URL顺序递增，所以链表天然按照URL顺序排列
+     */
+    private final IntBuffer next;
+
+    /**
+     * 每个entry的名字在names中的起始位置，长度为entry数量+1；为null表示名字需要回到jar的中央目录校验
+     */
+    private final IntBuffer nameOffsets;
+
+    /**
+     * 所有entry的名字
+     */
+    private final CharBuffer names;
+
+    /**
+     * 哈希表的掩码，直连模式（没有哈希表）下为-1
+     */
+    private final int mask;
+
+    ClassPathIndex(URL[] urls, JarFile[] jarFiles, int[] owners, String[] entryNames, List<JarFile> ownedJarFiles,
+        IntBuffer jarStart, IntBuffer slotHashes, IntBuffer slotHeads, IntBuffer next, IntBuffer nameOffsets,
+        CharBuffer names) {
+        this.urls = urls;
+        this.jarFiles = new AtomicReferenceArray<>(jarFiles);
+        this.owners = owners;
+        this.entryNames = entryNames;
+        this.ownedJarFiles = ownedJarFiles;
+        this.jarStart = jarStart;
+        this.slotHashes = slotHashes;
+        this.slotHeads = slotHeads;
+        this.next = next;
+        this.nameOffsets = nameOffsets;
+        this.names = names;
+        this.mask = (slotHashes == null) ? -1 : slotHashes.capacity() - 1;
+    }
+
+    /**
+     * 构建class path索引
+     *
+     * @param urls
+     *            class path上的url
+     * @param jarFiles
+     *            url对应的jar，顺序与url一致
+     * @param ownedJarFiles
+     *            jarFiles中由调用方专门为索引打开的jar，关闭索引时会一起关闭，允许为null
+     * @return class path索引
+     */
+    public static ClassPathIndex build(List<URL> urls, List<JarFile> jarFiles, List<JarFile> ownedJarFiles) {
+        if (urls.size() != jarFiles.size()) {
+            throw new IllegalArgumentException(
+                String.format("url数量[%d]与jar数量[%d]不一致", urls.size(), jarFiles.size()));
+        }
+
+        int[] jarStart = new int[jarFiles.size() + 1];
+        for (int i = 0; i < jarFiles.size(); i++) {
+            jarStart[i + 1] = jarStart[i] + jarFiles.get(i).getEntries().getSize();
+        }
+
+        int total = jarStart[jarFiles.size()];
+        int capacity = Integer.highestOneBit(Math.max(total, 8) * 2 - 1) << 1;
+        int mask = capacity - 1;
+        int[] slotHashes = new int[capacity];
+        int[] slotHeads = new int[capacity];
+        int[] next = new int[total];
+
+        // 倒序插入并且每次插入到链表头，最终链表按照全局序号升序排列
+        for (int jar = jarFiles.size() - 1; jar >= 0; jar--) {
+            JarFileEntries entries = jarFiles.get(jar).getEntries();
+            for (int index = entries.getSize() - 1; index >= 0; index--) {
+                int hash = entries.getHashCode(index);
+                int slot = slot(hash, mask);
+                while (slotHeads[slot] != 0 && slotHashes[slot] != hash) {
+                    slot = (slot + 1) & mask;
+                }
+                int ordinal = jarStart[jar] + index;
+                slotHashes[slot] = hash;
+                next[ordinal] = slotHeads[slot];
+                slotHeads[slot] = ordinal + 1;
+            }
+        }
+
+        return new ClassPathIndex(urls.toArray(new URL[0]), jarFiles.toArray(new JarFile[0]), null, null,
+            ownedJarFiles == null ? Collections.emptyList() : new ArrayList<>(ownedJarFiles), IntBuffer.wrap(jarStart),
+            IntBuffer.wrap(slotHashes), IntBuffer.wrap(slotHeads), IntBuffer.wrap(next), null, null);
+    }
+
+    /**
+     * 创建直连模式的索引，不构建哈希表，每次查找按照URL顺序逐个jar探测
+     *
+     * @param urls
+     *            class path上的url
+     * @param jarFiles
+     *            url对应的jar，顺序与url一致
+     * @param ownedJarFiles
+     *            jarFiles中由调用方专门为索引打开的jar，关闭索引时会一起关闭，允许为null
+     * @return 直连模式的索引
+     */
+    public static ClassPathIndex direct(List<URL> urls, List<JarFile> jarFiles, List<JarFile> ownedJarFiles) {
+        if (urls.size() != jarFiles.size()) {
+            throw new IllegalArgumentException(
+                String.format("url数量[%d]与jar数量[%d]不一致", urls.size(), jarFiles.size()));
+        }
+
+        return new ClassPathIndex(urls.toArray(new URL[0]), jarFiles.toArray(new JarFile[0]), null, null,
+            ownedJarFiles == null ? Collections.emptyList() : new ArrayList<>(ownedJarFiles), null, null, null, null,
+            null, null);
+    }
+
+    /**
+     * 查找指定名字在class path上第一次出现的位置，与{@link JarFile#getEntry(String)}一样，名字不存在时会尝试查找名字加上'/'后的目录
+     *
+     * @param name
+     *            entry名字
+     * @return 位置，不存在时返回{@link #NOT_FOUND}
+     */
+    public long find(CharSequence name) {
+        if (isDirect()) {
+            return walk(name, 0);
+        }
+
+        int hash = AsciiBytes.hashCode(name);
+        int ordinal = first(hash, name, NO_SUFFIX, 0);
+        int limit = ordinal < 0 ? this.urls.length : jarOf(ordinal);
+        // 只有在更靠前的jar中才需要使用目录形式的名字
+        if (limit > 0) {
+            int dirOrdinal = first(AsciiBytes.hashCode(hash, SLASH), name, SLASH, 0);
+            if (dirOrdinal >= 0 && jarOf(dirOrdinal) < limit) {
+                ordinal = dirOrdinal;
+            }
+        }
+        return ordinal < 0 ? NOT_FOUND : toLocation(ordinal);
+    }
+
+    /**
+     * 查找指定名字在class path上出现的所有位置，按照URL顺序排列，每个jar最多返回一个位置
+     *
+     * @param name
+     *            entry名字
+     * @return 所有位置
+     */
+    public List<Long> findAll(CharSequence name) {
+        if (isDirect()) {
+            List<Long> locations = new ArrayList<>(2);
+            long location = walk(name, 0);
+            while (location != NOT_FOUND) {
+                locations.add(location);
+                location = walk(name, getJarIndex(location) + 1);
+            }
+            return locations;
+        }
+
+        int hash = AsciiBytes.hashCode(name);
+        int dirHash = AsciiBytes.hashCode(hash, SLASH);
+        List<Long> locations = new ArrayList<>(2);
+        int ordinal = first(hash, name, NO_SUFFIX, 0);
+        int dirOrdinal = first(dirHash, name, SLASH, 0);
+        while (ordinal >= 0 || dirOrdinal >= 0) {
+            int jar;
+            if (dirOrdinal < 0 || (ordinal >= 0 && jarOf(ordinal) <= jarOf(dirOrdinal))) {
+                jar = jarOf(ordinal);
+                locations.add(toLocation(ordinal));
+            } else {
+                jar = jarOf(dirOrdinal);
+                locations.add(toLocation(dirOrdinal));
+            }
+
+            // 跳过当前jar中剩余的位置
+            int from = this.jarStart.get(jar + 1);
+            if (ordinal >= 0 && ordinal < from) {
+                ordinal = first(hash, name, NO_SUFFIX, from);
+            }
+            if (dirOrdinal >= 0 && dirOrdinal < from) {
+                dirOrdinal = first(dirHash, name, SLASH, from);
+            }
+        }
+        return locations;
+    }
+
+    /**
+     * 获取位置所在jar在class path上的序号
+     *
+     * @param location
+     *            位置
+     * @return jar序号
+     */
+    public int getJarIndex(long location) {
+        return (int)(location >>> 32);
+    }
+
+    /**
+     * 获取位置对应的entry
+     *
+     * @param location
+     *            位置
+     * @return entry
+     * @throws IOException
+     *             嵌套jar打开失败时抛出
+     */
+    public JarEntry getEntry(long location) throws IOException {
+        return getJarFile(getJarIndex(location)).getEntries().getEntryAt((int)location);
+    }
+
+    /**
+     * 获取位置对应的资源url，与URLClassPath一样使用查找时的名字构建url（查找目录时名字可能不带'/'），名字按照URLClassPath的方式编码
+     *
+     * @param location
+     *            位置
+     * @param name
+     *            查找时使用的名字
+     * @return 资源url
+     * @throws IOException
+     *             嵌套jar打开失败或者url构建失败时抛出
+     */
+    public URL getResourceUrl(long location, String name) throws IOException {
+        return new URL(getJarFile(getJarIndex(location)).getUrl(), encodePath(name));
+    }
+
+    /**
+     * 按照URLClassPath（sun.net.www.ParseUtil#encodePath）的规则编码资源名：RFC2396中路径不允许出现的ASCII字符（'/'除外）以及控制字符
+     * 编码为%XX，非ASCII字符按照UTF-8编码后逐字节编码为%XX；不需要编码时直接返回原名字
+     *
+     * @param name
+     *            资源名
+     * @return 编码后的资源名
+     */
+    public static String encodePath(String name) {
+        int length = name.length();
+        int first = 0;
+        while (first < length && !needEncode(name.charAt(first))) {
+            first++;
+        }
+        if (first == length) {
+            return name;
+        }
+
+        StringBuilder sb = new StringBuilder(length + 16).append(name, 0, first);
+        byte[] bytes = name.substring(first).getBytes(StandardCharsets.UTF_8);
+        for (byte b : bytes) {
+            int c = b & 0xFF;
+            if (needEncode((char)c)) {
+                sb.append('%').append(HEX[c >>> 4]).append(HEX[c & 0xF]);
+            } else {
+                sb.append((char)c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static boolean needEncode(char c) {
+        return c >= 128 || ENCODED_IN_PATH.get(c);
+    }
+
+    /**
+     * 获取指定序号的jar，如果是延迟打开的嵌套jar，会在这里打开
+     *
+     * @param jarIndex
+     *            jar序号
+     * @return jar
+     * @throws IOException
+     *             嵌套jar打开失败时抛出
+     */
+    public JarFile getJarFile(int jarIndex) throws IOException {
+        JarFile jarFile = this.jarFiles.get(jarIndex);
+        if (jarFile != null) {
+            return jarFile;
+        }
+
+        synchronized (this) {
+            jarFile = this.jarFiles.get(jarIndex);
+            if (jarFile == null) {
+                jarFile = getJarFile(this.owners[jarIndex]);
+                for (String entryName : this.entryNames[jarIndex].split(Handler.SEPARATOR)) {
+                    JarEntry entry = jarFile.getJarEntry(entryName);
+                    if (entry == null) {
+                        throw new IOException(String.format("在[%s]中未找到嵌套jar[%s]", jarFile, entryName));
+                    }
+                    jarFile = jarFile.getPinnedNestedJarFile(entry);
+                }
+                this.jarFiles.set(jarIndex, jarFile);
+            }
+            return jarFile;
+        }
+    }
+
+    /**
+     * 获取指定序号的jar在class path上的url
+     *
+     * @param jarIndex
+     *            jar序号
+     * @return url
+     */
+    public URL getUrl(int jarIndex) {
+        return this.urls[jarIndex];
+    }
+
+    /**
+     * class path上jar的数量
+     *
+     * @return jar数量
+     */
+    public int getJarCount() {
+        return this.urls.length;
+    }
+
+    /**
+     * 清空所有已经打开的jar的entry缓存
+     */
+    public void clearCache() {
+        for (int i = 0; i < this.jarFiles.length(); i++) {
+            JarFile jarFile = this.jarFiles.get(i);
+            if (jarFile != null) {
+                jarFile.clearCache();
+            }
+        }
+    }
+
+    /**
+     * 关闭索引自己打开的jar
+     *
+     * @throws IOException
+     *             关闭异常
+     */
+    public void close() throws IOException {
+        IOException exception = null;
+        for (JarFile jarFile : this.ownedJarFiles) {
+            try {
+                jarFile.close();
+            } catch (IOException e) {
+                if (exception == null) {
+                    exception = e;
+                } else {
+                    exception.addSuppressed(e);
+                }
+            }
+        }
+        if (exception != null) {
+            throw exception;
+        }
+    }
+
+    /**
+     * 是否是直连模式（没有哈希表），直连模式的索引不能持久化
+     */
+    boolean isDirect() {
+        return this.slotHeads == null;
+    }
+
+    /**
+     * 获取当前已经打开的jar，延迟打开且还没有打开的jar为null
+     */
+    JarFile getOpenedJarFile(int jarIndex) {
+        return this.jarFiles.get(jarIndex);
+    }
+
+    IntBuffer getJarStart() {
+        return this.jarStart.duplicate();
+    }
+
+    IntBuffer getSlotHashes() {
+        return this.slotHashes.duplicate();
+    }
+
+    IntBuffer getSlotHeads() {
+        return this.slotHeads.duplicate();
+    }
+
+    IntBuffer getNext() {
+        return this.next.duplicate();
+    }
+
+    /**
+     * 获取指定全局序号对应entry的名字
+     */
+    String getName(int ordinal) throws IOException {
+        if (this.names != null) {
+            int offset = this.nameOffsets.get(ordinal);
+            return this.names.subSequence(offset, this.nameOffsets.get(ordinal + 1)).toString();
+        }
+        int jar = jarOf(ordinal);
+        return getJarFile(jar).getEntries().getNameAt(ordinal - this.jarStart.get(jar));
+    }
+
+    /**
+     * 直连模式下从指定jar开始按照URL顺序查找，每个jar中优先匹配名字本身，其次匹配名字加上'/'后的目录
+     *
+     * @return 位置，不存在时返回{@link #NOT_FOUND}
+     */
+    private long walk(CharSequence name, int fromJar) {
+        int hash = AsciiBytes.hashCode(name);
+        int dirHash = AsciiBytes.hashCode(hash, SLASH);
+        for (int jar = fromJar; jar < this.urls.length; jar++) {
+            JarFileEntries entries = this.jarFiles.get(jar).getEntries();
+            int index = entries.findIndex(hash, name, NO_SUFFIX);
+            if (index < 0) {
+                index = entries.findIndex(dirHash, name, SLASH);
+            }
+            if (index >= 0) {
+                return ((long)jar << 32) | index;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * 从指定全局序号开始查找第一个名字匹配的entry
+     *
+     * @return 全局序号，不存在时返回-1
+     */
+    private int first(int hash, CharSequence name, char suffix, int fromOrdinal) {
+        int slot = slot(hash, this.mask);
+        int head;
+        while ((head = this.slotHeads.get(slot)) != 0) {
+            if (this.slotHashes.get(slot) == hash) {
+                for (int ordinal = head - 1; ordinal >= 0; ordinal = this.next.get(ordinal) - 1) {
+                    if (ordinal >= fromOrdinal && hasName(ordinal, name, suffix)) {
+                        return ordinal;
+                    }
+                }
+                return -1;
+            }
+            slot = (slot + 1) & this.mask;
+        }
+        return -1;
+    }
+
+    private boolean hasName(int ordinal, CharSequence name, char suffix) {
+        if (this.names == null) {
+            int jar = jarOf(ordinal);
+            return this.jarFiles.get(jar).getEntries().hasName(ordinal - this.jarStart.get(jar), name, suffix);
+        }
+
+        int offset = this.nameOffsets.get(ordinal);
+        int length = this.nameOffsets.get(ordinal + 1) - offset;
+        int nameLength = name.length();
+        if (length != ((suffix != NO_SUFFIX) ? nameLength + 1 : nameLength)) {
+            return false;
+        }
+        for (int i = 0; i < nameLength; i++) {
+            if (this.names.get(offset + i) != name.charAt(i)) {
+                return false;
+            }
+        }
+        return suffix == NO_SUFFIX || this.names.get(offset + nameLength) == suffix;
+    }
+
+    private long toLocation(int ordinal) {
+        int jar = jarOf(ordinal);
+        return ((long)jar << 32) | (ordinal - this.jarStart.get(jar));
+    }
+
+    /**
+     * 根据全局序号二分查找所在的jar
+     */
+    private int jarOf(int ordinal) {
+        int low = 0;
+        int high = this.urls.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (this.jarStart.get(mid) <= ordinal) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    private static int slot(int hash, int mask) {
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+}
@@ -0,0 +1,351 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.joekerouac.plugin.loader.jar;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * {@link ClassPathIndex}的持久化文件，第一次启动时将合并后的索引写入文件，后续启动时直接读取该文件，不再需要解析嵌套jar的中央目录
+ * <p>
+ * 文件一次性读到堆内而不是内存映射，映射在GC之前不会释放，Windows上会导致重建索引时无法替换该文件
+ * <p>
+ * 文件使用key校验是否过期，key由class path上每个顶层jar（classpath上的jar以及传入的archive）的url、所在文件的路径、大小、修改时间、
+ * 中央目录的CRC32以及调用方传入的其他属性（例如插件lib目录）组成，任意一项发生变化都会导致索引重建；嵌套jar都包含在顶层jar的中央目录中，
+ * 所以不需要单独校验
+ * <p>
+ * 文件格式（大端序）：
+ *
+ * <pre>
+ * magic(int) version(int) key(string)
+ * jar数量(int) 每个jar: 所属顶层jar序号(int，-1表示本身就是顶层jar) 在所属jar中的路径(string) url(string)
+ * entry数量(int) 哈希槽数量(int) 对齐到4字节
+ * jarStart(int[jar数量+1]) slotHashes(int[哈希槽数量]) slotHeads(int[哈希槽数量]) next(int[entry数量])
+ * nameOffsets(int[entry数量+1]) names(char[])
+ * </pre>
+ *
+ * 其中string使用长度(int)+char[]表示
+ *
+ * @author JoeKerouac
+ * @date 2026-10-16 13:00
+ * @since 4.0.1
+ */
+public final class ClassPathIndexFile {
+
+    private static final int MAGIC = 0x504C4349;
+
+    private static final int VERSION = 1;
+
+    private ClassPathIndexFile() {}
+
+    /**
+     * 获取class path对应的索引文件，同一组url总是对应同一个文件
+     *
+     * @param dir
+     *            索引文件所在目录
+     * @param topUrls
+     *            顶层jar的url
+     * @return 索引文件
+     */
+    public static File getFile(File dir, List<URL> topUrls) {
+        CRC32 crc = new CRC32();
+        for (URL url : topUrls) {
+            crc.update(url.toExternalForm().getBytes(StandardCharsets.UTF_8));
+            crc.update('\n');
+        }
+        return new File(dir, String.format("classpath-%08x.idx", crc.getValue()));
+    }
+
+    /**
+     * 创建索引文件的key，key包含jar文件的元数据、中央目录的CRC以及entry索引方式（索引方式决定了entry序号）
+     *
+     * @param topUrls
+     *            顶层jar的url
+     * @param topJarFiles
+     *            顶层jar，与url一一对应
+     * @param attributes
+     *            其他会影响索引内容的属性
+     * @return key
+     * @throws IOException
+     *             中央目录读取失败时抛出
+     */
+    public static String createKey(List<URL> topUrls, List<JarFile> topJarFiles, List<String> attributes)
+        throws IOException {
+        StringBuilder key = new StringBuilder();
+        for (int i = 0; i < topJarFiles.size(); i++) {
+            JarFile jarFile = topJarFiles.get(i);
+            File file = jarFile.getRootJarFile().getFile();
+            key.append(topUrls.get(i).toExternalForm()).append('|').append(file.getAbsolutePath()).append('|')
+                .append(file.length()).append('|').append(file.lastModified()).append('|')
+                .append(jarFile.getPathFromRoot()).append('|').append(jarFile.getEntries().getCentralDirectoryCrc())
+                .append('|').append(jarFile.getEntries().getIndexMode()).append('\n');
+        }
+        for (String attribute : attributes) {
+            key.append(attribute).append('\n');
+        }
+        return key.toString();
+    }
+
+    /**
+     * 从索引文件加载索引，文件中的嵌套jar会在第一次使用时才打开
+     *
+     * @param file
+     *            索引文件
+     * @param key
+     *            期望的key
+     * @param topUrls
+     *            顶层jar的url
+     * @param topJarFiles
+     *            顶层jar，与url一一对应
+     * @param ownedJarFiles
+     *            topJarFiles中由调用方专门为索引打开的jar，关闭索引时会一起关闭，允许为null
+     * @return 索引，文件不存在、已经过期或者损坏时返回null
+     */
+    public static ClassPathIndex load(File file, String key, List<URL> topUrls, List<JarFile> topJarFiles,
+        List<JarFile> ownedJarFiles) {
+        if (!file.isFile()) {
+            return null;
+        }
+
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION || !key.equals(readString(buffer))) {
+                return null;
+            }
+
+            int jarCount = buffer.getInt();
+            URL[] urls = new URL[jarCount];
+            JarFile[] jarFiles = new JarFile[jarCount];
+            int[] owners = new int[jarCount];
+            String[] entryNames = new String[jarCount];
+            int top = 0;
+            for (int i = 0; i < jarCount; i++) {
+                owners[i] = buffer.getInt();
+                entryNames[i] = readString(buffer);
+                String url = readString(buffer);
+                if (owners[i] < 0) {
+                    if (top >= topJarFiles.size()) {
+                        return null;
+                    }
+                    urls[i] = topUrls.get(top);
+                    jarFiles[i] = topJarFiles.get(top++);
+                } else {
+                    if (owners[i] >= i) {
+                        return null;
+                    }
+                    urls[i] = new URL(null, url, new Handler());
+                }
+            }
+            if (top != topJarFiles.size()) {
+                return null;
+            }
+
+            int total = buffer.getInt();
+            int capacity = buffer.getInt();
+            if (Integer.bitCount(capacity) != 1) {
+                return null;
+            }
+            buffer.position(align(buffer.position()));
+            IntBuffer jarStart = sliceInts(buffer, jarCount + 1);
+            IntBuffer slotHashes = sliceInts(buffer, capacity);
+            IntBuffer slotHeads = sliceInts(buffer, capacity);
+            IntBuffer next = sliceInts(buffer, total);
+            IntBuffer nameOffsets = sliceInts(buffer, total + 1);
+            CharBuffer names = sliceChars(buffer, nameOffsets.get(total));
+            if (jarStart.get(jarCount) != total) {
+                return null;
+            }
+
+            return new ClassPathIndex(urls, jarFiles, owners, entryNames,
+                ownedJarFiles == null ? new ArrayList<>() : new ArrayList<>(ownedJarFiles), jarStart, slotHashes,
+                slotHeads, next, nameOffsets, names);
+        } catch (IOException | RuntimeException e) {
+            // 文件损坏，重建索引
+            return null;
+        }
+    }
+
+    /**
+     * 将索引写入文件，先写入临时文件再替换，避免并发启动时读到写了一半的文件
+     *
+     * @param file
+     *            索引文件
+     * @param key
+     *            key
+     * @param index
+     *            索引，所有jar都必须已经打开，直连模式的索引不会写入
+     * @param topJarFiles
+     *            顶层jar，其他jar必须是某个顶层jar的嵌套jar
+     * @return true表示写入成功
+     */
+    public static boolean store(File file, String key, ClassPathIndex index, List<JarFile> topJarFiles) {
+        if (index.isDirect()) {
+            return false;
+        }
+
+        int jarCount = index.getJarCount();
+        int[] owners = new int[jarCount];
+        String[] entryNames = new String[jarCount];
+        int owner = -1;
+        for (int i = 0; i < jarCount; i++) {
+            JarFile jarFile = index.getOpenedJarFile(i);
+            if (containsIdentity(topJarFiles, jarFile)) {
+                owners[i] = -1;
+                entryNames[i] = "";
+                owner = i;
+                continue;
+            }
+
+            // 非顶层jar只能是前面最近的顶层jar的嵌套jar
+            if (owner < 0) {
+                return false;
+            }
+            JarFile ownerJarFile = index.getOpenedJarFile(owner);
+            String ownerPath = ownerJarFile.getPathFromRoot() + Handler.SEPARATOR;
+            if (jarFile == null || jarFile.getRootJarFile() != ownerJarFile.getRootJarFile()
+                || !jarFile.getPathFromRoot().startsWith(ownerPath)) {
+                return false;
+            }
+            owners[i] = owner;
+            entryNames[i] = jarFile.getPathFromRoot().substring(ownerPath.length());
+        }
+
+        File dir = file.getAbsoluteFile().getParentFile();
+        File tmp = null;
+        try {
+            if (!dir.isDirectory() && !dir.mkdirs()) {
+                return false;
+            }
+            tmp = File.createTempFile(file.getName(), ".tmp", dir);
+            try (DataOutputStream out =
+                new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), 64 * 1024))) {
+                write(out, key, index, owners, entryNames);
+            }
+
+            try {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            return true;
+        } catch (IOException | RuntimeException e) {
+            if (tmp != null && !tmp.delete()) {
+                tmp.deleteOnExit();
+            }
+            return false;
+        }
+    }
+
+    private static void write(DataOutputStream out, String key, ClassPathIndex index, int[] owners,
+        String[] entryNames) throws IOException {
+        int jarCount = owners.length;
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        writeString(out, key);
+        out.writeInt(jarCount);
+        for (int i = 0; i < jarCount; i++) {
+            out.writeInt(owners[i]);
+            writeString(out, entryNames[i]);
+            writeString(out, index.getUrl(i).toExternalForm());
+        }
+
+        IntBuffer jarStart = index.getJarStart();
+        IntBuffer slotHashes = index.getSlotHashes();
+        int total = jarStart.get(jarCount);
+        out.writeInt(total);
+        out.writeInt(slotHashes.capacity());
+        while (out.size() != align(out.size())) {
+            out.writeByte(0);
+        }
+
+        writeInts(out, jarStart);
+        writeInts(out, slotHashes);
+        writeInts(out, index.getSlotHeads());
+        writeInts(out, index.getNext());
+
+        String[] names = new String[total];
+        int offset = 0;
+        out.writeInt(offset);
+        for (int ordinal = 0; ordinal < total; ordinal++) {
+            names[ordinal] = index.getName(ordinal);
+            offset += names[ordinal].length();
+            out.writeInt(offset);
+        }
+        for (String name : names) {
+            out.writeChars(name);
+        }
+    }
+
+    private static boolean containsIdentity(List<JarFile> jarFiles, JarFile jarFile) {
+        for (JarFile candidate : jarFiles) {
+            if (candidate == jarFile) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void writeInts(DataOutputStream out, IntBuffer ints) throws IOException {
+        for (int i = 0; i < ints.capacity(); i++) {
+            out.writeInt(ints.get(i));
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeInt(value.length());
+        out.writeChars(value);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = buffer.getChar();
+        }
+        return new String(chars);
+    }
+
+    private static IntBuffer sliceInts(ByteBuffer buffer, int count) {
+        ByteBuffer slice = buffer.duplicate();
+        slice.limit(slice.position() + count * 4);
+        buffer.position(slice.limit());
+        return slice.slice().asIntBuffer();
+    }
+
+    private static CharBuffer sliceChars(ByteBuffer buffer, int count) {
+        ByteBuffer slice = buffer.duplicate();
+        slice.limit(slice.position() + count * 2);
+        buffer.position(slice.limit());
+        return slice.slice().asCharBuffer();
+    }
+
+    private static int align(int position) {
+        return (position + 3) & ~3;
+    }
+
+}
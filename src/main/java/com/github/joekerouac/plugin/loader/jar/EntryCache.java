@@ -0,0 +1,220 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.joekerouac.plugin.loader.jar;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link JarFileEntries}的entry缓存，key是entry在中央目录中的序号，使用CLOCK算法淘汰：新加入的entry没有访问标记，命中时设置访问标记，
+ * 淘汰时时钟指针跳过并清除有访问标记的entry，只访问过一次的entry（例如扫描整个jar）会被优先淘汰
+ * <p>
+ * 读取不加锁：通过slotOf数组直接定位槽位，再校验槽位中的entry序号，读到过期的槽位只会导致一次未命中；写入（只会在未命中时发生）加锁
+ *
+ * @author JoeKerouac
+ * @date 2026-10-16 15:00
+ * @since 4.0.1
+ */
+final class EntryCache {
+
+    /**
+     * 每个jar的entry缓存大小，设置为0表示不缓存
+     */
+    static final String SIZE_PROPERTY = "plugin.loader.entry.cache.size";
+
+    private static final int DEFAULT_SIZE = 128;
+
+    private static final int CAPACITY = getConfiguredCapacity();
+
+    /**
+     * entry序号对应的槽位+1，0表示不在缓存中；可能是过期数据，使用时需要校验槽位中的entry序号
+     */
+    private final int[] slotOf;
+
+    private final AtomicReferenceArray<Node> slots;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * 时钟指针，只在加锁时访问
+     */
+    private int hand;
+
+    private int size;
+
+    /**
+     * 创建缓存
+     *
+     * @param entryCount
+     *            jar中entry的数量
+     */
+    EntryCache(int entryCount) {
+        int capacity = Math.min(CAPACITY, entryCount);
+        this.slotOf = capacity > 0 ? new int[entryCount] : null;
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    /**
+     * 获取缓存的entry
+     *
+     * @param index
+     *            entry序号
+     * @return 缓存的entry，不存在时返回null
+     */
+    FileHeader get(int index) {
+        if (this.slotOf == null) {
+            return null;
+        }
+
+        int slot = this.slotOf[index] - 1;
+        if (slot >= 0) {
+            Node node = this.slots.get(slot);
+            if (node != null && node.index == index) {
+                if (!node.referenced) {
+                    node.referenced = true;
+                }
+                this.hits.increment();
+                return node.value;
+            }
+        }
+        this.misses.increment();
+        return null;
+    }
+
+    /**
+     * 获取缓存的entry，不影响命中统计和淘汰顺序，用于按名字匹配候选entry
+     *
+     * @param index
+     *            entry序号
+     * @return 缓存的entry，不存在时返回null
+     */
+    FileHeader peek(int index) {
+        if (this.slotOf == null) {
+            return null;
+        }
+
+        int slot = this.slotOf[index] - 1;
+        if (slot >= 0) {
+            Node node = this.slots.get(slot);
+            if (node != null && node.index == index) {
+                return node.value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 缓存entry
+     *
+     * @param index
+     *            entry序号
+     * @param value
+     *            entry
+     */
+    synchronized void put(int index, FileHeader value) {
+        if (this.slotOf == null) {
+            return;
+        }
+
+        int slot = this.slotOf[index] - 1;
+        if (slot >= 0) {
+            Node node = this.slots.get(slot);
+            if (node != null && node.index == index) {
+                this.slots.set(slot, new Node(index, value, true));
+                return;
+            }
+        }
+
+        int capacity = this.slots.length();
+        while (true) {
+            Node node = this.slots.get(this.hand);
+            if (node == null) {
+                this.size++;
+                break;
+            }
+            if (node.referenced) {
+                node.referenced = false;
+                this.hand = (this.hand + 1) % capacity;
+            } else {
+                this.slotOf[node.index] = 0;
+                this.evictions.increment();
+                break;
+            }
+        }
+
+        this.slots.set(this.hand, new Node(index, value, false));
+        this.slotOf[index] = this.hand + 1;
+        this.hand = (this.hand + 1) % capacity;
+    }
+
+    /**
+     * 清空缓存
+     */
+    synchronized void clear() {
+        for (int i = 0; i < this.slots.length(); i++) {
+            Node node = this.slots.get(i);
+            if (node != null) {
+                this.slotOf[node.index] = 0;
+                this.slots.set(i, null);
+            }
+        }
+        this.hand = 0;
+        this.size = 0;
+    }
+
+    /**
+     * 获取统计信息
+     *
+     * @return 统计信息
+     */
+    synchronized CacheStats getStats() {
+        return new CacheStats(this.hits.sum(), this.misses.sum(), this.evictions.sum(), this.size,
+            this.slots.length());
+    }
+
+    private static int getConfiguredCapacity() {
+        String size = System.getProperty(SIZE_PROPERTY);
+        if (size != null) {
+            try {
+                return Math.max(0, Integer.parseInt(size.trim()));
+            } catch (NumberFormatException e) {
+                // 使用默认值
+            }
+        }
+        return DEFAULT_SIZE;
+    }
+
+    private static final class Node {
+
+        private final int index;
+
+        private final FileHeader value;
+
+        /**
+         * 访问标记，并发修改时丢失一次标记只会影响淘汰顺序，不需要原子操作
+         */
+        private volatile boolean referenced;
+
+        private Node(int index, FileHeader value, boolean referenced) {
+            this.index = index;
+            this.value = value;
+            this.referenced = referenced;
+        }
+
+    }
+
+}
@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.joekerouac.plugin.loader.jar;
+
+/**
+ * jar内entry名字索引的组织方式
+ *
+ * @author JoeKerouac
+ * @date 2026-10-16 17:30
+ * @since 4.0.1
+ */
+public enum EntryIndexMode {
+
+    /**
+     * 按照名字的hashCode排序，二分查找，构建需要O(nlogn)的排序；entry序号为排序后的序号
+     */
+    SORTED,
+
+    /**
+     * 以名字的hashCode为key的开放寻址表，构建O(n)，查找期望O(1)；entry序号为中央目录中的原始顺序，额外占用约2~4n个int
+     */
+    HASH,
+
+    /**
+     * 与{@link #HASH}相同，但是开放寻址表以带随机种子的64位hash为key，每个entry额外保存一个long；构造的hashCode碰撞名字不会退化为线性查找
+     */
+    SEEDED_HASH;
+
+    /**
+     * 默认索引方式的系统属性，取值为枚举名（忽略大小写），不设置或者取值非法时使用{@link #SORTED}
+     */
+    public static final String PROPERTY = "plugin.loader.entry.index";
+
+    /**
+     * 获取默认的索引方式
+     *
+     * @return 默认的索引方式
+     */
+    public static EntryIndexMode getDefault() {
+        String mode = System.getProperty(PROPERTY);
+        if (mode != null) {
+            for (EntryIndexMode value : values()) {
+                if (value.name().equalsIgnoreCase(mode.trim())) {
+                    return value;
+                }
+            }
+        }
+        return SORTED;
+    }
+
+}
@@ -14,14 +14,10 @@ package com.github.joekerouac.plugin.loader.jar;
 
 import java.io.File;
 import java.io.IOException;
-import java.lang.ref.SoftReference;
 import java.net.MalformedURLException;
-import java.net.URI;
 import java.net.URL;
 import java.net.URLConnection;
 import java.net.URLStreamHandler;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
@@ -39,8 +35,6 @@ public class Handler extends URLStreamHandler {
 
     private static final String JAR_PROTOCOL = "jar:";
 
-    private static final String FILE_PROTOCOL = "file:";
-
     public static final String SEPARATOR = "!/";
 
     private static final Pattern SEPARATOR_PATTERN = Pattern.compile(SEPARATOR, Pattern.LITERAL);
@@ -57,12 +51,6 @@ public class Handler extends URLStreamHandler {
 
     private static URL jarContextUrl;
 
-    private static SoftReference<Map<File, JarFile>> rootFileCache;
-
-    static {
-        rootFileCache = new SoftReference<>(null);
-    }
-
     private final JarFile jarFile;
 
     private URLStreamHandler fallbackHandler;
@@ -316,41 +304,37 @@ public class Handler extends URLStreamHandler {
         return getRootJarFile(name);
     }
 
+    /**
+     * 获取jar url指向的jar文件，不创建连接，找不到时通过返回值而不是异常表示，用于类加载期间大量的未命中查找
+     *
+     * @param url
+     *            jar url，例如jar:file:/app.jar!/lib/a.jar!/
+     * @return jar文件，url不是指向本地jar文件（例如指向jar中的某个entry）或者jar文件无法打开时返回null
+     */
+    public static JarFile getJarFile(URL url) {
+        File rootFile = RootJarFileCache.getRootFile(url);
+        if (rootFile == null) {
+            return null;
+        }
+        try {
+            return JarURLConnection.getJarFile(url, RootJarFileCache.getInstance().get(rootFile));
+        } catch (IOException | RuntimeException ex) {
+            return null;
+        }
+    }
+
     private JarFile getRootJarFile(String name) throws IOException {
         try {
-            if (!name.startsWith(FILE_PROTOCOL)) {
+            File file = RootJarFileCache.getRootFile(name);
+            if (file == null) {
                 throw new IllegalStateException("Not a file URL");
             }
-            File file = new File(URI.create(name));
-            Map<File, JarFile> cache = rootFileCache.get();
-            JarFile result = (cache != null) ? cache.get(file) : null;
-            if (result == null) {
-                result = new JarFile(file);
-                addToRootFileCache(file, result);
-            }
-            return result;
+            return RootJarFileCache.getInstance().get(file);
         } catch (Exception ex) {
             throw new IOException("Unable to open root Jar file '" + name + "'", ex);
         }
     }
 
-    /**
-     * 将给定JarFile加入缓存
-     * 
-     * @param sourceFile
-     *            jar源文件
-     * @param jarFile
-     *            JarFile
-     */
-    static void addToRootFileCache(File sourceFile, JarFile jarFile) {
-        Map<File, JarFile> cache = rootFileCache.get();
-        if (cache == null) {
-            cache = new ConcurrentHashMap<>();
-            rootFileCache = new SoftReference<>(cache);
-        }
-        cache.put(sourceFile, jarFile);
-    }
-
     /**
      * 保存系统自带的jar协议处理器（URLStreamHandler），以便于我们后续将其用作回退上下文
      */
@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.joekerouac.plugin.loader.jar;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * 全局的{@link Inflater}池，避免每次读取压缩entry都创建、销毁一个持有native内存的{@link Inflater}；池满时归还的{@link Inflater}直接销毁
+ *
+ * @author JoeKerouac
+ * @date 2026-10-16 18:00
+ * @since 4.0.1
+ */
+final class InflaterPool {
+
+    /**
+     * 池中最多保留的{@link Inflater}数量，设置为0表示不池化
+     */
+    static final String SIZE_PROPERTY = "plugin.loader.inflater.pool.size";
+
+    private static final int DEFAULT_SIZE = 16;
+
+    private static final int CAPACITY = getConfiguredCapacity();
+
+    /**
+     * raw deflate数据结束时zlib可能还需要一个额外的字节
+     */
+    private static final byte[] DUMMY_BYTE = {0};
+
+    private static final Deque<Inflater> POOL = new ArrayDeque<>();
+
+    private InflaterPool() {
+    }
+
+    /**
+     * 获取一个nowrap的{@link Inflater}，使用完毕后必须调用{@link #release(Inflater)}归还
+     *
+     * @return Inflater
+     */
+    static Inflater acquire() {
+        synchronized (POOL) {
+            Inflater inflater = POOL.pollFirst();
+            if (inflater != null) {
+                return inflater;
+            }
+        }
+        return new Inflater(true);
+    }
+
+    /**
+     * 归还{@link Inflater}，归还后调用方不能再使用
+     *
+     * @param inflater
+     *            Inflater
+     */
+    static void release(Inflater inflater) {
+        inflater.reset();
+        synchronized (POOL) {
+            if (POOL.size() < CAPACITY) {
+                POOL.addFirst(inflater);
+                return;
+            }
+        }
+        inflater.end();
+    }
+
+    /**
+     * 将raw deflate数据一次解压到精确大小的数组中
+     *
+     * @param compressed
+     *            压缩数据
+     * @param size
+     *            解压后的大小
+     * @return 解压后的数据
+     * @throws IOException
+     *             数据损坏或者解压后的大小与size不一致时抛出
+     */
+    static byte[] inflate(byte[] compressed, int size) throws IOException {
+        byte[] result = new byte[size];
+        Inflater inflater = acquire();
+        try {
+            inflater.setInput(compressed);
+            int count = 0;
+            boolean extraByteWritten = false;
+            while (!inflater.finished()) {
+                int read;
+                if (count < size) {
+                    read = inflater.inflate(result, count, size - count);
+                    count += read;
+                } else {
+                    // 输出已满，数据应该只剩下结束标记
+                    read = inflater.inflate(new byte[1]);
+                    if (read > 0) {
+                        throw new ZipException("Invalid entry size (expected " + size + " but got more bytes)");
+                    }
+                }
+                if (read == 0 && !inflater.finished()) {
+                    if (inflater.needsDictionary()) {
+                        throw new ZipException("Unsupported deflate dictionary");
+                    }
+                    if (!inflater.needsInput() || extraByteWritten) {
+                        throw new EOFException("Unexpected end of ZLIB input stream");
+                    }
+                    inflater.setInput(DUMMY_BYTE);
+                    extraByteWritten = true;
+                }
+            }
+            if (count != size) {
+                throw new ZipException("Invalid entry size (expected " + size + " but got " + count + " bytes)");
+            }
+            return result;
+        } catch (DataFormatException ex) {
+            String message = ex.getMessage();
+            throw new ZipException((message != null) ? message : "Invalid ZLIB data format");
+        } finally {
+            release(inflater);
+        }
+    }
+
+    private static int getConfiguredCapacity() {
+        String size = System.getProperty(SIZE_PROPERTY);
+        if (size != null) {
+            try {
+                return Math.max(0, Integer.parseInt(size.trim()));
+            } catch (NumberFormatException e) {
+                // 使用默认值
+            }
+        }
+        return DEFAULT_SIZE;
+    }
+
+}
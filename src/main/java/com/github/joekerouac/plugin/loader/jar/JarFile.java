@@ -21,19 +21,28 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLStreamHandler;
 import java.net.URLStreamHandlerFactory;
+import java.nio.ByteBuffer;
 import java.security.Permission;
 import java.util.Enumeration;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Spliterator;
 import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 import java.util.jar.Manifest;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 import java.util.zip.ZipEntry;
 
+import com.github.joekerouac.plugin.loader.data.FileAccessMode;
 import com.github.joekerouac.plugin.loader.data.RandomAccessData;
 import com.github.joekerouac.plugin.loader.data.RandomAccessDataFile;
+import com.github.joekerouac.plugin.loader.metrics.JfrEvent;
 
 /**
  * Extended variant of {@link java.util.jar.JarFile} that behaves in the same way but offers the following additional
@@ -62,6 +71,23 @@ public class JarFile extends AbstractJarFile implements Iterable<java.util.jar.J
 
     private static final String READ_ACTION = "read";
 
+    /**
+     * Holder count of a nested jar file that is used internally and must stay open until its parent is closed.
+     */
+    private static final int PINNED = Integer.MAX_VALUE;
+
+    /**
+     * System property that can be set to {@code false} so that the mandatory super constructor call of every jar file
+     * opens the root jar file itself instead of the shared stub jar, see {@link NativeAnchor}.
+     */
+    static final String NATIVE_ANCHOR_PROPERTY = "plugin.loader.jar.native.anchor";
+
+    /**
+     * Listeners notified every time a nested jar file is actually created, see
+     * {@link #addNestedJarOpenListener(Consumer)}.
+     */
+    private static final List<Consumer<JarFile>> NESTED_JAR_OPEN_LISTENERS = new CopyOnWriteArrayList<>();
+
     private final RandomAccessDataFile rootFile;
 
     private final String pathFromRoot;
@@ -88,6 +114,34 @@ public class JarFile extends AbstractJarFile implements Iterable<java.util.jar.J
 
     private volatile JarFileWrapper wrapper;
 
+    /**
+     * Root jar file that was opened only to reach this nested jar file, closed together with this jar file.
+     */
+    private volatile JarFile ownedRoot;
+
+    /**
+     * Nested jar files already opened from this jar file, keyed by entry index. Closed and cleared when this jar file
+     * is closed.
+     */
+    private final Map<Integer, JarFile> nestedJarFiles = new ConcurrentHashMap<>();
+
+    /**
+     * Number of holders of this nested jar file, see {@link #getNestedJarFile(JarEntry)}; {@link #PINNED} once it is
+     * used internally and 0 once it is closed. Not used for root jar files.
+     */
+    private final AtomicInteger holders = new AtomicInteger(1);
+
+    /**
+     * URL specs already resolved by {@link JarURLConnection#get(URL, JarFile)} starting from this jar file, keyed by
+     * {@link URL#getFile()}. Cleared when this jar file is closed.
+     */
+    private final ResolvedSpecCache resolvedSpecs = new ResolvedSpecCache(JarURLConnection.CACHE_SIZE);
+
+    /**
+     * Incremented each time the entry cache is cleared, see {@link #getEntriesGeneration()}.
+     */
+    private volatile int entriesGeneration;
+
     /**
      * Create a new {@link JarFile} backed by the specified file.
      * 
@@ -100,6 +154,20 @@ public class JarFile extends AbstractJarFile implements Iterable<java.util.jar.J
         this(new RandomAccessDataFile(file));
     }
 
+    /**
+     * Create a new {@link JarFile} backed by the specified file.
+     * 
+     * @param file
+     *            the root jar file
+     * @param mode
+     *            how the root jar file is accessed
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    public JarFile(File file, FileAccessMode mode) throws IOException {
+        this(new RandomAccessDataFile(file, mode));
+    }
+
     /**
      * Create a new {@link JarFile} backed by the specified file.
      * 
@@ -133,7 +201,7 @@ public class JarFile extends AbstractJarFile implements Iterable<java.util.jar.J
 
     private JarFile(RandomAccessDataFile rootFile, String pathFromRoot, RandomAccessData data, JarEntryFilter filter,
         JarFileType type, Supplier<Manifest> manifestSupplier) throws IOException {
-        super(rootFile.getFile());
+        super(NativeAnchor.getFile(rootFile.getFile()));
         super.close();
         this.rootFile = rootFile;
         this.pathFromRoot = pathFromRoot;
@@ -141,6 +209,7 @@ public class JarFile extends AbstractJarFile implements Iterable<java.util.jar.J
         this.entries = parser.addVisitor(new JarFileEntries(this, filter));
         this.type = type;
         parser.addVisitor(centralDirectoryVisitor());
+        Object jfrEvent = JfrEvent.CENTRAL_DIRECTORY_PARSE.begin();
         try {
             this.data = parser.parse(data, filter == null);
         } catch (RuntimeException ex) {
@@ -152,6 +221,9 @@ public class JarFile extends AbstractJarFile implements Iterable<java.util.jar.J
             }
             throw ex;
         }
+        if (jfrEvent != null) {
+            JfrEvent.CENTRAL_DIRECTORY_PARSE.commit(jfrEvent, getName(), this.entries.getSize());
+        }
         this.manifestSupplier = (manifestSupplier != null) ? manifestSupplier : () -> {
             try (InputStream inputStream = getInputStream(MANIFEST_NAME)) {
                 if (inputStream == null) {
@@ -208,6 +280,10 @@ public class JarFile extends AbstractJarFile implements Iterable<java.util.jar.J
         return this.data;
     }
 
+    JarFileEntries getEntries() {
+        return this.entries;
+    }
+
     @Override
     public Manifest getManifest() throws IOException {
         Manifest manifest = (this.manifest != null) ? this.manifest.get() : null;
@@ -258,6 +334,19 @@ public class JarFile extends AbstractJarFile implements Iterable<java.util.jar.J
         return this.entries.containsEntry(name);
     }
 
+    /**
+     * Return the names of all directory entries (for example {@code com/example/}) without creating an entry for
+     * every file in the jar.
+     *
+     * @return the directory names, in no particular order
+     * @throws IOException
+     *             if the central directory cannot be read
+     */
+    public List<String> getDirectoryNames() throws IOException {
+        ensureOpen();
+        return this.entries.getDirectoryNames();
+    }
+
     @Override
     public ZipEntry getEntry(String name) {
         ensureOpen();
@@ -282,6 +371,37 @@ public class JarFile extends AbstractJarFile implements Iterable<java.util.jar.J
         return this.entries.getInputStream(name);
     }
 
+    /**
+     * Return the uncompressed bytes of the specified entry. Unlike {@link #getInputStream(ZipEntry)} this does not
+     * lock the jar file and does not create any stream, deflated entries are inflated in one call into an exactly
+     * sized array.
+     *
+     * @param entry
+     *            an entry of this jar file
+     * @return the entry bytes
+     * @throws IOException
+     *             if the entry cannot be read or is corrupt
+     */
+    public byte[] getBytes(JarEntry entry) throws IOException {
+        ensureOpen();
+        return this.entries.getBytes(entry);
+    }
+
+    /**
+     * Return a read-only view of the bytes of the specified stored entry directly over the memory mapped root jar
+     * file, see {@link FileAccessMode#MAPPED}. The view is only valid for reading while this jar file is open.
+     *
+     * @param entry
+     *            an entry of this jar file
+     * @return the entry bytes, or {@code null} if the entry is compressed or the root jar file is not mapped
+     * @throws IOException
+     *             if the entry cannot be read
+     */
+    public ByteBuffer getStoredBuffer(JarEntry entry) throws IOException {
+        ensureOpen();
+        return this.entries.getStoredBuffer(entry);
+    }
+
     /**
      * Return a nested {@link JarFile} loaded from the specified entry.
      * 
@@ -291,12 +411,15 @@ public class JarFile extends AbstractJarFile implements Iterable<java.util.jar.J
      * @throws IOException
      *             if the nested jar file cannot be read
      */
-    public synchronized JarFile getNestedJarFile(ZipEntry entry) throws IOException {
+    public JarFile getNestedJarFile(ZipEntry entry) throws IOException {
         return getNestedJarFile((JarEntry)entry);
     }
 
     /**
-     * Return a nested {@link JarFile} loaded from the specified entry.
+     * Return a nested {@link JarFile} loaded from the specified entry. Nested jar files are cached per entry and
+     * shared, repeated calls return the same instance as long as it has not been closed. Every call must be balanced
+     * by one {@link #close()}, the nested jar file is closed when its last holder closes it or when this jar file is
+     * closed.
      * 
      * @param entry
      *            the zip entry
@@ -304,12 +427,119 @@ public class JarFile extends AbstractJarFile implements Iterable<java.util.jar.J
      * @throws IOException
      *             if the nested jar file cannot be read
      */
-    public synchronized JarFile getNestedJarFile(JarEntry entry) throws IOException {
+    public JarFile getNestedJarFile(JarEntry entry) throws IOException {
+        return getNestedJarFile(entry, false);
+    }
+
+    /**
+     * Return a nested {@link JarFile} for internal use, for example by a {@link JarURLConnection}. The returned jar
+     * file is never closed by its other holders, it stays open until this jar file is closed.
+     *
+     * @param entry
+     *            the zip entry
+     * @return a {@link JarFile} for the entry
+     * @throws IOException
+     *             if the nested jar file cannot be read
+     */
+    JarFile getPinnedNestedJarFile(JarEntry entry) throws IOException {
+        return getNestedJarFile(entry, true);
+    }
+
+    private JarFile getNestedJarFile(JarEntry entry, boolean pin) throws IOException {
+        ensureOpen();
+        Integer index = entry.getIndex();
+        JarFile created = null;
+        while (true) {
+            JarFile nestedJarFile = this.nestedJarFiles.get(index);
+            if (nestedJarFile != null) {
+                if (nestedJarFile.acquire(pin)) {
+                    return nestedJarFile;
+                }
+                this.nestedJarFiles.remove(index, nestedJarFile);
+                continue;
+            }
+            if (created == null) {
+                // Nested jar files hold no resources of their own, a concurrently created duplicate is simply dropped
+                created = createNestedJarFile(entry);
+                if (pin) {
+                    created.holders.set(PINNED);
+                }
+            }
+            if (this.nestedJarFiles.putIfAbsent(index, created) == null) {
+                if (this.closed) {
+                    // Raced with close(), which may not have seen the new nested jar file
+                    created.closeNow();
+                    ensureOpen();
+                }
+                fireNestedJarOpened(created);
+                return created;
+            }
+        }
+    }
+
+    private static void fireNestedJarOpened(JarFile nestedJarFile) {
+        for (Consumer<JarFile> listener : NESTED_JAR_OPEN_LISTENERS) {
+            try {
+                listener.accept(nestedJarFile);
+            } catch (RuntimeException ex) {
+                // Listeners are only used for statistics and must not fail the open
+            }
+        }
+    }
+
+    /**
+     * Add a listener that is called every time a nested jar file is actually created, that is when it is not served
+     * from the cache of its parent. The listener is called for nested jar files of every root jar file and must be
+     * removed with {@link #removeNestedJarOpenListener(Consumer)} once it is no longer needed.
+     *
+     * @param listener
+     *            the listener, called with the newly created nested jar file
+     */
+    public static void addNestedJarOpenListener(Consumer<JarFile> listener) {
+        NESTED_JAR_OPEN_LISTENERS.add(listener);
+    }
+
+    /**
+     * Remove a listener added by {@link #addNestedJarOpenListener(Consumer)}.
+     *
+     * @param listener
+     *            the listener
+     */
+    public static void removeNestedJarOpenListener(Consumer<JarFile> listener) {
+        NESTED_JAR_OPEN_LISTENERS.remove(listener);
+    }
+
+    private JarFile createNestedJarFile(JarEntry entry) throws IOException {
+        JarFile created;
+        Object jfrEvent = JfrEvent.NESTED_JAR_OPEN.begin();
         try {
-            return createJarFileFromEntry(entry);
+            created = createJarFileFromEntry(entry);
         } catch (Exception ex) {
             throw new IOException("Unable to open nested jar file '" + entry.getName() + "'", ex);
         }
+        if (jfrEvent != null) {
+            JfrEvent.NESTED_JAR_OPEN.commit(jfrEvent, getName(), entry.getName(), created.size());
+        }
+        return created;
+    }
+
+    /**
+     * Add a holder to this cached nested jar file.
+     *
+     * @param pin
+     *            whether to keep this jar file open until its parent is closed
+     * @return {@code false} if this jar file has already been closed
+     */
+    private boolean acquire(boolean pin) {
+        while (true) {
+            int holders = this.holders.get();
+            if (holders <= 0) {
+                return false;
+            }
+            if (holders == PINNED || this.holders.compareAndSet(holders, pin ? PINNED : holders + 1)) {
+                return true;
+            }
+        }
     }
 
     private JarFile createJarFileFromEntry(JarEntry entry) throws IOException {
@@ -356,16 +586,78 @@ public class JarFile extends AbstractJarFile implements Iterable<java.util.jar.J
         return this.entries.getSize();
     }
 
+    /**
+     * Make this nested jar file the owner of the root jar file it was opened from, the root jar file is then closed
+     * when this jar file is closed. Used when a root jar file is opened only to reach a nested jar file, for example by
+     * {@link com.github.joekerouac.plugin.loader.util.JarFileUtil#fromUrl(URL)}.
+     *
+     * @param root
+     *            the root jar file this jar file has been opened from
+     */
+    public void setOwnedRoot(JarFile root) {
+        if (root == this) {
+            return;
+        }
+        if (root.getRootJarFile() != this.rootFile || root.type != JarFileType.DIRECT) {
+            throw new IllegalArgumentException("Not the root jar file of " + getName());
+        }
+        this.ownedRoot = root;
+    }
+
+    /**
+     * Close this jar file. A nested jar file is shared by all callers of {@link #getNestedJarFile(JarEntry)}, it is
+     * only closed once the last holder closes it. Closing a jar file also closes all nested jar files opened from it.
+     *
+     * @throws IOException
+     *             if an I/O error has occurred
+     */
     @Override
     public void close() throws IOException {
         if (this.closed) {
             return;
         }
+        if (this.type != JarFileType.DIRECT) {
+            int holders;
+            do {
+                holders = this.holders.get();
+                if (holders <= 0 || holders == PINNED) {
+                    return;
+                }
+            } while (!this.holders.compareAndSet(holders, holders - 1));
+            if (holders > 1) {
+                return;
+            }
+        }
+        closeNow();
+    }
+
+    /**
+     * Close this jar file regardless of its holders, together with all nested jar files opened from it.
+     *
+     * @throws IOException
+     *             if an I/O error has occurred
+     */
+    private void closeNow() throws IOException {
+        synchronized (this.holders) {
+            if (this.closed) {
+                return;
+            }
+            this.holders.set(0);
+            this.closed = true;
+        }
         super.close();
         if (this.type == JarFileType.DIRECT) {
             this.rootFile.close();
         }
-        this.closed = true;
+        for (JarFile nestedJarFile : this.nestedJarFiles.values()) {
+            nestedJarFile.closeNow();
+        }
+        this.nestedJarFiles.clear();
+        this.resolvedSpecs.clear();
+        JarFile ownedRoot = this.ownedRoot;
+        if (ownedRoot != null) {
+            ownedRoot.close();
+        }
     }
 
     private void ensureOpen() {
@@ -374,7 +666,16 @@ public class JarFile extends AbstractJarFile implements Iterable<java.util.jar.J
         }
     }
 
-    boolean isClosed() {
+    ResolvedSpecCache getResolvedSpecs() {
+        return this.resolvedSpecs;
+    }
+
+    /**
+     * Return if this jar file has been closed.
+     *
+     * @return {@code true} if closed
+     */
+    public boolean isClosed() {
         return this.closed;
     }
 
@@ -420,6 +721,27 @@ public class JarFile extends AbstractJarFile implements Iterable<java.util.jar.J
 
     public void clearCache() {
         this.entries.clearCache();
+        this.entriesGeneration++;
+        this.resolvedSpecs.clear();
+    }
+
+    /**
+     * Return the number of times the entry cache of this jar file has been cleared, used to drop resolved URL specs
+     * that still hold entries of this jar file.
+     *
+     * @return the entry cache generation
+     */
+    int getEntriesGeneration() {
+        return this.entriesGeneration;
+    }
+
+    /**
+     * Return statistics of the entry cache of this jar file.
+     * 
+     * @return the entry cache statistics
+     */
+    public CacheStats getEntryCacheStats() {
+        return this.entries.getCacheStats();
     }
 
     protected String getPathFromRoot() {
@@ -14,20 +14,28 @@ package com.github.joekerouac.plugin.loader.jar;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
 import java.util.*;
 import java.util.jar.Attributes;
 import java.util.jar.Attributes.Name;
 import java.util.jar.JarInputStream;
 import java.util.jar.Manifest;
+import java.util.zip.CRC32;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
 
+import com.github.joekerouac.plugin.loader.data.ByteBufferData;
 import com.github.joekerouac.plugin.loader.data.RandomAccessData;
+import com.github.joekerouac.plugin.loader.data.RandomAccessDataFile;
 
 /**
  * Provides access to entries from a {@link JarFile}. In order to reduce memory consumption entry details are stored
  * using arrays. The {@code hashCodes} array stores the hash code of the entry name, the {@code centralDirectoryOffsets}
  * provides the offset to the central directory record and {@code positions} provides the original order position of the
- * entry. The arrays are stored in hashCode order so that a binary search can be used to find a name.
+ * entry. The arrays are stored in hashCode order so that a binary search can be used to find a name. With a hash
+ * {@link EntryIndexMode} the arrays keep the central directory order and an open addressing {@code table} is used
+ * instead, which is built without sorting.
  * <p>
  *
  * @author JoeKerouac
@@ -54,18 +62,38 @@ class JarFileEntries implements CentralDirectoryVisitor, Iterable<JarEntry> {
 
     private static final char NO_SUFFIX = 0;
 
-    protected static final int ENTRY_CACHE_SIZE = 25;
-
     private final JarFile jarFile;
 
     private final JarEntryFilter filter;
 
+    private final EntryIndexMode indexMode;
+
     private RandomAccessData centralDirectoryData;
 
+    /**
+     * The central directory bytes when it is resident on heap, headers are decoded in place.
+     */
+    private byte[] centralDirectoryBytes;
+
+    /**
+     * The central directory buffer when it is resident off heap, names are matched in place.
+     */
+    private ByteBuffer centralDirectoryBuffer;
+
     private int size;
 
     private int[] hashCodes;
 
+    /**
+     * Seeded 64-bit name hashes in entry order, only for {@link EntryIndexMode#SEEDED_HASH}.
+     */
+    private long[] seededHashCodes;
+
+    /**
+     * Open addressing table of {@code entry index + 1}, {@code 0} marks an empty slot. Only for the hash index modes.
+     */
+    private int[] table;
+
     private Offsets centralDirectoryOffsets;
 
     private int[] positions;
@@ -74,26 +102,31 @@ class JarFileEntries implements CentralDirectoryVisitor, Iterable<JarEntry> {
 
     private JarEntryCertification[] certifications;
 
-    private final Map<Integer, FileHeader> entriesCache =
-        Collections.synchronizedMap(new LinkedHashMap<Integer, FileHeader>(16, 0.75f, true) {
-
-            @Override
-            protected boolean removeEldestEntry(Map.Entry<Integer, FileHeader> eldest) {
-                return size() >= ENTRY_CACHE_SIZE;
-            }
-
-        });
+    private EntryCache entriesCache;
 
     JarFileEntries(JarFile jarFile, JarEntryFilter filter) {
+        this(jarFile, filter, EntryIndexMode.getDefault());
+    }
+
+    JarFileEntries(JarFile jarFile, JarEntryFilter filter, EntryIndexMode indexMode) {
         this.jarFile = jarFile;
         this.filter = filter;
+        this.indexMode = indexMode;
     }
 
     @Override
     public void visitStart(CentralDirectoryEndRecord endRecord, RandomAccessData centralDirectoryData) {
         int maxSize = endRecord.getNumberOfRecords();
         this.centralDirectoryData = centralDirectoryData;
+        if (centralDirectoryData instanceof ByteBufferData) {
+            ByteBufferData data = (ByteBufferData)centralDirectoryData;
+            this.centralDirectoryBytes = data.getArray();
+            this.centralDirectoryBuffer = (this.centralDirectoryBytes != null) ? null : data.getBuffer();
+        }
         this.hashCodes = new int[maxSize];
+        if (this.indexMode == EntryIndexMode.SEEDED_HASH) {
+            this.seededHashCodes = new long[maxSize];
+        }
         this.centralDirectoryOffsets = Offsets.from(endRecord);
         this.positions = new int[maxSize];
     }
@@ -108,6 +141,9 @@ class JarFileEntries implements CentralDirectoryVisitor, Iterable<JarEntry> {
 
     private void add(AsciiBytes name, long dataOffset) {
         this.hashCodes[this.size] = name.hashCode();
+        if (this.seededHashCodes != null) {
+            this.seededHashCodes[this.size] = name.hash64(HashSeed.VALUE);
+        }
         this.centralDirectoryOffsets.set(this.size, dataOffset);
         this.positions[this.size] = this.size;
         this.size++;
@@ -115,6 +151,12 @@ class JarFileEntries implements CentralDirectoryVisitor, Iterable<JarEntry> {
 
     @Override
     public void visitEnd() {
+        this.entriesCache = new EntryCache(this.size);
+        if (this.indexMode != EntryIndexMode.SORTED) {
+            // Entries stay in central directory order, positions are already the identity
+            buildTable();
+            return;
+        }
         sort(0, this.size - 1);
         int[] positions = this.positions;
         this.positions = new int[positions.length];
@@ -123,10 +165,157 @@ class JarFileEntries implements CentralDirectoryVisitor, Iterable<JarEntry> {
         }
     }
 
+    private void buildTable() {
+        int capacity = Integer.highestOneBit(Math.max(this.size, 1)) << 2;
+        int[] table = new int[capacity];
+        int mask = capacity - 1;
+        for (int index = 0; index < this.size; index++) {
+            int slot = slot(index) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = index + 1;
+        }
+        this.table = table;
+    }
+
+    private int slot(int index) {
+        if (this.seededHashCodes != null) {
+            long hash = this.seededHashCodes[index];
+            return (int)(hash ^ (hash >>> 32));
+        }
+        return mix(this.hashCodes[index]);
+    }
+
+    private static int mix(int hash) {
+        // String hash codes of similar names only differ in the low bits, spread them before masking
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        return hash;
+    }
+
+    EntryIndexMode getIndexMode() {
+        return this.indexMode;
+    }
+
     int getSize() {
         return this.size;
     }
 
+    /**
+     * Return the hash code of the entry name at the specified index.
+     * 
+     * @param index
+     *            the entry index
+     * @return the hash code of the entry name, compatible with {@link String#hashCode()}
+     */
+    int getHashCode(int index) {
+        return this.hashCodes[index];
+    }
+
+    /**
+     * Return if the entry at the specified index has the given name.
+     * 
+     * @param index
+     *            the entry index
+     * @param name
+     *            the name to test
+     * @param suffix
+     *            an additional suffix (or {@code 0})
+     * @return {@code true} if the entry has the given name
+     */
+    boolean hasName(int index, CharSequence name, char suffix) {
+        try {
+            return nameMatches(index, name, suffix);
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Return the entry at the specified index.
+     * 
+     * @param index
+     *            the entry index
+     * @return the entry
+     */
+    JarEntry getEntryAt(int index) {
+        return getEntry(index, JarEntry.class, true, null);
+    }
+
+    /**
+     * Return the name of the entry at the specified index.
+     * 
+     * @param index
+     *            the entry index
+     * @return the entry name
+     */
+    String getNameAt(int index) {
+        FileHeader entry = getEntry(index, FileHeader.class, false, null);
+        if (entry instanceof JarEntry) {
+            return ((JarEntry)entry).getName();
+        }
+        return ((CentralDirectoryFileHeader)entry).getName().toString();
+    }
+
+    /**
+     * Return the names of all directory entries. Names are read straight from the central directory without creating
+     * entries; filtered jar files decode each header so that the filtered names are returned.
+     * 
+     * @return the directory names, in no particular order
+     * @throws IOException
+     *             if the central directory cannot be read
+     */
+    List<String> getDirectoryNames() throws IOException {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < this.size; i++) {
+            long offset = this.centralDirectoryOffsets.get(i);
+            if (this.filter != null) {
+                String name = readFileHeader(offset).getName().toString();
+                if (name.endsWith("/")) {
+                    names.add(name);
+                }
+            } else if (this.centralDirectoryBytes != null) {
+                int headerOffset = (int)offset;
+                int nameLength = (int)Bytes.littleEndianValue(this.centralDirectoryBytes, headerOffset + 28, 2);
+                if (nameLength > 0 && this.centralDirectoryBytes[headerOffset + 45 + nameLength] == '/') {
+                    names.add(new AsciiBytes(this.centralDirectoryBytes, headerOffset + 46, nameLength).toString());
+                }
+            } else if (this.centralDirectoryBuffer != null) {
+                ByteBuffer buffer = this.centralDirectoryBuffer;
+                int headerOffset = (int)offset;
+                int nameLength = (buffer.get(headerOffset + 28) & 0xFF) | ((buffer.get(headerOffset + 29) & 0xFF) << 8);
+                if (nameLength > 0 && buffer.get(headerOffset + 45 + nameLength) == '/') {
+                    byte[] nameBytes = new byte[nameLength];
+                    for (int j = 0; j < nameLength; j++) {
+                        nameBytes[j] = buffer.get(headerOffset + 46 + j);
+                    }
+                    names.add(AsciiBytes.toString(nameBytes));
+                }
+            } else {
+                int nameLength = (int)Bytes.littleEndianValue(this.centralDirectoryData.read(offset + 28, 2), 0, 2);
+                if (nameLength > 0 && this.centralDirectoryData.read(offset + 45 + nameLength, 1)[0] == '/') {
+                    names.add(AsciiBytes.toString(this.centralDirectoryData.read(offset + 46, nameLength)));
+                }
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Return the CRC-32 of the raw central directory bytes.
+     * 
+     * @return the CRC-32 checksum
+     * @throws IOException
+     *             if the central directory cannot be read
+     */
+    long getCentralDirectoryCrc() throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(this.centralDirectoryData.read());
+        return crc.getValue();
+    }
+
     private void sort(int left, int right) {
         // Quick sort algorithm, uses hashCodes as the source but sorts all arrays
         if (left < right) {
@@ -184,6 +373,56 @@ class JarFileEntries implements CentralDirectoryVisitor, Iterable<JarEntry> {
         return inputStream;
     }
 
+    /**
+     * Return the uncompressed bytes of the entry. Deflated entries are inflated in a single call into an exactly sized
+     * array with a pooled {@link java.util.zip.Inflater}, no stream is created.
+     * 
+     * @param entry
+     *            the entry
+     * @return the entry bytes
+     * @throws IOException
+     *             if the entry cannot be read or is corrupt
+     */
+    byte[] getBytes(FileHeader entry) throws IOException {
+        long size = entry.getSize();
+        if (size < 0 || size > Integer.MAX_VALUE - 8) {
+            throw new ZipException("Unsupported entry size " + size);
+        }
+        byte[] data = getEntryData(entry).read();
+        if (entry.getMethod() == ZipEntry.DEFLATED) {
+            return InflaterPool.inflate(data, (int)size);
+        }
+        if (data.length != size) {
+            throw new ZipException("Invalid entry size (expected " + size + " but got " + data.length + " bytes)");
+        }
+        return data;
+    }
+
+    /**
+     * Return a read-only view of the bytes of a stored entry directly over the mapped jar file, no bytes are copied.
+     * 
+     * @param entry
+     *            the entry
+     * @return the entry bytes, or {@code null} if the entry is compressed or the jar file is not mapped
+     * @throws IOException
+     *             if the entry cannot be read
+     */
+    ByteBuffer getStoredBuffer(FileHeader entry) throws IOException {
+        if (entry.getMethod() != ZipEntry.STORED) {
+            return null;
+        }
+        RandomAccessData data = getEntryData(entry);
+        if (!(data instanceof RandomAccessDataFile)) {
+            return null;
+        }
+        if (data.getSize() != entry.getSize()) {
+            throw new ZipException(
+                "Invalid entry size (expected " + entry.getSize() + " but got " + data.getSize() + " bytes)");
+        }
+        ByteBuffer buffer = ((RandomAccessDataFile)data).slice(0, data.getSize());
+        return (buffer != null) ? buffer.asReadOnlyBuffer() : null;
+    }
+
     RandomAccessData getEntryData(String name) throws IOException {
         FileHeader entry = getEntry(name, FileHeader.class, false);
         if (entry == null) {
@@ -262,15 +501,91 @@ class JarFileEntries implements CentralDirectoryVisitor, Iterable<JarEntry> {
 
     private <T extends FileHeader> T getEntry(int hashCode, CharSequence name, char suffix, Class<T> type,
         boolean cacheEntry, AsciiBytes nameAlias) {
+        int index = findIndex(hashCode, name, suffix);
+        return (index >= 0) ? getEntry(index, type, cacheEntry, nameAlias) : null;
+    }
+
+    /**
+     * Return the index of the entry with the given name and suffix.
+     * 
+     * @param hashCode
+     *            the hash code of the name and suffix, see {@link AsciiBytes#hashCode(int, char)}
+     * @param name
+     *            the name
+     * @param suffix
+     *            an additional suffix (or {@code 0})
+     * @return the entry index or {@code -1} if there is no such entry
+     */
+    int findIndex(int hashCode, CharSequence name, char suffix) {
+        if (this.table != null) {
+            return probe(hashCode, name, suffix);
+        }
         int index = getFirstIndex(hashCode);
         while (index >= 0 && index < this.size && this.hashCodes[index] == hashCode) {
-            T entry = getEntry(index, type, cacheEntry, nameAlias);
-            if (entry.hasName(name, suffix)) {
-                return entry;
+            if (hasName(index, name, suffix)) {
+                return index;
             }
             index++;
         }
-        return null;
+        return -1;
+    }
+
+    private int probe(int hashCode, CharSequence name, char suffix) {
+        int[] table = this.table;
+        int mask = table.length - 1;
+        long[] seededHashCodes = this.seededHashCodes;
+        int slot;
+        long seededHashCode = 0;
+        if (seededHashCodes != null) {
+            seededHashCode = AsciiBytes.hash64(name, suffix, HashSeed.VALUE);
+            slot = (int)(seededHashCode ^ (seededHashCode >>> 32)) & mask;
+        } else {
+            slot = mix(hashCode) & mask;
+        }
+        for (int head = table[slot]; head != 0; head = table[slot]) {
+            int index = head - 1;
+            if (this.hashCodes[index] == hashCode
+                && (seededHashCodes == null || seededHashCodes[index] == seededHashCode)
+                && hasName(index, name, suffix)) {
+                return index;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Test the name of the entry at the specified index without creating a {@link CentralDirectoryFileHeader}. The name
+     * bytes are compared in place when the central directory is resident, otherwise only the name bytes are read.
+     * Filtered entries and cached entries use the already decoded header.
+     */
+    private boolean nameMatches(int index, CharSequence name, char suffix) throws IOException {
+        FileHeader cached = this.entriesCache.peek(index);
+        if (cached != null) {
+            return cached.hasName(name, suffix);
+        }
+        if (this.filter != null) {
+            return readFileHeader(this.centralDirectoryOffsets.get(index)).hasName(name, suffix);
+        }
+        long offset = this.centralDirectoryOffsets.get(index);
+        if (this.centralDirectoryBytes != null) {
+            int headerOffset = (int)offset;
+            int nameLength = (int)Bytes.littleEndianValue(this.centralDirectoryBytes, headerOffset + 28, 2);
+            return AsciiBytes.matches(this.centralDirectoryBytes, headerOffset + 46, nameLength, name, suffix);
+        }
+        if (this.centralDirectoryBuffer != null) {
+            ByteBuffer buffer = this.centralDirectoryBuffer;
+            int headerOffset = (int)offset;
+            int nameLength = (buffer.get(headerOffset + 28) & 0xFF) | ((buffer.get(headerOffset + 29) & 0xFF) << 8);
+            return AsciiBytes.matches(buffer, headerOffset + 46, nameLength, name, suffix);
+        }
+        byte[] nameLengthBytes = this.centralDirectoryData.read(offset + 28, 2);
+        int nameLength = (int)Bytes.littleEndianValue(nameLengthBytes, 0, 2);
+        if (nameLength == 0) {
+            return name.length() == 0 && suffix == 0;
+        }
+        byte[] nameBytes = this.centralDirectoryData.read(offset + 46, nameLength);
+        return AsciiBytes.matches(nameBytes, 0, nameLength, name, suffix);
     }
 
     @SuppressWarnings("unchecked")
@@ -278,8 +593,7 @@ class JarFileEntries implements CentralDirectoryVisitor, Iterable<JarEntry> {
         try {
             long offset = this.centralDirectoryOffsets.get(index);
             FileHeader cached = this.entriesCache.get(index);
-            FileHeader entry = (cached != null) ? cached
-                : CentralDirectoryFileHeader.fromRandomAccessData(this.centralDirectoryData, offset, this.filter);
+            FileHeader entry = (cached != null) ? cached : readFileHeader(offset);
             if (CentralDirectoryFileHeader.class.equals(entry.getClass()) && type.equals(JarEntry.class)) {
                 entry = new JarEntry(this.jarFile, index, (CentralDirectoryFileHeader)entry, nameAlias);
             }
@@ -292,6 +606,15 @@ class JarFileEntries implements CentralDirectoryVisitor, Iterable<JarEntry> {
         }
     }
 
+    private CentralDirectoryFileHeader readFileHeader(long offset) throws IOException {
+        if (this.centralDirectoryBytes != null) {
+            CentralDirectoryFileHeader fileHeader = new CentralDirectoryFileHeader();
+            fileHeader.load(this.centralDirectoryBytes, (int)offset, null, 0, this.filter);
+            return fileHeader;
+        }
+        return CentralDirectoryFileHeader.fromRandomAccessData(this.centralDirectoryData, offset, this.filter);
+    }
+
     private int getFirstIndex(int hashCode) {
         int index = Arrays.binarySearch(this.hashCodes, 0, this.size, hashCode);
         if (index < 0) {
@@ -307,6 +630,10 @@ class JarFileEntries implements CentralDirectoryVisitor, Iterable<JarEntry> {
         this.entriesCache.clear();
     }
 
+    CacheStats getCacheStats() {
+        return this.entriesCache.getStats();
+    }
+
     private AsciiBytes applyFilter(AsciiBytes name) {
         return (this.filter != null) ? this.filter.apply(name) : name;
     }
@@ -335,16 +662,7 @@ class JarFileEntries implements CentralDirectoryVisitor, Iterable<JarEntry> {
     }
 
     private int getEntryIndex(CharSequence name) {
-        int hashCode = AsciiBytes.hashCode(name);
-        int index = getFirstIndex(hashCode);
-        while (index >= 0 && index < this.size && this.hashCodes[index] == hashCode) {
-            FileHeader candidate = getEntry(index, FileHeader.class, false, null);
-            if (candidate.hasName(name, NO_SUFFIX)) {
-                return index;
-            }
-            index++;
-        }
-        return -1;
+        return findIndex(AsciiBytes.hashCode(name), name, NO_SUFFIX);
     }
 
     private void swap(int i, int j) {
@@ -398,6 +716,16 @@ class JarFileEntries implements CentralDirectoryVisitor, Iterable<JarEntry> {
 
     }
 
+    /**
+     * Holder of the seed of the 64-bit name hash used by {@link EntryIndexMode#SEEDED_HASH}, random for every JVM so
+     * colliding names cannot be crafted ahead of time. Only initialized when the seeded index is used.
+     */
+    private static final class HashSeed {
+
+        private static final long VALUE = new SecureRandom().nextLong();
+
+    }
+
     /**
      * Interface to manage offsets to central directory records. Regular zip files are backed by an {@code int[]} based
      * implementation, Zip64 files are backed by a {@code long[]} and will consume more memory.
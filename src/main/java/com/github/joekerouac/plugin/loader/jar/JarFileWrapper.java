@@ -35,7 +35,7 @@ class JarFileWrapper extends AbstractJarFile {
     private final JarFile parent;
 
     JarFileWrapper(JarFile parent) throws IOException {
-        super(parent.getRootJarFile().getFile());
+        super(NativeAnchor.getFile(parent.getRootJarFile().getFile()));
         this.parent = parent;
         super.close();
     }
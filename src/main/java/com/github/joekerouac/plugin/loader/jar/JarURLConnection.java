@@ -36,6 +36,15 @@ import java.security.Permission;
 @SuppressFBWarnings("NM_SAME_SIMPLE_NAME_AS_SUPERCLASS")
 final class JarURLConnection extends java.net.JarURLConnection {
 
+    /**
+     * Maximum number of resolved URL specs cached per jar file, {@code 0} disables the cache.
+     */
+    static final String CACHE_SIZE_PROPERTY = "plugin.loader.url.cache.size";
+
+    private static final int DEFAULT_CACHE_SIZE = 1024;
+
+    static final int CACHE_SIZE = getConfiguredCacheSize();
+
     private static final ThreadLocal<Boolean> useFastExceptions = new ThreadLocal<>();
 
     private static final FileNotFoundException FILE_NOT_FOUND_EXCEPTION =
@@ -83,6 +92,11 @@ final class JarURLConnection extends java.net.JarURLConnection {
         this.jarEntryName = jarEntryName;
     }
 
+    private JarURLConnection(URL url, ResolvedSpec resolved) throws IOException {
+        this(url, resolved.jarFile.getWrapper(), resolved.entryName);
+        this.jarEntry = resolved.entry;
+    }
+
     @Override
     public void connect() throws IOException {
         if (this.jarFile == null) {
@@ -235,11 +249,18 @@ final class JarURLConnection extends java.net.JarURLConnection {
     }
 
     static JarURLConnection get(URL url, JarFile jarFile) throws IOException {
+        ResolvedSpec resolved = resolve(url.getFile(), jarFile);
+        if (resolved != null) {
+            return new JarURLConnection(url, resolved);
+        }
+        if (Boolean.TRUE.equals(useFastExceptions.get())) {
+            return NOT_FOUND_CONNECTION;
+        }
+        // Walk the spec again to report which part of it could not be found
         StringSequence spec = new StringSequence(url.getFile());
         int index = indexOfRootSpec(spec, jarFile.getPathFromRoot());
         if (index == -1) {
-            return (Boolean.TRUE.equals(useFastExceptions.get()) ? NOT_FOUND_CONNECTION
-                : new JarURLConnection(url, null, EMPTY_JAR_ENTRY_NAME));
+            return new JarURLConnection(url, null, EMPTY_JAR_ENTRY_NAME);
         }
         int separator;
         while ((separator = spec.indexOf(Handler.SEPARATOR, index)) > 0) {
@@ -248,15 +269,88 @@ final class JarURLConnection extends java.net.JarURLConnection {
             if (jarEntry == null) {
                 return JarURLConnection.notFound(jarFile, entryName);
             }
-            jarFile = jarFile.getNestedJarFile(jarEntry);
+            jarFile = jarFile.getPinnedNestedJarFile(jarEntry);
+            index = separator + Handler.SEPARATOR.length();
+        }
+        return new JarURLConnection(url, jarFile.getWrapper(), JarEntryName.get(spec, index));
+    }
+
+    /**
+     * Return the jar file a jar URL points at without creating a connection.
+     *
+     * @param url
+     *            the jar URL, for example {@code jar:file:/app.jar!/lib/a.jar!/}
+     * @param jarFile
+     *            the jar file the URL is relative to
+     * @return the (possibly nested) jar file or {@code null} if it cannot be found or the URL points at an entry
+     * @throws IOException
+     *             if a nested jar file cannot be opened
+     */
+    static JarFile getJarFile(URL url, JarFile jarFile) throws IOException {
+        ResolvedSpec resolved = resolve(url.getFile(), jarFile);
+        return (resolved != null && resolved.entryName.isEmpty()) ? resolved.jarFile : null;
+    }
+
+    /**
+     * Resolve a URL spec against a jar file, reporting a missing jar file or entry as {@code null} rather than as an
+     * exception or a not found connection. Successful resolutions are cached in the jar file.
+     *
+     * @param file
+     *            the URL spec, see {@link URL#getFile()}
+     * @param jarFile
+     *            the jar file the spec is relative to
+     * @return the resolved spec or {@code null}
+     * @throws IOException
+     *             if a nested jar file cannot be opened
+     */
+    private static ResolvedSpec resolve(String file, JarFile jarFile) throws IOException {
+        ResolvedSpecCache resolvedSpecs = jarFile.getResolvedSpecs();
+        ResolvedSpec resolved = resolvedSpecs.get(file);
+        if (resolved != null) {
+            if (!resolved.jarFile.isClosed() && resolved.generation == resolved.jarFile.getEntriesGeneration()) {
+                return resolved;
+            }
+            resolvedSpecs.remove(file, resolved);
+        }
+        StringSequence spec = new StringSequence(file);
+        int index = indexOfRootSpec(spec, jarFile.getPathFromRoot());
+        if (index == -1) {
+            return null;
+        }
+        int separator;
+        while ((separator = spec.indexOf(Handler.SEPARATOR, index)) > 0) {
+            JarEntryName entryName = JarEntryName.get(spec.subSequence(index, separator));
+            JarEntry jarEntry = jarFile.getJarEntry(entryName.toCharSequence());
+            if (jarEntry == null) {
+                return null;
+            }
+            jarFile = jarFile.getPinnedNestedJarFile(jarEntry);
             index = separator + Handler.SEPARATOR.length();
         }
         JarEntryName jarEntryName = JarEntryName.get(spec, index);
-        if (Boolean.TRUE.equals(useFastExceptions.get()) && !jarEntryName.isEmpty()
-            && !jarFile.containsEntry(jarEntryName.toString())) {
-            return NOT_FOUND_CONNECTION;
+        JarEntry jarEntry = null;
+        if (!jarEntryName.isEmpty()) {
+            jarEntry = jarFile.getJarEntry(jarEntryName.toCharSequence());
+            if (jarEntry == null) {
+                return null;
+            }
         }
-        return new JarURLConnection(url, jarFile.getWrapper(), jarEntryName);
+        // Only successful resolutions are cached, missing entries are rare for repeated URLs
+        resolved = new ResolvedSpec(jarFile, jarEntryName, jarEntry);
+        resolvedSpecs.put(file, resolved);
+        return resolved;
+    }
+
+    private static int getConfiguredCacheSize() {
+        String size = System.getProperty(CACHE_SIZE_PROPERTY);
+        if (size != null) {
+            try {
+                return Math.max(0, Integer.parseInt(size.trim()));
+            } catch (NumberFormatException ex) {
+                // use the default
+            }
+        }
+        return DEFAULT_CACHE_SIZE;
     }
 
     private static int indexOfRootSpec(StringSequence file, String pathFromRoot) {
@@ -282,6 +376,34 @@ final class JarURLConnection extends java.net.JarURLConnection {
         return new JarURLConnection(null, jarFile, jarEntryName);
     }
 
+    /**
+     * The result of resolving a URL spec against a root {@link JarFile}: the (possibly nested) jar file holding the
+     * entry, the parsed entry name (empty when the URL points at the jar file) and the entry itself, so that a
+     * connection created from a cached spec connects without looking the entry up again. Dropped once the entry
+     * cache of the jar file holding the entry is cleared, see {@link JarFile#clearCache()}.
+     */
+    static final class ResolvedSpec {
+
+        private final JarFile jarFile;
+
+        private final JarEntryName entryName;
+
+        private final JarEntry entry;
+
+        /**
+         * Entry cache generation of the jar file when the entry was looked up.
+         */
+        private final int generation;
+
+        ResolvedSpec(JarFile jarFile, JarEntryName entryName, JarEntry entry) {
+            this.jarFile = jarFile;
+            this.entryName = entryName;
+            this.entry = entry;
+            this.generation = (jarFile != null) ? jarFile.getEntriesGeneration() : 0;
+        }
+
+    }
+
     /**
      * A JarEntryName parsed from a URL String.
      */
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.joekerouac.plugin.loader.jar;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * {@link JarFile}和{@link JarFileWrapper}调用父类构造器时使用的共享native句柄
+ * <p>
+ * {@link java.util.jar.JarFile}没有不打开文件的构造器，所以每个实例都必须在父类构造器中打开一次zip文件（随后立即关闭）。JDK按照文件
+ * 共享已经打开的zip文件（JDK8中是zip_util，JDK9+中是ZipFile.Source），所以这里创建一个只有一个entry的占位jar并在JVM存活期间一直
+ * 保持打开，所有实例的父类构造器都指向这个占位jar，只是在JDK的共享表中增加一次引用计数，不会打开根jar也不会解析根jar的中央目录；根jar
+ * 本身也不会被JDK打开，不会额外占用文件描述符，在Windows上也不会锁定根jar
+ * <p>
+ * 设置系统属性{@link JarFile#NATIVE_ANCHOR_PROPERTY}为false时关闭，每个实例的父类构造器都打开根jar；占位jar创建失败时同样回退
+ *
+ * @author JoeKerouac
+ * @date 2026-10-17 16:00
+ * @since 4.0.1
+ */
+final class NativeAnchor {
+
+    /**
+     * 占位jar，为null表示没有启用
+     */
+    private static final File STUB;
+
+    /**
+     * 一直保持打开的占位jar句柄，保证父类构造器打开占位jar时只是查找JDK中共享的句柄
+     */
+    private static final ZipFile HANDLE;
+
+    /**
+     * 父类构造器打开非占位jar（也就是真正打开一个jar）的次数
+     */
+    private static final AtomicLong NATIVE_OPEN_COUNT = new AtomicLong();
+
+    static {
+        File stub = null;
+        ZipFile handle = null;
+        if (!"false".equalsIgnoreCase(System.getProperty(JarFile.NATIVE_ANCHOR_PROPERTY))) {
+            try {
+                stub = createStub();
+                handle = new ZipFile(stub);
+            } catch (IOException | RuntimeException e) {
+                stub = null;
+            }
+        }
+        STUB = stub;
+        HANDLE = handle;
+    }
+
+    private NativeAnchor() {}
+
+    /**
+     * 获取父类构造器应该打开的文件
+     *
+     * @param rootFile
+     *            根jar文件
+     * @return 启用时返回占位jar，否则返回根jar文件
+     */
+    static File getFile(File rootFile) {
+        if (STUB != null) {
+            return STUB;
+        }
+        NATIVE_OPEN_COUNT.incrementAndGet();
+        return rootFile;
+    }
+
+    /**
+     * 父类构造器真正打开jar的次数，启用时始终为0
+     *
+     * @return 打开次数
+     */
+    static long getNativeOpenCount() {
+        return NATIVE_OPEN_COUNT.get();
+    }
+
+    /**
+     * 是否启用了占位jar
+     *
+     * @return true表示启用
+     */
+    static boolean isEnabled() {
+        return HANDLE != null;
+    }
+
+    private static File createStub() throws IOException {
+        // 不使用File.createTempFile，它依赖的SecureRandom初始化会额外打开随机数设备以及安全提供者的jar
+        File dir = new File(System.getProperty("java.io.tmpdir"));
+        File stub;
+        int attempts = 0;
+        do {
+            if (++attempts > 100) {
+                throw new IOException("Unable to create native anchor jar in " + dir);
+            }
+            stub = new File(dir, "plugin-loader-anchor-" + Long.toHexString(System.nanoTime()) + ".jar");
+        } while (!stub.createNewFile());
+        // Windows上句柄没有关闭时删除会失败，只会留下一个很小的临时文件
+        stub.deleteOnExit();
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(stub))) {
+            out.putNextEntry(new ZipEntry("META-INF/"));
+            out.closeEntry();
+        }
+        return stub;
+    }
+
+}
@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.joekerouac.plugin.loader.jar;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * {@link JarURLConnection}解析url的缓存，key是{@link java.net.URL#getFile()}，容量固定
+ * <p>
+ * 使用两路组相联的CLOCK淘汰：key的哈希决定所在的组，每组两个槽位，命中时设置访问标记；组满时淘汰没有访问标记的槽位，两个槽位都有访问标记
+ * 时清除标记后轮流淘汰，只访问过一次的url会被优先淘汰，不会像整体清空那样让热点url一起失效
+ * <p>
+ * 读写都不加锁：并发写入同一个槽位时后写入的覆盖先写入的，只会导致一次未命中；槽位数组在第一次写入时才创建，没有通过url访问的jar不占用内存
+ *
+ * @author JoeKerouac
+ * @date 2026-10-17 14:00
+ * @since 4.0.1
+ */
+final class ResolvedSpecCache {
+
+    private final int capacity;
+
+    private volatile AtomicReferenceArray<Node> slots;
+
+    /**
+     * 创建缓存
+     *
+     * @param capacity
+     *            容量，向上取整到2的幂，小于等于0表示不缓存
+     */
+    ResolvedSpecCache(int capacity) {
+        this.capacity = capacity <= 0 ? 0 : Math.max(2, Integer.highestOneBit(capacity - 1) << 1);
+    }
+
+    /**
+     * 获取缓存的解析结果
+     *
+     * @param file
+     *            url的file部分
+     * @return 解析结果，不存在时返回null
+     */
+    JarURLConnection.ResolvedSpec get(String file) {
+        AtomicReferenceArray<Node> slots = this.slots;
+        if (slots == null) {
+            return null;
+        }
+        int slot = slotOf(file);
+        for (int i = slot; i < slot + 2; i++) {
+            Node node = slots.get(i);
+            if (node != null && node.file.equals(file)) {
+                if (!node.referenced) {
+                    node.referenced = true;
+                }
+                return node.value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 缓存解析结果
+     *
+     * @param file
+     *            url的file部分
+     * @param value
+     *            解析结果
+     */
+    void put(String file, JarURLConnection.ResolvedSpec value) {
+        if (this.capacity == 0) {
+            return;
+        }
+        AtomicReferenceArray<Node> slots = this.slots;
+        if (slots == null) {
+            synchronized (this) {
+                slots = this.slots;
+                if (slots == null) {
+                    slots = new AtomicReferenceArray<>(this.capacity);
+                    this.slots = slots;
+                }
+            }
+        }
+
+        int slot = slotOf(file);
+        Node first = slots.get(slot);
+        Node second = slots.get(slot + 1);
+        int target;
+        if (first == null || first.file.equals(file)) {
+            target = slot;
+        } else if (second == null || second.file.equals(file)) {
+            target = slot + 1;
+        } else if (!first.referenced) {
+            target = slot;
+        } else if (!second.referenced) {
+            target = slot + 1;
+        } else {
+            // 两个都被访问过，清除标记给两者第二次机会，淘汰先放入的
+            first.referenced = false;
+            second.referenced = false;
+            target = first.sequence <= second.sequence ? slot : slot + 1;
+        }
+        Node other = slots.get(target == slot ? slot + 1 : slot);
+        slots.set(target, new Node(file, value, other == null ? 0 : other.sequence + 1));
+    }
+
+    /**
+     * 移除已经失效的解析结果
+     *
+     * @param file
+     *            url的file部分
+     * @param value
+     *            失效的解析结果
+     */
+    void remove(String file, JarURLConnection.ResolvedSpec value) {
+        AtomicReferenceArray<Node> slots = this.slots;
+        if (slots == null) {
+            return;
+        }
+        int slot = slotOf(file);
+        for (int i = slot; i < slot + 2; i++) {
+            Node node = slots.get(i);
+            if (node != null && node.value == value) {
+                slots.compareAndSet(i, node, null);
+            }
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    void clear() {
+        this.slots = null;
+    }
+
+    private int slotOf(String file) {
+        int hash = file.hashCode();
+        hash ^= hash >>> 16;
+        // 每组两个槽位，组号乘2得到第一个槽位
+        return (hash & ((this.capacity >>> 1) - 1)) << 1;
+    }
+
+    private static final class Node {
+
+        private final String file;
+
+        private final JarURLConnection.ResolvedSpec value;
+
+        /**
+         * 放入顺序，只在同一组的两个槽位之间比较
+         */
+        private final long sequence;
+
+        /**
+         * 访问标记，并发修改时丢失一次标记只会影响淘汰顺序，不需要原子操作
+         */
+        private volatile boolean referenced;
+
+        private Node(String file, JarURLConnection.ResolvedSpec value, long sequence) {
+            this.file = file;
+            this.value = value;
+            this.sequence = sequence;
+        }
+
+    }
+
+}
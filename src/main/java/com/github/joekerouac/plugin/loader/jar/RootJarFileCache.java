@@ -0,0 +1,271 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.joekerouac.plugin.loader.jar;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link Handler}使用的根jar缓存，根据url打开嵌套jar时需要先打开最外层的根jar，缓存避免每次都重新解析根jar的中央目录
+ * <p>
+ * 缓存有容量上限，超过上限时按照LRU顺序淘汰没有被引用的根jar；{@link com.github.joekerouac.plugin.loader.PluginClassLoader}
+ * 在创建时通过{@link #retain(File)}引用自己class path上的根jar，关闭时通过{@link #release(File)}释放，被引用的根jar不会被淘汰
+ * <p>
+ * 淘汰时不会关闭根jar：通过{@link Handler}交出去的根jar（以及其中的嵌套jar）可能仍然被{@link JarURLConnection}等持有，而URLConnection
+ * 没有释放的时机；淘汰时只关闭根jar底层的文件，释放文件句柄，根jar仍然可用，之后再读取时重新打开文件
+ *
+ * @author JoeKerouac
+ * @date 2026-10-16 19:00
+ * @since 4.0.1
+ */
+public final class RootJarFileCache {
+
+    /**
+     * 缓存容量的系统属性，默认64，被引用的根jar不受容量限制
+     */
+    public static final String SIZE_PROPERTY = "plugin.loader.root.cache.size";
+
+    private static final int DEFAULT_SIZE = 64;
+
+    private static final String FILE_PROTOCOL = "file:";
+
+    private static final RootJarFileCache INSTANCE = new RootJarFileCache(getConfiguredCapacity());
+
+    private final int capacity;
+
+    /**
+     * 按照访问顺序排列的缓存，所有访问都需要加锁
+     */
+    private final LinkedHashMap<File, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long hitCount;
+
+    private long missCount;
+
+    private long evictionCount;
+
+    RootJarFileCache(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * 获取全局的根jar缓存
+     *
+     * @return 根jar缓存
+     */
+    public static RootJarFileCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 获取jar url对应的根jar文件
+     *
+     * @param url
+     *            url，例如jar:file:/app.jar!/lib/a.jar!/
+     * @return 根jar文件，url不是指向本地文件的jar url时返回null
+     */
+    public static File getRootFile(URL url) {
+        if (!"jar".equals(url.getProtocol())) {
+            return null;
+        }
+        String spec = url.getFile();
+        int separatorIndex = spec.indexOf(Handler.SEPARATOR);
+        if (separatorIndex == -1) {
+            return null;
+        }
+        return getRootFile(spec.substring(0, separatorIndex));
+    }
+
+    /**
+     * 根据根jar的url获取根jar文件
+     *
+     * @param name
+     *            根jar的url，例如file:/app.jar
+     * @return 根jar文件，不是file协议时返回null
+     */
+    static File getRootFile(String name) {
+        if (!name.startsWith(FILE_PROTOCOL)) {
+            return null;
+        }
+        try {
+            return new File(URI.create(name));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 获取根jar，缓存中不存在或者已经被关闭时打开一个新的并放入缓存；返回的根jar被淘汰时不会被关闭
+     *
+     * @param file
+     *            根jar文件
+     * @return 根jar
+     * @throws IOException
+     *             打开失败时抛出
+     */
+    JarFile get(File file) throws IOException {
+        synchronized (this.entries) {
+            Entry entry = this.entries.get(file);
+            if (entry != null && entry.jarFile != null && !entry.jarFile.isClosed()) {
+                this.hitCount++;
+                return entry.jarFile;
+            }
+            this.missCount++;
+        }
+
+        // 打开文件不加锁，并发打开同一个文件时只保留一个，多余的还没有交出去，可以直接关闭
+        JarFile opened = new JarFile(file);
+        JarFile result;
+        List<JarFile> evicted;
+        synchronized (this.entries) {
+            Entry entry = this.entries.computeIfAbsent(file, key -> new Entry());
+            if (entry.jarFile == null || entry.jarFile.isClosed()) {
+                entry.jarFile = opened;
+                opened = null;
+            }
+            result = entry.jarFile;
+            evicted = evict(file);
+        }
+        if (opened != null) {
+            try {
+                opened.close();
+            } catch (IOException e) {
+                // 忽略异常
+            }
+        }
+        releaseFiles(evicted);
+        return result;
+    }
+
+    /**
+     * 引用根jar，被引用的根jar不会被淘汰；不会打开根jar
+     *
+     * @param file
+     *            根jar文件
+     */
+    public void retain(File file) {
+        synchronized (this.entries) {
+            this.entries.computeIfAbsent(file, key -> new Entry()).refCount++;
+        }
+    }
+
+    /**
+     * 释放对根jar的引用，引用全部释放后根jar可以被淘汰
+     *
+     * @param file
+     *            根jar文件
+     */
+    public void release(File file) {
+        List<JarFile> evicted;
+        synchronized (this.entries) {
+            Entry entry = this.entries.get(file);
+            if (entry == null || entry.refCount <= 0) {
+                return;
+            }
+            entry.refCount--;
+            if (entry.refCount == 0 && entry.jarFile == null) {
+                this.entries.remove(file);
+            }
+            evicted = evict(null);
+        }
+        releaseFiles(evicted);
+    }
+
+    /**
+     * 获取缓存统计信息，未命中次数即打开根jar的次数
+     *
+     * @return 统计信息
+     */
+    public CacheStats getStats() {
+        synchronized (this.entries) {
+            return new CacheStats(this.hitCount, this.missCount, this.evictionCount, this.entries.size(),
+                this.capacity);
+        }
+    }
+
+    /**
+     * 超过容量时按照LRU顺序移除没有被引用的根jar，必须在加锁时调用
+     *
+     * @param keep
+     *            本次刚放入、不能淘汰的根jar文件，允许为null
+     * @return 被移除的根jar，需要释放底层文件
+     */
+    private List<JarFile> evict(File keep) {
+        List<JarFile> evicted = new ArrayList<>(0);
+        int size = this.entries.size();
+        Iterator<Map.Entry<File, Entry>> iterator = this.entries.entrySet().iterator();
+        while (size > this.capacity && iterator.hasNext()) {
+            Map.Entry<File, Entry> next = iterator.next();
+            Entry entry = next.getValue();
+            if (entry.refCount == 0 && !next.getKey().equals(keep)) {
+                iterator.remove();
+                size--;
+                this.evictionCount++;
+                if (entry.jarFile != null) {
+                    evicted.add(entry.jarFile);
+                }
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * 关闭被淘汰的根jar底层的文件，根jar本身不关闭，仍然被持有时下次读取会重新打开文件
+     *
+     * @param jarFiles
+     *            被淘汰的根jar
+     */
+    private static void releaseFiles(List<JarFile> jarFiles) {
+        for (JarFile jarFile : jarFiles) {
+            try {
+                jarFile.getRootJarFile().close();
+            } catch (IOException e) {
+                // 忽略异常
+            }
+        }
+    }
+
+    private static int getConfiguredCapacity() {
+        String size = System.getProperty(SIZE_PROPERTY);
+        if (size != null) {
+            try {
+                return Math.max(0, Integer.parseInt(size.trim()));
+            } catch (NumberFormatException e) {
+                // 使用默认值
+            }
+        }
+        return DEFAULT_SIZE;
+    }
+
+    private static final class Entry {
+
+        /**
+         * 根jar，只被引用还没有打开时为null
+         */
+        private JarFile jarFile;
+
+        /**
+         * 引用计数
+         */
+        private int refCount;
+
+    }
+
+}
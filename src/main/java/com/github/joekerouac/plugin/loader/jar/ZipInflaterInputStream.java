@@ -15,12 +15,11 @@ package com.github.joekerouac.plugin.loader.jar;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.zip.Inflater;
 import java.util.zip.InflaterInputStream;
 
 /**
  * {@link InflaterInputStream} that supports the writing of an extra "dummy" byte (which is required with JDK 6) and
- * returns accurate available() results.
+ * returns accurate available() results. The inflater is borrowed from the {@link InflaterPool} and returned on close.
  *
  * @author JoeKerouac
  * @date 2023-01-04 13:30
@@ -32,8 +31,10 @@ class ZipInflaterInputStream extends InflaterInputStream {
 
     private boolean extraBytesWritten;
 
+    private boolean closed;
+
     ZipInflaterInputStream(InputStream inputStream, int size) {
-        super(inputStream, new Inflater(true), getInflaterBufferSize(size));
+        super(inputStream, InflaterPool.acquire(), getInflaterBufferSize(size));
         this.available = size;
     }
 
@@ -57,7 +58,10 @@ class ZipInflaterInputStream extends InflaterInputStream {
     @Override
     public void close() throws IOException {
         super.close();
-        this.inf.end();
+        if (!this.closed) {
+            this.closed = true;
+            InflaterPool.release(this.inf);
+        }
     }
 
     @Override
@@ -0,0 +1,39 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.joekerouac.plugin.loader.metrics;
+
+/**
+ * 类最终由哪个加载器加载
+ *
+ * @author JoeKerouac
+ * @date 2026-10-16 23:10
+ * @since 4.0.1
+ */
+public enum ClassLoadSource {
+
+    /**
+     * 系统类，由extClassLoader加载
+     */
+    EXT,
+
+    /**
+     * 按照委派规则由父加载器加载，包括子加载器加载失败后交给父加载器加载的类
+     */
+    PARENT,
+
+    /**
+     * 由插件加载器自己定义
+     */
+    CHILD
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.joekerouac.plugin.loader.metrics;
+
+import java.net.URL;
+
+/**
+ * 类加载事件监听器，通过{@link ClassLoaderMetrics#addListener(ClassLoaderListener)}注册
+ * <p>
+ * 回调在触发事件的线程中同步执行，并且可能持有类加载锁，实现必须足够快并且不能加载本加载器中的类；回调抛出的异常会被忽略
+ *
+ * @author JoeKerouac
+ * @date 2026-10-16 23:10
+ * @since 4.0.1
+ */
+public interface ClassLoaderListener {
+
+    /**
+     * 类加载成功，findLoadedClass命中的类不会触发
+     *
+     * @param name
+     *            类名
+     * @param source
+     *            加载类的加载器
+     * @param nanos
+     *            耗时，单位纳秒
+     */
+    default void onClassLoaded(String name, ClassLoadSource source, long nanos) {}
+
+    /**
+     * 类不存在
+     *
+     * @param name
+     *            类名
+     * @param nanos
+     *            耗时，单位纳秒
+     */
+    default void onClassNotFound(String name, long nanos) {}
+
+    /**
+     * 等待类加载锁
+     *
+     * @param name
+     *            类名
+     * @param nanos
+     *            等待时间，单位纳秒
+     */
+    default void onLockWait(String name, long nanos) {}
+
+    /**
+     * 读取了类的字节码
+     *
+     * @param name
+     *            类名
+     * @param bytesRead
+     *            从jar中读取的字节数
+     * @param bytesInflated
+     *            解压得到的字节数，未压缩时为0
+     */
+    default void onClassBytesRead(String name, long bytesRead, long bytesInflated) {}
+
+    /**
+     * 在本加载器的class path上查找资源
+     *
+     * @param name
+     *            资源名
+     * @param found
+     *            是否找到
+     * @param nanos
+     *            耗时，单位纳秒
+     */
+    default void onResourceLookup(String name, boolean found, long nanos) {}
+
+    /**
+     * 打开了嵌套jar，同一个嵌套jar被关闭后重新打开时会再次回调
+     *
+     * @param url
+     *            嵌套jar的url
+     */
+    default void onNestedJarOpened(URL url) {}
+
+}
@@ -0,0 +1,389 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.joekerouac.plugin.loader.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * 单个插件类加载器的类加载统计，计数使用LongAdder，耗时使用{@link LatencyHistogram}，不依赖sun.misc.PerfCounter，所有JDK版本都可用
+ * <p>
+ * 记录方法由加载器调用；注册了{@link ClassLoaderListener}时同时回调监听器；设置系统属性{@link #JMX_PROPERTY}为true时注册为
+ * {@link PluginClassLoaderMXBean}
+ *
+ * @author JoeKerouac
+ * @date 2026-10-16 23:10
+ * @since 4.0.1
+ */
+public final class ClassLoaderMetrics implements PluginClassLoaderMXBean {
+
+    /**
+     * 是否将统计注册到JMX的系统属性，设置为true时注册，默认不注册
+     */
+    public static final String JMX_PROPERTY = "plugin.loader.metrics.jmx";
+
+    /**
+     * JMX ObjectName的domain
+     */
+    public static final String JMX_DOMAIN = "com.github.joekerouac.plugin.loader";
+
+    private static final ClassLoaderListener[] NO_LISTENERS = new ClassLoaderListener[0];
+
+    private static final AtomicInteger ID = new AtomicInteger();
+
+    private final LongAdder[] classLoads = new LongAdder[ClassLoadSource.values().length];
+
+    private final LatencyHistogram[] classLoadLatencies = new LatencyHistogram[ClassLoadSource.values().length];
+
+    private final LongAdder classNotFound = new LongAdder();
+
+    private final LatencyHistogram lockWait = new LatencyHistogram();
+
+    private final LongAdder resourceMisses = new LongAdder();
+
+    private final LatencyHistogram resourceLookups = new LatencyHistogram();
+
+    private final LongAdder bytesRead = new LongAdder();
+
+    private final LongAdder bytesInflated = new LongAdder();
+
+    private final LongAdder nestedJarsOpened = new LongAdder();
+
+    private volatile ClassLoaderListener[] listeners = NO_LISTENERS;
+
+    private volatile ObjectName objectName;
+
+    public ClassLoaderMetrics() {
+        for (int i = 0; i < classLoads.length; i++) {
+            classLoads[i] = new LongAdder();
+            classLoadLatencies[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * 添加监听器
+     *
+     * @param listener
+     *            监听器
+     */
+    public synchronized void addListener(ClassLoaderListener listener) {
+        ClassLoaderListener[] newListeners = Arrays.copyOf(listeners, listeners.length + 1);
+        newListeners[listeners.length] = listener;
+        listeners = newListeners;
+    }
+
+    /**
+     * 移除监听器
+     *
+     * @param listener
+     *            监听器
+     */
+    public synchronized void removeListener(ClassLoaderListener listener) {
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] == listener) {
+                ClassLoaderListener[] newListeners = new ClassLoaderListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, newListeners, 0, i);
+                System.arraycopy(listeners, i + 1, newListeners, i, newListeners.length - i);
+                listeners = newListeners;
+                return;
+            }
+        }
+    }
+
+    /**
+     * 记录类加载成功
+     *
+     * @param name
+     *            类名
+     * @param source
+     *            加载类的加载器
+     * @param nanos
+     *            耗时，单位纳秒
+     */
+    public void classLoaded(String name, ClassLoadSource source, long nanos) {
+        classLoads[source.ordinal()].increment();
+        classLoadLatencies[source.ordinal()].record(nanos);
+        for (ClassLoaderListener listener : listeners) {
+            try {
+                listener.onClassLoaded(name, source, nanos);
+            } catch (RuntimeException e) {
+                // 监听器异常不影响类加载
+            }
+        }
+    }
+
+    /**
+     * 记录类不存在
+     *
+     * @param name
+     *            类名
+     * @param nanos
+     *            耗时，单位纳秒
+     */
+    public void classNotFound(String name, long nanos) {
+        classNotFound.increment();
+        for (ClassLoaderListener listener : listeners) {
+            try {
+                listener.onClassNotFound(name, nanos);
+            } catch (RuntimeException e) {
+                // 监听器异常不影响类加载
+            }
+        }
+    }
+
+    /**
+     * 记录等待类加载锁的时间
+     *
+     * @param name
+     *            类名
+     * @param nanos
+     *            等待时间，单位纳秒
+     */
+    public void lockWait(String name, long nanos) {
+        lockWait.record(nanos);
+        for (ClassLoaderListener listener : listeners) {
+            try {
+                listener.onLockWait(name, nanos);
+            } catch (RuntimeException e) {
+                // 监听器异常不影响类加载
+            }
+        }
+    }
+
+    /**
+     * 记录读取类的字节码
+     *
+     * @param name
+     *            类名
+     * @param read
+     *            从jar中读取的字节数
+     * @param inflated
+     *            解压得到的字节数，未压缩时为0
+     */
+    public void classBytesRead(String name, long read, long inflated) {
+        bytesRead.add(read);
+        bytesInflated.add(inflated);
+        for (ClassLoaderListener listener : listeners) {
+            try {
+                listener.onClassBytesRead(name, read, inflated);
+            } catch (RuntimeException e) {
+                // 监听器异常不影响类加载
+            }
+        }
+    }
+
+    /**
+     * 记录在class path上查找资源
+     *
+     * @param name
+     *            资源名
+     * @param found
+     *            是否找到
+     * @param nanos
+     *            耗时，单位纳秒
+     */
+    public void resourceLookup(String name, boolean found, long nanos) {
+        resourceLookups.record(nanos);
+        if (!found) {
+            resourceMisses.increment();
+        }
+        for (ClassLoaderListener listener : listeners) {
+            try {
+                listener.onResourceLookup(name, found, nanos);
+            } catch (RuntimeException e) {
+                // 监听器异常不影响资源查找
+            }
+        }
+    }
+
+    /**
+     * 记录打开嵌套jar
+     *
+     * @param url
+     *            嵌套jar的url
+     */
+    public void nestedJarOpened(URL url) {
+        nestedJarsOpened.increment();
+        for (ClassLoaderListener listener : listeners) {
+            try {
+                listener.onNestedJarOpened(url);
+            } catch (RuntimeException e) {
+                // 监听器异常不影响打开jar
+            }
+        }
+    }
+
+    /**
+     * 获取指定加载器加载类的耗时直方图
+     *
+     * @param source
+     *            加载类的加载器
+     * @return 耗时直方图
+     */
+    public LatencyHistogram getClassLoadLatency(ClassLoadSource source) {
+        return classLoadLatencies[source.ordinal()];
+    }
+
+    /**
+     * 获取等待类加载锁的时间直方图
+     *
+     * @return 等待时间直方图
+     */
+    public LatencyHistogram getLockWaitLatency() {
+        return lockWait;
+    }
+
+    /**
+     * 获取查找资源的耗时直方图
+     *
+     * @return 耗时直方图
+     */
+    public LatencyHistogram getResourceLookupLatency() {
+        return resourceLookups;
+    }
+
+    @Override
+    public long getExtClassLoadCount() {
+        return classLoads[ClassLoadSource.EXT.ordinal()].sum();
+    }
+
+    @Override
+    public long getParentClassLoadCount() {
+        return classLoads[ClassLoadSource.PARENT.ordinal()].sum();
+    }
+
+    @Override
+    public long getChildClassLoadCount() {
+        return classLoads[ClassLoadSource.CHILD.ordinal()].sum();
+    }
+
+    @Override
+    public long getClassNotFoundCount() {
+        return classNotFound.sum();
+    }
+
+    @Override
+    public long getChildClassLoadNanos() {
+        return getClassLoadLatency(ClassLoadSource.CHILD).getTotalNanos();
+    }
+
+    @Override
+    public long getChildClassLoadP99Nanos() {
+        return getClassLoadLatency(ClassLoadSource.CHILD).getQuantile(0.99);
+    }
+
+    @Override
+    public long[] getChildClassLoadHistogram() {
+        return getClassLoadLatency(ClassLoadSource.CHILD).getBuckets();
+    }
+
+    @Override
+    public long getLockWaitNanos() {
+        return lockWait.getTotalNanos();
+    }
+
+    @Override
+    public long getLockWaitP99Nanos() {
+        return lockWait.getQuantile(0.99);
+    }
+
+    @Override
+    public long[] getLockWaitHistogram() {
+        return lockWait.getBuckets();
+    }
+
+    @Override
+    public long getResourceLookupCount() {
+        return resourceLookups.getCount();
+    }
+
+    @Override
+    public long getResourceMissCount() {
+        return resourceMisses.sum();
+    }
+
+    @Override
+    public long getResourceLookupP99Nanos() {
+        return resourceLookups.getQuantile(0.99);
+    }
+
+    @Override
+    public long[] getResourceLookupHistogram() {
+        return resourceLookups.getBuckets();
+    }
+
+    @Override
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    @Override
+    public long getBytesInflated() {
+        return bytesInflated.sum();
+    }
+
+    @Override
+    public long getNestedJarOpenCount() {
+        return nestedJarsOpened.sum();
+    }
+
+    /**
+     * 如果系统属性{@link #JMX_PROPERTY}为true则注册到platform MBeanServer，ObjectName为
+     * com.github.joekerouac.plugin.loader:type=PluginClassLoader,id=序号
+     *
+     * @return 注册的ObjectName，没有注册或者注册失败时返回null
+     */
+    public ObjectName registerMBeanIfEnabled() {
+        if (!Boolean.parseBoolean(System.getProperty(JMX_PROPERTY))) {
+            return null;
+        }
+
+        try {
+            ObjectName name = new ObjectName(JMX_DOMAIN + ":type=PluginClassLoader,id=" + ID.incrementAndGet());
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+            objectName = name;
+            return name;
+        } catch (JMException | RuntimeException e) {
+            // 统计只用于观测，注册失败不影响加载器
+            return null;
+        }
+    }
+
+    /**
+     * 从platform MBeanServer中注销
+     */
+    public void unregisterMBean() {
+        ObjectName name = objectName;
+        if (name == null) {
+            return;
+        }
+
+        objectName = null;
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (JMException | RuntimeException e) {
+            // 忽略异常
+        }
+    }
+
+}
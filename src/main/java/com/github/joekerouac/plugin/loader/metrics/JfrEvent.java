@@ -0,0 +1,466 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.joekerouac.plugin.loader.metrics;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 类加载相关的JFR自定义事件，JFR的类全部通过反射访问，不引入编译依赖，运行在没有JFR的JDK上时所有事件都不会产生
+ * <p>
+ * 通过JFR的FlightRecorderListener跟踪是否有正在运行的recording，没有recording时{@link #begin()}只读取volatile变量并返回null，
+ * 调用方判断返回值不为null时才调用{@link #commit(Object, Object...)}，因此没有recording时不会创建事件也不会分配参数数组；
+ * 设置系统属性{@link #PROPERTY}为false时完全不访问JFR
+ * <p>
+ * 注册FlightRecorderListener需要生成代理类并初始化JFR内部的结构，耗时几十到上百毫秒，所以只有JFR已经初始化（通过
+ * -XX:StartFlightRecording启动了recording，或者运行时通过jcmd等方式启动过recording）时才注册：类初始化时JFR已经初始化则同步注册，
+ * 保证不丢失启动阶段的事件；否则没有recording时{@link #begin()}每调用{@link #CHECK_INTERVAL}次检查一次JFR是否已经初始化，
+ * 初始化后在后台线程中注册
+ * <p>
+ * 使用示例：
+ *
+ * <pre>
+ * Object event = JfrEvent.CLASS_DEFINE.begin();
+ * // 定义类
+ * if (event != null) {
+ *     JfrEvent.CLASS_DEFINE.commit(event, name, jar, bytes);
+ * }
+ * </pre>
+ *
+ * @author JoeKerouac
+ * @date 2026-10-16 23:40
+ * @since 4.0.1
+ */
+public final class JfrEvent {
+
+    /**
+     * 是否启用JFR事件的系统属性，设置为false时禁用，默认启用（只有存在正在运行的recording时才会产生事件）
+     */
+    public static final String PROPERTY = "plugin.loader.jfr";
+
+    /**
+     * 事件名前缀
+     */
+    private static final String NAME_PREFIX = "com.github.joekerouac.plugin.loader.";
+
+    /**
+     * 事件分类
+     */
+    private static final String[] CATEGORY = {"Plugin Loader"};
+
+    /**
+     * 没有recording时检查JFR是否已经初始化的间隔（begin调用次数），必须是2的幂
+     */
+    private static final int CHECK_INTERVAL = 64;
+
+    /**
+     * 插件加载器定义类，字段：类名、类所在jar、类字节码大小（未知时为-1）
+     */
+    public static final JfrEvent CLASS_DEFINE = new JfrEvent("ClassDefine", "Plugin Class Define",
+        "Class defined by a plugin class loader", null, new Field(String.class, "className", "Class Name", false),
+        new Field(String.class, "jar", "Jar", false), new Field(long.class, "bytes", "Bytes", true));
+
+    /**
+     * 插件加载器加载类（没有被findLoadedClass命中），字段：类名、委派规则、最终加载类的加载器（EXT、PARENT、CHILD，加载不到时为
+     * NOT_FOUND）
+     */
+    public static final JfrEvent CLASS_LOAD = new JfrEvent("ClassLoad", "Plugin Class Load",
+        "Class loading delegation decision of a plugin class loader", null,
+        new Field(String.class, "className", "Class Name", false),
+        new Field(String.class, "delegation", "Delegation", false), new Field(String.class, "source", "Source", false));
+
+    /**
+     * 打开嵌套jar，字段：外层jar、嵌套jar的entry名、嵌套jar的entry数量
+     */
+    public static final JfrEvent NESTED_JAR_OPEN = new JfrEvent("NestedJarOpen", "Nested Jar Open",
+        "Nested jar opened from an outer jar", null, new Field(String.class, "jar", "Jar", false),
+        new Field(String.class, "entry", "Entry", false), new Field(int.class, "entries", "Entries", false));
+
+    /**
+     * 解析jar的central directory，字段：jar、entry数量
+     */
+    public static final JfrEvent CENTRAL_DIRECTORY_PARSE = new JfrEvent("CentralDirectoryParse",
+        "Central Directory Parse", "Central directory of a jar parsed", null,
+        new Field(String.class, "jar", "Jar", false), new Field(int.class, "entries", "Entries", false));
+
+    /**
+     * 慢的资源查找（耗时超过1ms，可以通过JFR配置调整），字段：资源名、查找到的url（没有找到时为null）
+     */
+    public static final JfrEvent RESOURCE_LOOKUP = new JfrEvent("ResourceLookup", "Plugin Resource Lookup",
+        "Slow resource lookup of a plugin class loader", "1 ms", new Field(String.class, "resourceName", "Name", false),
+        new Field(String.class, "url", "URL", false));
+
+    /**
+     * 是否有正在运行的recording，由FlightRecorderListener更新
+     */
+    private static volatile boolean recording;
+
+    /**
+     * 是否已经不需要再检查JFR是否初始化（已经注册了监听器、JFR不可用或者被禁用）
+     */
+    private static volatile boolean settled;
+
+    /**
+     * 没有recording时{@link #begin()}的调用次数，多线程并发累加时丢失计数不影响正确性
+     */
+    private static int idleCalls;
+
+    static {
+        Jfr.init();
+    }
+
+    private final String name;
+
+    private final String label;
+
+    private final String description;
+
+    private final String threshold;
+
+    private final Field[] fields;
+
+    /**
+     * JFR的EventFactory，第一次产生事件时创建
+     */
+    private volatile Object factory;
+
+    /**
+     * 创建EventFactory失败后不再重试
+     */
+    private volatile boolean broken;
+
+    private JfrEvent(String name, String label, String description, String threshold, Field... fields) {
+        this.name = NAME_PREFIX + name;
+        this.label = label;
+        this.description = description;
+        this.threshold = threshold;
+        this.fields = fields;
+    }
+
+    /**
+     * 开始一个事件
+     *
+     * @return 事件，没有正在运行的recording、事件未启用或者JFR不可用时返回null
+     */
+    public Object begin() {
+        if (!recording) {
+            if (!settled && (++idleCalls & (CHECK_INTERVAL - 1)) == 0) {
+                Jfr.registerIfInitialized();
+            }
+            return null;
+        }
+
+        Object eventFactory = getFactory();
+        if (eventFactory == null) {
+            return null;
+        }
+
+        try {
+            Object event = Jfr.newEvent.invoke(eventFactory);
+            if (!(boolean)Jfr.isEnabled.invoke(event)) {
+                return null;
+            }
+            Jfr.begin.invoke(event);
+            return event;
+        } catch (Throwable e) {
+            // MethodHandle声明抛出Throwable，事件只用于观测，失败时不产生事件
+            return null;
+        }
+    }
+
+    /**
+     * 结束并提交事件，耗时未达到阈值时不提交
+     *
+     * @param event
+     *            {@link #begin()}返回的事件，不能为null
+     * @param values
+     *            字段值，顺序与事件定义的字段顺序一致
+     */
+    public void commit(Object event, Object... values) {
+        try {
+            Jfr.end.invoke(event);
+            if (!(boolean)Jfr.shouldCommit.invoke(event)) {
+                return;
+            }
+            for (int i = 0; i < values.length; i++) {
+                Jfr.set.invoke(event, i, values[i]);
+            }
+            Jfr.commit.invoke(event);
+        } catch (Throwable e) {
+            // 事件只用于观测，提交失败不影响调用方
+        }
+    }
+
+    /**
+     * 获取EventFactory，不存在时创建
+     *
+     * @return EventFactory，创建失败时返回null
+     */
+    private Object getFactory() {
+        Object eventFactory = factory;
+        if (eventFactory != null || broken) {
+            return eventFactory;
+        }
+
+        synchronized (this) {
+            if (factory == null && !broken) {
+                try {
+                    factory = Jfr.createFactory(this);
+                } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+                    broken = true;
+                }
+            }
+            return factory;
+        }
+    }
+
+    /**
+     * 事件字段定义
+     */
+    private static final class Field {
+
+        private final Class<?> type;
+
+        private final String name;
+
+        private final String label;
+
+        /**
+         * 字段是否是字节数
+         */
+        private final boolean dataAmount;
+
+        private Field(Class<?> type, String name, String label, boolean dataAmount) {
+            this.type = type;
+            this.name = name;
+            this.label = label;
+            this.dataAmount = dataAmount;
+        }
+
+    }
+
+    /**
+     * JFR的反射入口，同时是FlightRecorderListener代理的InvocationHandler；事件的方法使用MethodHandle调用，避免事件的栈顶出现反射的
+     * 栈帧，MethodHandle在第一次产生事件时才创建
+     */
+    private static final class Jfr implements InvocationHandler, Runnable {
+
+        private static MethodHandle newEvent;
+
+        private static MethodHandle isEnabled;
+
+        private static MethodHandle begin;
+
+        private static MethodHandle end;
+
+        private static MethodHandle shouldCommit;
+
+        private static MethodHandle set;
+
+        private static MethodHandle commit;
+
+        private static Class<?> recorderClass;
+
+        private static Method isInitialized;
+
+        private Method getRecordings;
+
+        private Method getState;
+
+        /**
+         * 初始化，JFR已经初始化时同步注册监听器，JFR不可用或者被禁用时不再检查
+         */
+        static synchronized void init() {
+            if ("false".equalsIgnoreCase(System.getProperty(PROPERTY))) {
+                settled = true;
+                return;
+            }
+
+            try {
+                recorderClass = Class.forName("jdk.jfr.FlightRecorder");
+                isInitialized = recorderClass.getMethod("isInitialized");
+                if ((Boolean)isInitialized.invoke(null)) {
+                    settled = true;
+                    new Jfr().run();
+                }
+            } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+                // JFR不可用，不产生事件
+                settled = true;
+            }
+        }
+
+        /**
+         * JFR已经初始化时在后台线程中注册监听器，注册前产生的事件会丢失
+         */
+        static synchronized void registerIfInitialized() {
+            if (settled) {
+                return;
+            }
+
+            try {
+                if ((Boolean)isInitialized.invoke(null)) {
+                    settled = true;
+                    Thread thread = new Thread(new Jfr(), "plugin-loader-jfr-listener");
+                    thread.setDaemon(true);
+                    thread.start();
+                }
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                settled = true;
+            }
+        }
+
+        /**
+         * 注册FlightRecorderListener
+         */
+        @Override
+        public void run() {
+            try {
+                getRecordings = recorderClass.getMethod("getRecordings");
+                getState = Class.forName("jdk.jfr.Recording").getMethod("getState");
+                Class<?> listenerClass = Class.forName("jdk.jfr.FlightRecorderListener");
+                ClassLoader loader = JfrEvent.class.getClassLoader();
+                Object listener = Proxy.newProxyInstance(loader == null ? ClassLoader.getSystemClassLoader() : loader,
+                    new Class<?>[] {listenerClass}, this);
+                // 注册时如果JFR已经初始化，JFR会立即回调recorderInitialized
+                recorderClass.getMethod("addListener", listenerClass).invoke(null, listener);
+            } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+                // JFR不可用，不产生事件
+            }
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "recorderInitialized":
+                    updateRecording(args[0]);
+                    return null;
+                case "recordingStateChanged":
+                    updateRecording(recorderClass.getMethod("getFlightRecorder").invoke(null));
+                    return null;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return JfrEvent.class.getName() + "$Listener";
+                default:
+                    return null;
+            }
+        }
+
+        /**
+         * 重新计算是否有正在运行的recording
+         *
+         * @param flightRecorder
+         *            FlightRecorder
+         */
+        private void updateRecording(Object flightRecorder) {
+            try {
+                boolean running = false;
+                for (Object recordingObj : (List<?>)getRecordings.invoke(flightRecorder)) {
+                    if ("RUNNING".equals(String.valueOf(getState.invoke(recordingObj)))) {
+                        running = true;
+                        break;
+                    }
+                }
+                recording = running;
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                recording = false;
+            }
+        }
+
+        /**
+         * 创建事件的EventFactory
+         *
+         * @param event
+         *            事件定义
+         * @return EventFactory
+         * @throws ReflectiveOperationException
+         *             反射异常
+         */
+        static Object createFactory(JfrEvent event) throws ReflectiveOperationException {
+            initMethodHandles();
+
+            List<Object> annotations = new ArrayList<>();
+            annotations.add(annotation("jdk.jfr.Name", event.name));
+            annotations.add(annotation("jdk.jfr.Label", event.label));
+            annotations.add(annotation("jdk.jfr.Description", event.description));
+            annotations.add(annotation("jdk.jfr.Category", CATEGORY));
+            if (event.threshold != null) {
+                annotations.add(annotation("jdk.jfr.Threshold", event.threshold));
+            }
+
+            Constructor<?> valueDescriptor =
+                Class.forName("jdk.jfr.ValueDescriptor").getConstructor(Class.class, String.class, List.class);
+            List<Object> fields = new ArrayList<>();
+            for (Field field : event.fields) {
+                List<Object> fieldAnnotations = new ArrayList<>();
+                fieldAnnotations.add(annotation("jdk.jfr.Label", field.label));
+                if (field.dataAmount) {
+                    fieldAnnotations.add(annotation("jdk.jfr.DataAmount", "BYTES"));
+                }
+                fields.add(valueDescriptor.newInstance(field.type, field.name, fieldAnnotations));
+            }
+
+            return Class.forName("jdk.jfr.EventFactory").getMethod("create", List.class, List.class).invoke(null,
+                Collections.unmodifiableList(annotations), Collections.unmodifiableList(fields));
+        }
+
+        /**
+         * 创建调用事件方法的MethodHandle
+         *
+         * @throws ReflectiveOperationException
+         *             反射异常
+         */
+        private static synchronized void initMethodHandles() throws ReflectiveOperationException {
+            if (commit != null) {
+                return;
+            }
+
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> eventClass = Class.forName("jdk.jfr.Event");
+            newEvent = lookup.unreflect(Class.forName("jdk.jfr.EventFactory").getMethod("newEvent"));
+            isEnabled = lookup.unreflect(eventClass.getMethod("isEnabled"));
+            begin = lookup.unreflect(eventClass.getMethod("begin"));
+            end = lookup.unreflect(eventClass.getMethod("end"));
+            shouldCommit = lookup.unreflect(eventClass.getMethod("shouldCommit"));
+            set = lookup.unreflect(eventClass.getMethod("set", int.class, Object.class));
+            commit = lookup.unreflect(eventClass.getMethod("commit"));
+        }
+
+        /**
+         * 创建jdk.jfr.AnnotationElement
+         *
+         * @param type
+         *            注解类名
+         * @param value
+         *            注解的value
+         * @return AnnotationElement
+         * @throws ReflectiveOperationException
+         *             反射异常
+         */
+        private static Object annotation(String type, Object value) throws ReflectiveOperationException {
+            return Class.forName("jdk.jfr.AnnotationElement").getConstructor(Class.class, Object.class)
+                .newInstance(Class.forName(type), value);
+        }
+
+    }
+
+}
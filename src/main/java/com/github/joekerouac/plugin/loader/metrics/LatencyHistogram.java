@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.joekerouac.plugin.loader.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按照2的幂分桶的耗时直方图，第i个桶统计[2^i, 2^(i+1))纳秒的样本（第0个桶同时统计0），记录一次只需要一次原子加和两次LongAdder累加
+ *
+ * @author JoeKerouac
+ * @date 2026-10-16 23:10
+ * @since 4.0.1
+ */
+public final class LatencyHistogram {
+
+    /**
+     * 桶数量
+     */
+    public static final int BUCKETS = 64;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder totalNanos = new LongAdder();
+
+    /**
+     * 记录一次耗时
+     *
+     * @param nanos
+     *            耗时，单位纳秒，小于0时按照0处理
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        buckets.incrementAndGet(63 - Long.numberOfLeadingZeros(value | 1));
+        count.increment();
+        totalNanos.add(value);
+    }
+
+    /**
+     * 获取样本数量
+     *
+     * @return 样本数量
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * 获取所有样本的耗时之和
+     *
+     * @return 耗时之和，单位纳秒
+     */
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    /**
+     * 获取每个桶的样本数量快照
+     *
+     * @return 每个桶的样本数量，长度为{@link #BUCKETS}
+     */
+    public long[] getBuckets() {
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = buckets.get(i);
+        }
+        return snapshot;
+    }
+
+    /**
+     * 估算分位数，返回分位数所在桶的上界，误差不超过一倍
+     *
+     * @param quantile
+     *            分位，取值范围[0, 1]，例如0.99
+     * @return 分位数的上界，单位纳秒，没有样本时返回0
+     */
+    public long getQuantile(double quantile) {
+        long[] snapshot = getBuckets();
+        long total = 0;
+        for (long value : snapshot) {
+            total += value;
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long target = Math.max(1, (long)Math.ceil(Math.min(1, Math.max(0, quantile)) * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= target) {
+                return i == BUCKETS - 1 ? Long.MAX_VALUE : (1L << (i + 1)) - 1;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+}
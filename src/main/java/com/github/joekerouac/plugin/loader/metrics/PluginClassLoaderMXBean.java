@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.joekerouac.plugin.loader.metrics;
+
+/**
+ * 插件类加载器的JMX接口，耗时单位都是纳秒，直方图的含义见{@link LatencyHistogram}
+ *
+ * @author JoeKerouac
+ * @date 2026-10-16 23:10
+ * @since 4.0.1
+ */
+public interface PluginClassLoaderMXBean {
+
+    /**
+     * 获取由extClassLoader加载的类数量
+     *
+     * @return 类数量
+     */
+    long getExtClassLoadCount();
+
+    /**
+     * 获取由父加载器加载的类数量
+     *
+     * @return 类数量
+     */
+    long getParentClassLoadCount();
+
+    /**
+     * 获取由插件加载器自己定义的类数量
+     *
+     * @return 类数量
+     */
+    long getChildClassLoadCount();
+
+    /**
+     * 获取加载失败（类不存在）的次数
+     *
+     * @return 失败次数
+     */
+    long getClassNotFoundCount();
+
+    /**
+     * 获取插件加载器定义类的总耗时
+     *
+     * @return 总耗时
+     */
+    long getChildClassLoadNanos();
+
+    /**
+     * 获取插件加载器定义类耗时的P99
+     *
+     * @return P99
+     */
+    long getChildClassLoadP99Nanos();
+
+    /**
+     * 获取插件加载器定义类耗时的直方图
+     *
+     * @return 直方图
+     */
+    long[] getChildClassLoadHistogram();
+
+    /**
+     * 获取等待类加载锁的总时间
+     *
+     * @return 总时间
+     */
+    long getLockWaitNanos();
+
+    /**
+     * 获取等待类加载锁时间的P99
+     *
+     * @return P99
+     */
+    long getLockWaitP99Nanos();
+
+    /**
+     * 获取等待类加载锁时间的直方图
+     *
+     * @return 直方图
+     */
+    long[] getLockWaitHistogram();
+
+    /**
+     * 获取在class path上查找资源的次数
+     *
+     * @return 查找次数
+     */
+    long getResourceLookupCount();
+
+    /**
+     * 获取在class path上没有找到资源的次数
+     *
+     * @return 没有找到的次数
+     */
+    long getResourceMissCount();
+
+    /**
+     * 获取查找资源耗时的P99
+     *
+     * @return P99
+     */
+    long getResourceLookupP99Nanos();
+
+    /**
+     * 获取查找资源耗时的直方图
+     *
+     * @return 直方图
+     */
+    long[] getResourceLookupHistogram();
+
+    /**
+     * 获取定义类时从jar中读取的字节数
+     *
+     * @return 字节数
+     */
+    long getBytesRead();
+
+    /**
+     * 获取定义类时解压得到的字节数
+     *
+     * @return 字节数
+     */
+    long getBytesInflated();
+
+    /**
+     * 获取打开嵌套jar的次数，包括构建class path时打开的以及之后加载类、查找资源时真正创建（没有命中缓存）的嵌套jar，不区分是否使用
+     * class path索引
+     *
+     * @return 打开次数
+     */
+    long getNestedJarOpenCount();
+
+}
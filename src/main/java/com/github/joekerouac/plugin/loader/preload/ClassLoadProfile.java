@@ -0,0 +1,344 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.joekerouac.plugin.loader.preload;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * 类加载profile，按照加载顺序保存启动后一段时间内由{@link com.github.joekerouac.plugin.loader.PluginClassLoader}定义的类、定义类的线程以及
+ * 距离开始记录的时间
+ * <p>
+ * 文件格式（大端序）：
+ *
+ * <pre>
+ * magic(int) version(int) key长度(int) key(utf8)
+ * 线程数量(int) 线程名(utf)...
+ * 记录数量(int) 每条记录: 线程序号(unsigned short) 时间(int，毫秒) 与上一个类名相同前缀的长度(unsigned short) 剩余部分(utf)
+ * </pre>
+ *
+ * 相邻的类通常在同一个包中，类名只保存与上一个类名不同的部分；key由顶层jar的url以及所在文件的大小、修改时间组成，插件升级后key变化，
+ * 旧的profile不再使用
+ *
+ * @author JoeKerouac
+ * @date 2026-10-16 21:30
+ * @since 4.0.1
+ */
+public final class ClassLoadProfile {
+
+    /**
+     * profile文件所在目录的系统属性，不设置时不记录也不预加载
+     */
+    public static final String DIR_PROPERTY = "plugin.loader.preload.dir";
+
+    private static final int MAGIC = 0x504C5052;
+
+    private static final int VERSION = 2;
+
+    /**
+     * 最多记录的线程数量，线程序号使用unsigned short保存
+     */
+    static final int MAX_THREADS = 0xFFFF;
+
+    /**
+     * key的最大长度，用于检查文件是否损坏
+     */
+    private static final int MAX_KEY_LENGTH = 64 * 1024 * 1024;
+
+    private final String key;
+
+    private final List<String> threadNames;
+
+    private final int[] threads;
+
+    private final int[] times;
+
+    private final String[] classNames;
+
+    /**
+     * 创建profile
+     *
+     * @param key
+     *            profile对应的class path的key，见{@link #createKey(List)}
+     * @param threadNames
+     *            线程名
+     * @param threads
+     *            每条记录的线程序号
+     * @param times
+     *            每条记录距离开始记录的时间，单位毫秒
+     * @param classNames
+     *            每条记录的类名
+     */
+    ClassLoadProfile(String key, List<String> threadNames, int[] threads, int[] times, String[] classNames) {
+        this.key = key;
+        this.threadNames = threadNames;
+        this.threads = threads;
+        this.times = times;
+        this.classNames = classNames;
+    }
+
+    /**
+     * 获取class path对应的profile文件，同一组url总是对应同一个文件
+     *
+     * @param dir
+     *            profile文件所在目录
+     * @param topUrls
+     *            顶层jar的url
+     * @return profile文件
+     */
+    public static File getFile(File dir, List<URL> topUrls) {
+        CRC32 crc = new CRC32();
+        for (URL url : topUrls) {
+            crc.update(url.toExternalForm().getBytes(StandardCharsets.UTF_8));
+            crc.update('\n');
+        }
+        return new File(dir, String.format("preload-%08x.prof", crc.getValue()));
+    }
+
+    /**
+     * 创建profile的key，key由每个顶层jar的url以及所在文件的大小、修改时间组成，jar被替换后key随之变化
+     *
+     * @param topUrls
+     *            顶层jar的url
+     * @return key
+     */
+    public static String createKey(List<URL> topUrls) {
+        StringBuilder key = new StringBuilder();
+        for (URL url : topUrls) {
+            key.append(url.toExternalForm());
+            File file = getLocalFile(url);
+            if (file != null) {
+                key.append('|').append(file.length()).append('|').append(file.lastModified());
+            }
+            key.append('\n');
+        }
+        return key.toString();
+    }
+
+    /**
+     * 获取url所在的本地文件，jar协议的url返回最外层的jar
+     *
+     * @param url
+     *            url
+     * @return 本地文件，不是本地文件时返回null
+     */
+    private static File getLocalFile(URL url) {
+        String spec = url.toExternalForm();
+        if (spec.startsWith("jar:")) {
+            int separator = spec.indexOf("!/");
+            spec = spec.substring("jar:".length(), separator < 0 ? spec.length() : separator);
+        }
+        if (!spec.startsWith("file:")) {
+            return null;
+        }
+        try {
+            return new File(URI.create(spec));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 读取profile
+     *
+     * @param file
+     *            profile文件
+     * @return profile
+     * @throws IOException
+     *             文件不存在、读取失败或者格式不正确时抛出
+     */
+    public static ClassLoadProfile read(File file) throws IOException {
+        try (DataInputStream in =
+            new DataInputStream(new BufferedInputStream(new FileInputStream(file), 64 * 1024))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException(String.format("不是类加载profile文件: %s", file));
+            }
+            int keyLength = in.readInt();
+            if (keyLength < 0 || keyLength > MAX_KEY_LENGTH) {
+                throw new IOException(String.format("类加载profile文件损坏: %s", file));
+            }
+            byte[] key = new byte[keyLength];
+            in.readFully(key);
+
+            int threadCount = in.readInt();
+            if (threadCount < 0 || threadCount > MAX_THREADS) {
+                throw new IOException(String.format("类加载profile文件损坏: %s", file));
+            }
+            List<String> threadNames = new ArrayList<>(threadCount);
+            for (int i = 0; i < threadCount; i++) {
+                threadNames.add(in.readUTF());
+            }
+
+            int size = in.readInt();
+            if (size < 0) {
+                throw new IOException(String.format("类加载profile文件损坏: %s", file));
+            }
+            int[] threads = new int[size];
+            int[] times = new int[size];
+            String[] classNames = new String[size];
+            String previous = "";
+            for (int i = 0; i < size; i++) {
+                threads[i] = in.readUnsignedShort();
+                times[i] = in.readInt();
+                int prefix = in.readUnsignedShort();
+                if (threads[i] >= threadCount || prefix > previous.length()) {
+                    throw new IOException(String.format("类加载profile文件损坏: %s", file));
+                }
+                previous = previous.substring(0, prefix).concat(in.readUTF());
+                classNames[i] = previous;
+            }
+            return new ClassLoadProfile(new String(key, StandardCharsets.UTF_8),
+                Collections.unmodifiableList(threadNames), threads, times, classNames);
+        }
+    }
+
+    /**
+     * 写入profile，先写入临时文件再替换，写入失败时不会破坏已有的profile
+     *
+     * @param file
+     *            profile文件
+     * @throws IOException
+     *             写入失败时抛出
+     */
+    public void write(File file) throws IOException {
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException(String.format("无法创建目录: %s", dir));
+        }
+
+        File tmp = File.createTempFile(file.getName(), ".tmp", dir);
+        try {
+            try (DataOutputStream out =
+                new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), 64 * 1024))) {
+                write(out);
+            }
+
+            try {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            if (tmp.exists() && !tmp.delete()) {
+                tmp.deleteOnExit();
+            }
+        }
+    }
+
+    private void write(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        // class path中jar很多时key可能超过writeUTF的64K限制
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(keyBytes.length);
+        out.write(keyBytes);
+        out.writeInt(threadNames.size());
+        for (String threadName : threadNames) {
+            out.writeUTF(threadName);
+        }
+
+        out.writeInt(classNames.length);
+        String previous = "";
+        for (int i = 0; i < classNames.length; i++) {
+            String className = classNames[i];
+            int prefix = 0;
+            int max = Math.min(Math.min(previous.length(), className.length()), 0xFFFF);
+            while (prefix < max && previous.charAt(prefix) == className.charAt(prefix)) {
+                prefix++;
+            }
+            out.writeShort(threads[i]);
+            out.writeInt(times[i]);
+            out.writeShort(prefix);
+            out.writeUTF(className.substring(prefix));
+            previous = className;
+        }
+    }
+
+    /**
+     * 获取profile对应的class path的key
+     *
+     * @return key
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * 获取记录数量
+     *
+     * @return 记录数量
+     */
+    public int size() {
+        return classNames.length;
+    }
+
+    /**
+     * 获取所有类名，按照加载顺序排列
+     *
+     * @return 类名
+     */
+    public List<String> getClassNames() {
+        return Collections.unmodifiableList(Arrays.asList(classNames));
+    }
+
+    /**
+     * 获取记录的类名
+     *
+     * @param index
+     *            记录序号
+     * @return 类名
+     */
+    public String getClassName(int index) {
+        return classNames[index];
+    }
+
+    /**
+     * 获取定义记录中的类的线程名
+     *
+     * @param index
+     *            记录序号
+     * @return 线程名
+     */
+    public String getThreadName(int index) {
+        return threadNames.get(threads[index]);
+    }
+
+    /**
+     * 获取记录中的类距离开始记录的时间
+     *
+     * @param index
+     *            记录序号
+     * @return 时间，单位毫秒
+     */
+    public int getTime(int index) {
+        return times[index];
+    }
+
+}
@@ -0,0 +1,225 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.joekerouac.plugin.loader.preload;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 类加载记录器，记录开始后一段时间内定义的类以及定义类的线程，时间窗口结束、{@link #close()}或者JVM退出时将记录写入{@link ClassLoadProfile}
+ * <p>
+ * 记录只是将类名放入无锁队列，不会在加载类的线程（持有类加载锁）上写文件；时间窗口结束后由后台daemon线程写入，写文件只会发生一次
+ *
+ * @author JoeKerouac
+ * @date 2026-10-16 21:30
+ * @since 4.0.1
+ */
+public final class ClassLoadRecorder {
+
+    /**
+     * 记录时长的系统属性，单位秒，默认60
+     */
+    public static final String DURATION_PROPERTY = "plugin.loader.preload.record.seconds";
+
+    private static final long DEFAULT_DURATION = 60;
+
+    private final File file;
+
+    private final String key;
+
+    private final long startNanos;
+
+    private final long durationNanos;
+
+    private final Queue<Record> records = new ConcurrentLinkedQueue<>();
+
+    private final AtomicBoolean finished = new AtomicBoolean();
+
+    private final Thread shutdownHook;
+
+    private final Thread flushThread;
+
+    /**
+     * 创建记录器并开始记录
+     *
+     * @param file
+     *            profile文件
+     * @param key
+     *            profile对应的class path的key，见{@link ClassLoadProfile#createKey(java.util.List)}
+     * @param duration
+     *            记录时长
+     * @param unit
+     *            记录时长的单位
+     */
+    public ClassLoadRecorder(File file, String key, long duration, TimeUnit unit) {
+        this.file = file;
+        this.key = key;
+        this.startNanos = System.nanoTime();
+        this.durationNanos = unit.toNanos(duration);
+        this.shutdownHook = new Thread(this::finish, "plugin-class-load-recorder");
+        try {
+            Runtime.getRuntime().addShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // JVM正在退出
+        }
+        this.flushThread = new Thread(this::flushLater, "plugin-class-load-recorder-flush");
+        this.flushThread.setDaemon(true);
+        this.flushThread.start();
+    }
+
+    /**
+     * 使用系统属性中配置的时长创建记录器
+     *
+     * @param file
+     *            profile文件
+     * @param key
+     *            profile对应的class path的key
+     * @return 记录器
+     */
+    public static ClassLoadRecorder create(File file, String key) {
+        return new ClassLoadRecorder(file, key, getConfiguredDuration(), TimeUnit.SECONDS);
+    }
+
+    /**
+     * 记录定义的类，只会放入队列，时间窗口结束后的调用直接忽略
+     *
+     * @param className
+     *            类名
+     */
+    public void record(String className) {
+        if (finished.get()) {
+            return;
+        }
+
+        long elapsed = System.nanoTime() - startNanos;
+        if (elapsed > durationNanos) {
+            return;
+        }
+        records.add(new Record(Thread.currentThread().getName(), className, TimeUnit.NANOSECONDS.toMillis(elapsed)));
+    }
+
+    /**
+     * 是否还在记录
+     *
+     * @return true表示还在记录
+     */
+    public boolean isRecording() {
+        return !finished.get() && System.nanoTime() - startNanos <= durationNanos;
+    }
+
+    /**
+     * 结束记录并写入profile，多次调用只会写入一次
+     */
+    public void close() {
+        finish();
+    }
+
+    private void flushLater() {
+        try {
+            TimeUnit.NANOSECONDS.sleep(durationNanos - (System.nanoTime() - startNanos));
+        } catch (InterruptedException e) {
+            // close或者shutdown hook已经写入
+            return;
+        }
+        finish();
+    }
+
+    private void finish() {
+        if (!finished.compareAndSet(false, true)) {
+            return;
+        }
+
+        if (Thread.currentThread() != flushThread) {
+            flushThread.interrupt();
+        }
+
+        if (Thread.currentThread() != shutdownHook) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException e) {
+                // JVM正在退出
+            }
+        }
+
+        try {
+            toProfile().write(file);
+        } catch (IOException | RuntimeException e) {
+            // profile只用于优化启动速度，写入失败时忽略，下次启动重新记录
+        }
+    }
+
+    private ClassLoadProfile toProfile() {
+        List<Record> list = new ArrayList<>(records);
+        Map<String, Integer> threadIndexes = new HashMap<>();
+        List<String> threadNames = new ArrayList<>();
+        int size = 0;
+        int[] threads = new int[list.size()];
+        int[] times = new int[list.size()];
+        String[] classNames = new String[list.size()];
+        for (Record record : list) {
+            Integer threadIndex = threadIndexes.get(record.threadName);
+            if (threadIndex == null) {
+                if (threadNames.size() >= ClassLoadProfile.MAX_THREADS) {
+                    continue;
+                }
+                threadIndex = threadNames.size();
+                threadIndexes.put(record.threadName, threadIndex);
+                threadNames.add(record.threadName);
+            }
+            threads[size] = threadIndex;
+            times[size] = (int)Math.min(record.time, Integer.MAX_VALUE);
+            classNames[size] = record.className;
+            size++;
+        }
+        return new ClassLoadProfile(key, threadNames, Arrays.copyOf(threads, size),
+            Arrays.copyOf(times, size), Arrays.copyOf(classNames, size));
+    }
+
+    private static long getConfiguredDuration() {
+        String duration = System.getProperty(DURATION_PROPERTY);
+        if (duration != null) {
+            try {
+                return Math.max(0, Long.parseLong(duration.trim()));
+            } catch (NumberFormatException e) {
+                // 使用默认值
+            }
+        }
+        return DEFAULT_DURATION;
+    }
+
+    private static final class Record {
+
+        private final String threadName;
+
+        private final String className;
+
+        private final long time;
+
+        private Record(String threadName, String className, long time) {
+            this.threadName = threadName;
+            this.className = className;
+            this.time = time;
+        }
+
+    }
+
+}
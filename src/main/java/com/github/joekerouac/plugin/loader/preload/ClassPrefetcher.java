@@ -0,0 +1,506 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.joekerouac.plugin.loader.preload;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * 基于常量池的类预取器：类被定义后解析其字节码常量池中的CONSTANT_Class，这些类通常很快就会被用到，将其中由本加载器加载的类放入有界队列，由
+ * 后台守护线程提前定义（不初始化）
+ * <p>
+ * 同一个类只会被放入队列一次；业务线程定义的类深度为0，预取线程定义的类深度为触发预取的类的深度加1，达到最大深度后不再继续预取
+ * <p>
+ * 命中：预取的类之后被业务线程通过loadClass请求，或者被业务线程定义的类引用（JVM解析本加载器定义的类的引用时不会调用loadClass）；预取的
+ * 类在命中之前都算作浪费，预取失败的类也算作浪费
+ *
+ * @author JoeKerouac
+ * @date 2026-10-16 22:40
+ * @since 4.0.1
+ */
+public final class ClassPrefetcher {
+
+    /**
+     * 是否启用预取的系统属性，设置为true时启用，默认不启用；只在使用class path索引时生效
+     */
+    public static final String PROPERTY = "plugin.loader.prefetch";
+
+    /**
+     * 预取最大深度的系统属性，默认2
+     */
+    public static final String DEPTH_PROPERTY = "plugin.loader.prefetch.depth";
+
+    /**
+     * 预取队列容量的系统属性，默认1024，队列满时丢弃新的预取
+     */
+    public static final String QUEUE_SIZE_PROPERTY = "plugin.loader.prefetch.queue.size";
+
+    /**
+     * 预取线程数量的系统属性，默认1
+     */
+    public static final String THREADS_PROPERTY = "plugin.loader.prefetch.threads";
+
+    private static final int CONSTANT_UTF8 = 1;
+
+    private static final int CONSTANT_INTEGER = 3;
+
+    private static final int CONSTANT_FLOAT = 4;
+
+    private static final int CONSTANT_LONG = 5;
+
+    private static final int CONSTANT_DOUBLE = 6;
+
+    private static final int CONSTANT_CLASS = 7;
+
+    private static final int CONSTANT_STRING = 8;
+
+    private static final int CONSTANT_FIELDREF = 9;
+
+    private static final int CONSTANT_METHODREF = 10;
+
+    private static final int CONSTANT_INTERFACE_METHODREF = 11;
+
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+    private static final int CONSTANT_METHOD_HANDLE = 15;
+
+    private static final int CONSTANT_METHOD_TYPE = 16;
+
+    private static final int CONSTANT_DYNAMIC = 17;
+
+    private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+
+    private static final int CONSTANT_MODULE = 19;
+
+    private static final int CONSTANT_PACKAGE = 20;
+
+    private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+
+    /**
+     * 通知预取线程退出，不能使用中断，中断会导致读取jar使用的可中断channel被关闭
+     */
+    private static final Task STOP = new Task("", 0);
+
+    private final ClassLoader loader;
+
+    /**
+     * 当前预取线程正在预取的任务，非本预取器的预取线程为null
+     */
+    private final ThreadLocal<Task> current = new ThreadLocal<>();
+
+    private final Predicate<String> filter;
+
+    private final int maxDepth;
+
+    private final BlockingQueue<Task> queue;
+
+    /**
+     * 已经定义或者已经放入队列的类，内部名称（例如java/lang/Object）
+     */
+    private final Map<String, Boolean> seen = new ConcurrentHashMap<>();
+
+    /**
+     * 预取线程定义并且还没有命中的类，内部名称
+     */
+    private final Map<String, Boolean> prefetched = new ConcurrentHashMap<>();
+
+    private final List<Thread> threads;
+
+    private final LongAdder scheduled = new LongAdder();
+
+    private final LongAdder dropped = new LongAdder();
+
+    private final LongAdder defined = new LongAdder();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder late = new LongAdder();
+
+    private final LongAdder failed = new LongAdder();
+
+    private volatile boolean closed;
+
+    /**
+     * 创建预取器并启动预取线程
+     *
+     * @param loader
+     *            加载类使用的加载器
+     * @param filter
+     *            判断类是否由loader自己定义，只预取返回true的类，参数为类名（例如java.lang.Object）
+     * @param maxDepth
+     *            最大预取深度，小于1时按照1处理
+     * @param queueSize
+     *            预取队列容量，小于1时按照1处理
+     * @param threadCount
+     *            预取线程数量，小于1时按照1处理
+     */
+    public ClassPrefetcher(ClassLoader loader, Predicate<String> filter, int maxDepth, int queueSize,
+        int threadCount) {
+        this.loader = loader;
+        this.filter = filter;
+        this.maxDepth = Math.max(1, maxDepth);
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueSize));
+        this.threads = new ArrayList<>();
+        for (int i = 0; i < Math.max(1, threadCount); i++) {
+            Thread thread = new Thread(this::run, "plugin-class-prefetcher-" + THREAD_NUMBER.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setContextClassLoader(loader);
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+    }
+
+    /**
+     * 使用系统属性中的配置创建预取器
+     *
+     * @param loader
+     *            加载类使用的加载器
+     * @param filter
+     *            判断类是否由loader自己定义
+     * @return 预取器，未启用时返回null
+     */
+    public static ClassPrefetcher create(ClassLoader loader, Predicate<String> filter) {
+        if (!Boolean.parseBoolean(System.getProperty(PROPERTY))) {
+            return null;
+        }
+        return new ClassPrefetcher(loader, filter, getIntProperty(DEPTH_PROPERTY, 2),
+            getIntProperty(QUEUE_SIZE_PROPERTY, 1024), getIntProperty(THREADS_PROPERTY, 1));
+    }
+
+    /**
+     * 类定义完成后调用，解析常量池并预取引用的类
+     *
+     * @param className
+     *            类名
+     * @param classBytes
+     *            类的字节码，从position开始，不会修改其position
+     */
+    public void onDefine(String className, ByteBuffer classBytes) {
+        if (closed) {
+            return;
+        }
+
+        String internalName = className.replace('.', '/');
+        seen.put(internalName, Boolean.TRUE);
+        Task task = current.get();
+        int depth = 0;
+        if (task != null) {
+            depth = task.depth;
+            prefetched.put(internalName, Boolean.TRUE);
+            defined.increment();
+            if (internalName.equals(task.name)) {
+                task.defined = true;
+            }
+        }
+
+        boolean schedule = depth < maxDepth;
+        for (String name : readClassNames(classBytes)) {
+            if (task == null && prefetched.remove(name) != null) {
+                hits.increment();
+            }
+            // JDK的类一定不会由插件加载器定义，不占用队列
+            if (schedule && !name.startsWith("java/") && seen.putIfAbsent(name, Boolean.TRUE) == null) {
+                if (queue.offer(new Task(name, depth + 1))) {
+                    scheduled.increment();
+                } else {
+                    // 队列满了，允许之后再次放入队列
+                    seen.remove(name);
+                    dropped.increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * 业务线程通过loadClass获取到已经加载的类时调用，用于统计命中
+     *
+     * @param className
+     *            类名
+     */
+    public void onLoaded(String className) {
+        if (!prefetched.isEmpty() && current.get() == null && prefetched.remove(className.replace('.', '/')) != null) {
+            hits.increment();
+        }
+    }
+
+    private void run() {
+        try {
+            while (!closed) {
+                Task task = queue.take();
+                if (task == STOP) {
+                    return;
+                }
+
+                String className = task.name.replace('/', '.');
+                if (!filter.test(className)) {
+                    continue;
+                }
+
+                current.set(task);
+                try {
+                    Class.forName(className, false, loader);
+                    if (!task.defined) {
+                        // 业务线程已经定义了该类
+                        late.increment();
+                    }
+                } catch (ClassNotFoundException | LinkageError | RuntimeException e) {
+                    // 预取只是优化，失败时由业务线程加载时处理
+                    failed.increment();
+                } finally {
+                    current.remove();
+                }
+            }
+        } catch (InterruptedException e) {
+            // 预取线程不会被中断
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 关闭预取器，停止预取线程，正在预取的类会预取完成
+     */
+    public void close() {
+        closed = true;
+        queue.clear();
+        for (int i = 0; i < threads.size(); i++) {
+            // 队列满时预取线程会在处理下一个任务前发现已经关闭
+            queue.offer(STOP);
+        }
+    }
+
+    /**
+     * 获取放入预取队列的类数量
+     *
+     * @return 放入预取队列的类数量
+     */
+    public long getScheduledCount() {
+        return scheduled.sum();
+    }
+
+    /**
+     * 获取因为队列已满而丢弃的预取数量
+     *
+     * @return 丢弃的预取数量
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * 获取预取线程定义的类数量（包括被预取的类的父类、接口）
+     *
+     * @return 预取线程定义的类数量
+     */
+    public long getPrefetchedCount() {
+        return defined.sum();
+    }
+
+    /**
+     * 获取命中数量
+     *
+     * @return 命中数量
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * 获取浪费的预取数量，即定义后还没有命中的类以及预取失败的类
+     *
+     * @return 浪费的预取数量
+     */
+    public long getWastedCount() {
+        return prefetched.size() + failed.sum();
+    }
+
+    /**
+     * 获取预取线程处理时已经被业务线程定义的类数量
+     *
+     * @return 已经被业务线程定义的类数量
+     */
+    public long getLateCount() {
+        return late.sum();
+    }
+
+    /**
+     * 获取预取失败的类数量
+     *
+     * @return 预取失败的类数量
+     */
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    /**
+     * 解析字节码常量池中所有CONSTANT_Class引用的类，数组类型返回元素类型，基本类型数组忽略
+     *
+     * @param classBytes
+     *            类的字节码
+     * @return 类的内部名称（例如java/lang/Object），字节码格式不正确时返回已经解析到的部分
+     */
+    static List<String> readClassNames(ByteBuffer classBytes) {
+        List<String> names = new ArrayList<>();
+        int base = classBytes.position();
+        try {
+            if (classBytes.getInt(base) != 0xCAFEBABE) {
+                return names;
+            }
+
+            int count = classBytes.getShort(base + 8) & 0xFFFF;
+            int[] utf8Offsets = new int[count];
+            int[] classIndexes = new int[count];
+            int classCount = 0;
+            int offset = base + 10;
+            for (int i = 1; i < count; i++) {
+                int tag = classBytes.get(offset++);
+                switch (tag) {
+                    case CONSTANT_UTF8:
+                        utf8Offsets[i] = offset;
+                        offset += 2 + (classBytes.getShort(offset) & 0xFFFF);
+                        break;
+                    case CONSTANT_CLASS:
+                        classIndexes[classCount++] = classBytes.getShort(offset) & 0xFFFF;
+                        offset += 2;
+                        break;
+                    case CONSTANT_STRING:
+                    case CONSTANT_METHOD_TYPE:
+                    case CONSTANT_MODULE:
+                    case CONSTANT_PACKAGE:
+                        offset += 2;
+                        break;
+                    case CONSTANT_METHOD_HANDLE:
+                        offset += 3;
+                        break;
+                    case CONSTANT_INTEGER:
+                    case CONSTANT_FLOAT:
+                    case CONSTANT_FIELDREF:
+                    case CONSTANT_METHODREF:
+                    case CONSTANT_INTERFACE_METHODREF:
+                    case CONSTANT_NAME_AND_TYPE:
+                    case CONSTANT_DYNAMIC:
+                    case CONSTANT_INVOKE_DYNAMIC:
+                        offset += 4;
+                        break;
+                    case CONSTANT_LONG:
+                    case CONSTANT_DOUBLE:
+                        // long和double占用两个常量池位置
+                        offset += 8;
+                        i++;
+                        break;
+                    default:
+                        return names;
+                }
+            }
+
+            for (int i = 0; i < classCount; i++) {
+                int index = classIndexes[i];
+                if (index > 0 && index < count && utf8Offsets[index] > 0) {
+                    String name = toClassName(classBytes, utf8Offsets[index]);
+                    if (name != null) {
+                        names.add(name);
+                    }
+                }
+            }
+        } catch (IndexOutOfBoundsException e) {
+            // 字节码不完整
+        }
+        return names;
+    }
+
+    /**
+     * 读取CONSTANT_Utf8中的类名，类名中只有ASCII字符时直接转换，否则按照modified UTF-8解码
+     *
+     * @param classBytes
+     *            类的字节码
+     * @param offset
+     *            CONSTANT_Utf8的长度所在位置
+     * @return 类的内部名称，基本类型数组返回null
+     */
+    private static String toClassName(ByteBuffer classBytes, int offset) {
+        int length = classBytes.getShort(offset) & 0xFFFF;
+        int start = offset + 2;
+        int end = start + length;
+        while (start < end && classBytes.get(start) == '[') {
+            start++;
+        }
+        if (start > offset + 2) {
+            // 数组类型，只有引用类型的数组需要预取元素类型
+            if (end - start < 3 || classBytes.get(start) != 'L' || classBytes.get(end - 1) != ';') {
+                return null;
+            }
+            start++;
+            end--;
+        }
+
+        char[] chars = new char[end - start];
+        int size = 0;
+        for (int i = start; i < end; i++) {
+            int b = classBytes.get(i) & 0xFF;
+            if (b < 0x80) {
+                chars[size++] = (char)b;
+            } else if ((b & 0xE0) == 0xC0 && i + 1 < end) {
+                chars[size++] = (char)(((b & 0x1F) << 6) | (classBytes.get(++i) & 0x3F));
+            } else if ((b & 0xF0) == 0xE0 && i + 2 < end) {
+                chars[size++] =
+                    (char)(((b & 0x0F) << 12) | ((classBytes.get(++i) & 0x3F) << 6) | (classBytes.get(++i) & 0x3F));
+            } else {
+                return null;
+            }
+        }
+        return new String(chars, 0, size);
+    }
+
+    private static int getIntProperty(String property, int defaultValue) {
+        String value = System.getProperty(property);
+        if (value != null) {
+            try {
+                return Math.max(1, Integer.parseInt(value.trim()));
+            } catch (NumberFormatException e) {
+                // 使用默认值
+            }
+        }
+        return defaultValue;
+    }
+
+    private static final class Task {
+
+        /**
+         * 类的内部名称
+         */
+        private final String name;
+
+        private final int depth;
+
+        /**
+         * 是否由预取线程定义，只会被执行该任务的预取线程访问
+         */
+        private boolean defined;
+
+        private Task(String name, int depth) {
+            this.name = name;
+            this.depth = depth;
+        }
+
+    }
+
+}
@@ -0,0 +1,219 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.joekerouac.plugin.loader.preload;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 类预加载器，在固定数量的后台守护线程中按照给定顺序提前加载（不初始化）类，使请求线程第一次使用这些类时不需要再加载
+ * <p>
+ * 预加载通过{@link Class#forName(String, boolean, ClassLoader)}调用加载器的loadClass，与业务线程使用同一把类加载锁，同一个类不会被重复
+ * 定义；类不存在或者链接失败时忽略
+ *
+ * @author JoeKerouac
+ * @date 2026-10-16 21:30
+ * @since 4.0.1
+ */
+public final class ClassPreloader {
+
+    /**
+     * 预加载线程数量的系统属性，默认为CPU核数的一半（至少1个、最多4个）
+     */
+    public static final String THREADS_PROPERTY = "plugin.loader.preload.threads";
+
+    private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+
+    private final ClassLoader loader;
+
+    private final Callable<List<String>> source;
+
+    private volatile List<String> classNames;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final AtomicInteger loaded = new AtomicInteger();
+
+    private final AtomicInteger failed = new AtomicInteger();
+
+    private final CountDownLatch done;
+
+    private final List<Thread> threads;
+
+    private volatile boolean cancelled;
+
+    private ClassPreloader(ClassLoader loader, Callable<List<String>> source, int threadCount) {
+        this.loader = loader;
+        this.source = source;
+        this.done = new CountDownLatch(threadCount);
+        this.threads = new ArrayList<>(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            Thread thread = new Thread(this::run, "plugin-class-preloader-" + THREAD_NUMBER.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setContextClassLoader(loader);
+            threads.add(thread);
+        }
+    }
+
+    /**
+     * 开始预加载
+     *
+     * @param loader
+     *            加载类使用的加载器
+     * @param classNames
+     *            需要预加载的类，按照顺序分配给预加载线程
+     * @param threads
+     *            预加载线程数量，小于1时按照1处理
+     * @return 预加载器
+     */
+    public static ClassPreloader start(ClassLoader loader, List<String> classNames, int threads) {
+        List<String> copy = new ArrayList<>(classNames);
+        int threadCount = Math.max(1, Math.min(threads, copy.size()));
+        return start(new ClassPreloader(loader, () -> copy, copy.isEmpty() ? 0 : threadCount));
+    }
+
+    /**
+     * 开始预加载，需要预加载的类由第一个启动的预加载线程获取（例如扫描jar），获取期间其他预加载线程等待，调用方不会被阻塞
+     *
+     * @param loader
+     *            加载类使用的加载器
+     * @param source
+     *            获取需要预加载的类，抛出异常时不预加载
+     * @param threads
+     *            预加载线程数量，小于1时按照1处理
+     * @return 预加载器
+     */
+    public static ClassPreloader start(ClassLoader loader, Callable<List<String>> source, int threads) {
+        return start(new ClassPreloader(loader, source, Math.max(1, threads)));
+    }
+
+    private static ClassPreloader start(ClassPreloader preloader) {
+        for (Thread thread : preloader.threads) {
+            thread.start();
+        }
+        return preloader;
+    }
+
+    /**
+     * 使用系统属性中配置的线程数量开始预加载
+     *
+     * @param loader
+     *            加载类使用的加载器
+     * @param classNames
+     *            需要预加载的类
+     * @return 预加载器
+     */
+    public static ClassPreloader start(ClassLoader loader, List<String> classNames) {
+        return start(loader, classNames, getConfiguredThreads());
+    }
+
+    private void run() {
+        try {
+            List<String> names = getClassNames();
+            int index;
+            while (!cancelled && (index = next.getAndIncrement()) < names.size()) {
+                try {
+                    Class.forName(names.get(index), false, loader);
+                    loaded.incrementAndGet();
+                } catch (ClassNotFoundException | LinkageError | RuntimeException e) {
+                    // 类已经不存在或者依赖发生了变化，由业务线程加载时处理
+                    failed.incrementAndGet();
+                }
+            }
+        } finally {
+            done.countDown();
+        }
+    }
+
+    private List<String> getClassNames() {
+        List<String> names = classNames;
+        if (names == null) {
+            synchronized (this) {
+                names = classNames;
+                if (names == null) {
+                    try {
+                        names = cancelled ? Collections.emptyList() : source.call();
+                    } catch (Exception e) {
+                        // 无法获取需要预加载的类时放弃预加载，由业务线程按需加载
+                        names = Collections.emptyList();
+                    }
+                    classNames = names;
+                }
+            }
+        }
+        return names;
+    }
+
+    /**
+     * 取消预加载，正在加载的类会加载完成
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * 等待预加载结束
+     *
+     * @param timeout
+     *            超时时间
+     * @param unit
+     *            超时时间单位
+     * @return true表示预加载已经结束，false表示超时
+     * @throws InterruptedException
+     *             等待时被中断
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return done.await(timeout, unit);
+    }
+
+    /**
+     * 获取已经加载的类数量（包括在预加载之前已经被业务线程加载的类）
+     *
+     * @return 已经加载的类数量
+     */
+    public int getLoadedCount() {
+        return loaded.get();
+    }
+
+    /**
+     * 获取加载失败的类数量
+     *
+     * @return 加载失败的类数量
+     */
+    public int getFailedCount() {
+        return failed.get();
+    }
+
+    /**
+     * 获取配置的预加载线程数量
+     *
+     * @return 预加载线程数量
+     */
+    public static int getConfiguredThreads() {
+        String threads = System.getProperty(THREADS_PROPERTY);
+        if (threads != null) {
+            try {
+                return Math.max(1, Integer.parseInt(threads.trim()));
+            } catch (NumberFormatException e) {
+                // 使用默认值
+            }
+        }
+        return Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+    }
+
+}
@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.joekerouac.plugin.loader.preload;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.jar.Attributes;
+
+import com.github.joekerouac.plugin.loader.ManifestConst;
+import com.github.joekerouac.plugin.loader.jar.JarEntry;
+import com.github.joekerouac.plugin.loader.jar.JarFile;
+
+/**
+ * 插件在Manifest中声明的预加载提示，包括{@link ManifestConst#PRELOAD_PACKAGES}、{@link ManifestConst#PRELOAD_CLASSES}以及
+ * {@link ManifestConst#PRELOAD_CLASS_LIST}
+ * <p>
+ * 解析Manifest只拆分属性值，包下的类以及类列表文件的内容在{@link #resolve(List)}时才读取，由预加载线程调用，不占用启动时间
+ *
+ * @author JoeKerouac
+ * @date 2026-10-16 22:10
+ * @since 4.0.1
+ */
+public final class PreloadHints {
+
+    private static final String CLASS_SUFFIX = ".class";
+
+    private final List<String> packages;
+
+    private final List<String> classNames;
+
+    private final List<String> classLists;
+
+    private PreloadHints(List<String> packages, List<String> classNames, List<String> classLists) {
+        this.packages = packages;
+        this.classNames = classNames;
+        this.classLists = classLists;
+    }
+
+    /**
+     * 解析多个Manifest中声明的预加载提示并合并
+     *
+     * @param mainAttributes
+     *            Manifest的main attributes
+     * @return 预加载提示
+     */
+    public static PreloadHints parse(List<Attributes> mainAttributes) {
+        Set<String> packages = new LinkedHashSet<>();
+        Set<String> classNames = new LinkedHashSet<>();
+        Set<String> classLists = new LinkedHashSet<>();
+        for (Attributes attributes : mainAttributes) {
+            for (String packageName : split(attributes.getValue(ManifestConst.PRELOAD_PACKAGES))) {
+                if (packageName.endsWith(".*")) {
+                    packageName = packageName.substring(0, packageName.length() - 2);
+                }
+                packages.add(packageName.replace('.', '/') + "/");
+            }
+            classNames.addAll(split(attributes.getValue(ManifestConst.PRELOAD_CLASSES)));
+            for (String classList : split(attributes.getValue(ManifestConst.PRELOAD_CLASS_LIST))) {
+                classLists.add(classList.startsWith("/") ? classList.substring(1) : classList);
+            }
+        }
+        return new PreloadHints(new ArrayList<>(packages), new ArrayList<>(classNames), new ArrayList<>(classLists));
+    }
+
+    /**
+     * 是否没有声明任何预加载提示
+     *
+     * @return true表示没有声明
+     */
+    public boolean isEmpty() {
+        return packages.isEmpty() && classNames.isEmpty() && classLists.isEmpty();
+    }
+
+    /**
+     * 解析出需要预加载的类，顺序为：{@link ManifestConst#PRELOAD_CLASSES}、类列表文件、包下的类（按照jar顺序以及jar中entry顺序）
+     *
+     * @param jarFiles
+     *            插件class path上的jar，从中查找包下的类以及类列表文件
+     * @return 需要预加载的类，已经去重
+     * @throws IOException
+     *             读取jar失败时抛出
+     */
+    public List<String> resolve(List<JarFile> jarFiles) throws IOException {
+        if (isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Set<String> result = new LinkedHashSet<>(classNames);
+        for (String classList : classLists) {
+            for (JarFile jarFile : jarFiles) {
+                JarEntry entry = jarFile.getJarEntry(classList);
+                if (entry != null && !entry.isDirectory()) {
+                    readClassList(jarFile, entry, result);
+                }
+            }
+        }
+
+        if (!packages.isEmpty()) {
+            for (JarFile jarFile : jarFiles) {
+                for (java.util.jar.JarEntry entry : jarFile) {
+                    String name = entry.getName();
+                    if (name.endsWith(CLASS_SUFFIX) && isInPackages(name)) {
+                        result.add(name.substring(0, name.length() - CLASS_SUFFIX.length()).replace('/', '.'));
+                    }
+                }
+            }
+        }
+        return new ArrayList<>(result);
+    }
+
+    private boolean isInPackages(String entryName) {
+        for (String packageName : packages) {
+            if (entryName.startsWith(packageName)) {
+                // package-info不是真正的类
+                return !entryName.endsWith("/package-info.class");
+            }
+        }
+        return false;
+    }
+
+    private static void readClassList(JarFile jarFile, JarEntry entry, Set<String> result) throws IOException {
+        try (BufferedReader reader =
+            new BufferedReader(new InputStreamReader(jarFile.getInputStream(entry), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    result.add(line);
+                }
+            }
+        }
+    }
+
+    /**
+     * 拆分Manifest属性值，多个值之间使用逗号或者空白分隔
+     *
+     * @param value
+     *            属性值，允许为null
+     * @return 拆分后的值
+     */
+    private static List<String> split(String value) {
+        if (value == null) {
+            return Collections.emptyList();
+        }
+
+        List<String> values = new ArrayList<>();
+        for (String item : value.split("[,\\s]+")) {
+            if (!item.isEmpty()) {
+                values.add(item);
+            }
+        }
+        return values;
+    }
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.joekerouac.plugin.loader.preload;
+
+/**
+ * 类预加载方式，需要同时通过{@link ClassLoadProfile#DIR_PROPERTY}指定profile目录才会生效
+ *
+ * @author JoeKerouac
+ * @date 2026-10-16 21:30
+ * @since 4.0.1
+ */
+public enum PreloadMode {
+
+    /**
+     * 不记录也不预加载
+     */
+    NONE,
+
+    /**
+     * 每次启动都记录启动后一段时间内加载的类，覆盖之前的profile
+     */
+    RECORD,
+
+    /**
+     * profile存在时在后台线程中按照profile预加载类；profile不存在、损坏或者过期（顶层jar的大小、修改时间变化，例如插件升级）时退化为
+     * {@link #RECORD}，下次启动即可预加载
+     */
+    PRELOAD;
+
+    /**
+     * 默认预加载方式的系统属性，取值为枚举名（忽略大小写），不设置或者取值非法时使用{@link #NONE}
+     */
+    public static final String PROPERTY = "plugin.loader.preload";
+
+    /**
+     * 获取默认的预加载方式
+     *
+     * @return 默认的预加载方式
+     */
+    public static PreloadMode getDefault() {
+        String mode = System.getProperty(PROPERTY);
+        if (mode != null) {
+            for (PreloadMode value : values()) {
+                if (value.name().equalsIgnoreCase(mode.trim())) {
+                    return value;
+                }
+            }
+        }
+        return NONE;
+    }
+
+}
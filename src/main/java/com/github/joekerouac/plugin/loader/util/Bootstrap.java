@@ -29,6 +29,9 @@ import com.github.joekerouac.plugin.loader.archive.JarFileArchive;
 /**
  * 用于构建可执行jar时使用，如果需要构建可执行jar，需要把plugin-loader的类解压打包到jar中，然后将jar包的main-class设置为本类，另
  * 外设置${@link ManifestConst#BIZ_MAIN_CLASS}，同时将项目依赖打包到jar包中的lib目录
+ * <p>
+ * 可以在Manifest中通过{@link ManifestConst#PRELOAD_PACKAGES}、{@link ManifestConst#PRELOAD_CLASSES}、
+ * {@link ManifestConst#PRELOAD_CLASS_LIST}声明需要预加载的类，这些类会在执行业务main方法的同时在后台线程中加载
  *
  * @author JoeKerouac
  * @date 2025-03-21 10:33:22
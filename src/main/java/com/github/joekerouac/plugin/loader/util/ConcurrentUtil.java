@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.joekerouac.plugin.loader.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 并发执行工具，用于在调用方提供的线程池（例如ForkJoinPool、虚拟线程）中并发打开jar
+ *
+ * @author JoeKerouac
+ * @date 2026-10-16 21:00
+ * @since 4.0.1
+ */
+public final class ConcurrentUtil {
+
+    private ConcurrentUtil() {}
+
+    /**
+     * 执行所有任务，返回结果的顺序与任务顺序一致，与执行顺序无关
+     * <p>
+     * executor为null时在当前线程中按顺序执行，遇到失败立即抛出；否则等待所有任务结束后抛出第一个（按照任务顺序）失败任务的异常；executor拒绝
+     * 任务时在当前线程中执行该任务
+     * <p>
+     * 有任务失败时，其他任务已经得到的结果中实现了{@link AutoCloseable}的都会被关闭（例如已经打开的jar），关闭时的异常通过
+     * {@link Throwable#addSuppressed(Throwable)}附加到抛出的异常上
+     *
+     * @param tasks
+     *            任务
+     * @param executor
+     *            执行任务的线程池，允许为null
+     * @param <T>
+     *            结果类型
+     * @return 任务结果
+     * @throws IOException
+     *             任务抛出IOException时抛出
+     */
+    public static <T> List<T> invokeAll(List<IOSupplier<T>> tasks, Executor executor) throws IOException {
+        List<T> results = new ArrayList<>(tasks.size());
+        if (executor == null || tasks.size() <= 1) {
+            for (IOSupplier<T> task : tasks) {
+                try {
+                    results.add(task.get());
+                } catch (IOException | RuntimeException | Error e) {
+                    closeAll(results, e);
+                    throw e;
+                }
+            }
+            return results;
+        }
+
+        List<CompletableFuture<T>> futures = new ArrayList<>(tasks.size());
+        for (IOSupplier<T> task : tasks) {
+            CompletableFuture<T> future;
+            try {
+                future = CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return task.get();
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                }, executor);
+            } catch (RejectedExecutionException e) {
+                future = new CompletableFuture<>();
+                try {
+                    future.complete(task.get());
+                } catch (IOException | RuntimeException | Error ex) {
+                    future.completeExceptionally(ex);
+                }
+            }
+            futures.add(future);
+        }
+
+        Throwable failure = null;
+        for (CompletableFuture<T> future : futures) {
+            try {
+                results.add(future.join());
+            } catch (CompletionException | CancellationException e) {
+                if (failure == null) {
+                    failure = (e instanceof CompletionException && e.getCause() != null) ? e.getCause() : e;
+                }
+                results.add(null);
+            }
+        }
+
+        if (failure != null) {
+            closeAll(results, failure);
+        }
+        if (failure instanceof IOException) {
+            throw (IOException)failure;
+        } else if (failure instanceof RuntimeException) {
+            throw (RuntimeException)failure;
+        } else if (failure instanceof Error) {
+            throw (Error)failure;
+        } else if (failure != null) {
+            throw new IllegalStateException(failure);
+        }
+        return results;
+    }
+
+    /**
+     * 关闭所有实现了{@link AutoCloseable}的结果
+     *
+     * @param results
+     *            结果，允许包含null
+     * @param failure
+     *            导致关闭的异常，关闭时的异常附加到该异常上
+     */
+    private static void closeAll(List<?> results, Throwable failure) {
+        for (Object result : results) {
+            if (result instanceof AutoCloseable) {
+                try {
+                    ((AutoCloseable)result).close();
+                } catch (Exception e) {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * 可以抛出IOException的任务
+     *
+     * @param <T>
+     *            结果类型
+     */
+    @FunctionalInterface
+    public interface IOSupplier<T> {
+
+        /**
+         * 执行任务
+         *
+         * @return 结果
+         * @throws IOException
+         *             IO异常
+         */
+        T get() throws IOException;
+
+    }
+
+}
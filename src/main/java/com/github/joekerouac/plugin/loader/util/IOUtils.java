@@ -14,6 +14,7 @@ package com.github.joekerouac.plugin.loader.util;
 
 import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 
@@ -66,6 +67,40 @@ public class IOUtils {
         }
     }
 
+    /**
+     * 将输入流剩余内容全部读取到byte数组，已知内容长度时直接按照长度分配数组，避免中间缓冲区的扩容与拷贝；读取完毕不会关闭流
+     *
+     * @param inputStream
+     *            输入流
+     * @param size
+     *            内容长度，小于0表示长度未知
+     * @return 输入流剩余的内容
+     * @throws IOException
+     *             IO异常，内容长度小于size时抛出EOFException
+     */
+    public static byte[] readFully(InputStream inputStream, int size) throws IOException {
+        if (size < 0) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            byte[] buffer = new byte[2048];
+            int len;
+            while ((len = inputStream.read(buffer)) > 0) {
+                outputStream.write(buffer, 0, len);
+            }
+            return outputStream.toByteArray();
+        }
+
+        byte[] bytes = new byte[size];
+        int offset = 0;
+        while (offset < size) {
+            int len = inputStream.read(bytes, offset, size - offset);
+            if (len < 0) {
+                throw new EOFException(String.format("期望读取[%d]字节，实际只读取到[%d]字节", size, offset));
+            }
+            offset += len;
+        }
+        return bytes;
+    }
+
     /**
      * 关闭指定资源
      *
@@ -44,7 +44,7 @@ public class JarFileUtil {
     private static final String SPRING_BOOT_NESTED_ENTRY_SEPARATOR = "/!";
 
     /**
-     * 从url中获取jar file，支持:
+     * 从url中获取jar file，url指向嵌套jar时，为此打开的根jar会在返回的jar关闭时一起关闭，支持:
      * <ul>
      * <li>file协议，例如: jar:file:/path/app.jar!/BOOT-INF/lib/inner.jar!/</li>
      * <li>Spring Boot 3.2+ nested协议，例如: jar:nested:/path/app.jar/!BOOT-INF/lib/inner.jar!/</li>
@@ -73,18 +73,24 @@ public class JarFileUtil {
 
         File file = new File(URI.create(rootFile));
 
-        JarFile jarFile = new JarFile(file);
-
-        int i = 1;
-        while (i < split.length) {
-            String entryName = split[i++];
-            if (entryName.isEmpty() || entryName.endsWith(".class")) {
-                break;
+        JarFile root = new JarFile(file);
+        JarFile jarFile = root;
+        try {
+            int i = 1;
+            while (i < split.length) {
+                String entryName = split[i++];
+                if (entryName.isEmpty() || entryName.endsWith(".class")) {
+                    break;
+                }
+                JarEntry jarEntry = jarFile.getJarEntry(entryName);
+                jarFile = jarFile.getNestedJarFile(jarEntry);
             }
-            JarEntry jarEntry = jarFile.getJarEntry(entryName);
-            jarFile = jarFile.getNestedJarFile(jarEntry);
+        } catch (IOException | RuntimeException e) {
+            root.close();
+            throw e;
         }
 
+        jarFile.setOwnedRoot(root);
         return jarFile;
     }
 
@@ -136,13 +142,25 @@ public class JarFileUtil {
 
     private static JarFile openFromSpringBootNestedLocation(SpringBootNestedLocation location, String spec)
         throws IOException {
-        JarFile jarFile = new JarFile(location.getOuterJarFile());
-        JarEntry jarEntry = jarFile.getJarEntry(location.getNestedEntryPath());
+        JarFile root = new JarFile(location.getOuterJarFile());
+        try {
+            JarFile jarFile = openFromSpringBootNestedLocation(root, location, spec);
+            jarFile.setOwnedRoot(root);
+            return jarFile;
+        } catch (IOException | RuntimeException e) {
+            root.close();
+            throw e;
+        }
+    }
+
+    private static JarFile openFromSpringBootNestedLocation(JarFile root, SpringBootNestedLocation location,
+        String spec) throws IOException {
+        JarEntry jarEntry = root.getJarEntry(location.getNestedEntryPath());
         if (jarEntry == null) {
             throw new IOException(
                 String.format("在 [%s] 中未找到嵌套 jar 条目 [%s]", location.getOuterJarFile(), location.getNestedEntryPath()));
         }
-        jarFile = jarFile.getNestedJarFile(jarEntry);
+        JarFile jarFile = root.getNestedJarFile(jarEntry);
 
         int entrySeparatorIndex = spec.indexOf(SPRING_BOOT_NESTED_ENTRY_SEPARATOR);
         String entryAndMore = spec.substring(entrySeparatorIndex + SPRING_BOOT_NESTED_ENTRY_SEPARATOR.length());
@@ -0,0 +1,271 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.joekerouac.plugin.loader.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * 系统包索引，记录BootstrapClassLoader与ExtClassLoader（JDK9以后是PlatformClassLoader）能够加载的所有包，用于快速判断一个类是否是系统类，
+ * 替代每次加载类时都调用{@code extClassLoader.getResource}探测的方式；每个JVM只会构建一次：
+ * <ul>
+ * <li>JDK9及以上：从boot module layer中取出由BootstrapClassLoader和PlatformClassLoader定义的module的所有包</li>
+ * <li>JDK8：扫描sun.boot.class.path以及ExtClassLoader的class path（java.ext.dirs）中所有jar包和目录</li>
+ * </ul>
+ * 注意，索引只能说明类所在的包属于系统，并不能说明类一定存在（例如JDK8中javax.annotation这种拆分包），调用方需要自行处理系统加载不到的场景
+ *
+ * @author JoeKerouac
+ * @date 2026-10-16 10:30
+ * @since 4.0.1
+ */
+public final class PlatformPackageIndex {
+
+    /**
+     * 是否启用系统包索引，默认启用，关闭后回退到{@code extClassLoader.getResource}探测的方式
+     */
+    private static final String ENABLE_PROPERTY = "plugin.loader.platform.index";
+
+    private static final String CLASS_FILE_SUFFIX = ".class";
+
+    private static final Object LOCK = new Object();
+
+    /**
+     * 已经构建的索引
+     */
+    private static volatile PlatformPackageIndex instance;
+
+    /**
+     * 是否已经尝试构建过索引，构建失败后不会再次尝试
+     */
+    private static volatile boolean initialized;
+
+    /**
+     * 开放寻址哈希表，存放包名
+     */
+    private final String[] table;
+
+    private final int mask;
+
+    private final int size;
+
+    private PlatformPackageIndex(Set<String> packages) {
+        int capacity = Integer.highestOneBit(Math.max(packages.size(), 8) * 2 - 1) << 1;
+        this.table = new String[capacity];
+        this.mask = capacity - 1;
+        this.size = packages.size();
+        for (String pkg : packages) {
+            int slot = slot(pkg.hashCode());
+            while (this.table[slot] != null) {
+                slot = (slot + 1) & this.mask;
+            }
+            this.table[slot] = pkg;
+        }
+    }
+
+    /**
+     * 获取系统包索引
+     *
+     * @param extClassLoader
+     *            ExtClassLoader（JDK9以后是PlatformClassLoader）
+     * @return 系统包索引，如果索引被禁用或者当前环境无法构建索引则返回null
+     */
+    public static PlatformPackageIndex get(ClassLoader extClassLoader) {
+        if (initialized) {
+            return instance;
+        }
+
+        synchronized (LOCK) {
+            if (!initialized) {
+                if (!"false".equalsIgnoreCase(System.getProperty(ENABLE_PROPERTY))) {
+                    try {
+                        instance = new PlatformPackageIndex(collectPackages(extClassLoader));
+                    } catch (Throwable throwable) {
+                        // 构建失败时回退到资源探测的方式
+                        instance = null;
+                    }
+                }
+                initialized = true;
+            }
+            return instance;
+        }
+    }
+
+    /**
+     * 判断指定类所在的包是否属于系统，整个过程不会产生对象分配
+     *
+     * @param className
+     *            类名
+     * @return true表示类所在的包属于系统
+     */
+    public boolean contains(String className) {
+        int packageEnd = className.lastIndexOf('.');
+        if (packageEnd <= 0) {
+            return false;
+        }
+
+        // 与String.hashCode保持一致
+        int hash = 0;
+        for (int i = 0; i < packageEnd; i++) {
+            hash = 31 * hash + className.charAt(i);
+        }
+
+        int slot = slot(hash);
+        String pkg;
+        while ((pkg = this.table[slot]) != null) {
+            if (pkg.length() == packageEnd && className.startsWith(pkg)) {
+                return true;
+            }
+            slot = (slot + 1) & this.mask;
+        }
+        return false;
+    }
+
+    /**
+     * 索引中包的数量
+     *
+     * @return 包的数量
+     */
+    public int size() {
+        return this.size;
+    }
+
+    private int slot(int hash) {
+        return (hash ^ (hash >>> 16)) & this.mask;
+    }
+
+    private static Set<String> collectPackages(ClassLoader extClassLoader) throws Exception {
+        Set<String> packages = new HashSet<>();
+        Class<?> moduleLayerClass;
+        try {
+            moduleLayerClass = Class.forName("java.lang.ModuleLayer");
+        } catch (ClassNotFoundException e) {
+            moduleLayerClass = null;
+        }
+
+        if (moduleLayerClass != null) {
+            collectFromModuleLayer(moduleLayerClass, extClassLoader, packages);
+        } else {
+            collectFromClassPath(extClassLoader, packages);
+        }
+
+        if (packages.isEmpty()) {
+            throw new IllegalStateException("未能找到任何系统包");
+        }
+        return packages;
+    }
+
+    /**
+     * JDK9及以上，从boot module layer中收集包
+     */
+    @SuppressWarnings("unchecked")
+    private static void collectFromModuleLayer(Class<?> moduleLayerClass, ClassLoader extClassLoader,
+        Set<String> packages) throws Exception {
+        Class<?> moduleClass = Class.forName("java.lang.Module");
+        Method getClassLoader = moduleClass.getMethod("getClassLoader");
+        Method getPackages = moduleClass.getMethod("getPackages");
+
+        Object bootLayer = moduleLayerClass.getMethod("boot").invoke(null);
+        Set<Object> modules = (Set<Object>)moduleLayerClass.getMethod("modules").invoke(bootLayer);
+        for (Object module : modules) {
+            ClassLoader loader = (ClassLoader)getClassLoader.invoke(module);
+            if (loader == null || loader == extClassLoader) {
+                packages.addAll((Set<String>)getPackages.invoke(module));
+            }
+        }
+    }
+
+    /**
+     * JDK8，扫描BootstrapClassLoader与ExtClassLoader的class path收集包
+     */
+    private static void collectFromClassPath(ClassLoader extClassLoader, Set<String> packages)
+        throws IOException, URISyntaxException {
+        String bootClassPath = System.getProperty("sun.boot.class.path");
+        if (bootClassPath == null) {
+            throw new IllegalStateException("无法获取sun.boot.class.path");
+        }
+
+        for (String path : bootClassPath.split(File.pathSeparator)) {
+            collectFromFile(new File(path), packages);
+        }
+
+        if (extClassLoader instanceof URLClassLoader) {
+            for (URL url : ((URLClassLoader)extClassLoader).getURLs()) {
+                if ("file".equals(url.getProtocol())) {
+                    collectFromFile(new File(url.toURI()), packages);
+                }
+            }
+        } else {
+            String extDirs = System.getProperty("java.ext.dirs", "");
+            for (String dir : extDirs.split(File.pathSeparator)) {
+                File[] files = new File(dir).listFiles();
+                if (files != null) {
+                    for (File file : files) {
+                        collectFromFile(file, packages);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void collectFromFile(File file, Set<String> packages) throws IOException {
+        if (file.isDirectory()) {
+            collectFromDirectory(file, "", packages);
+        } else if (file.isFile()) {
+            try (ZipFile zipFile = new ZipFile(file)) {
+                Enumeration<? extends ZipEntry> entries = zipFile.entries();
+                while (entries.hasMoreElements()) {
+                    addPackage(entries.nextElement().getName(), packages);
+                }
+            } catch (IOException e) {
+                // 不是合法的jar包，忽略
+            }
+        }
+    }
+
+    private static void collectFromDirectory(File dir, String prefix, Set<String> packages) {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+
+        for (File file : files) {
+            String name = prefix + file.getName();
+            if (file.isDirectory()) {
+                collectFromDirectory(file, name + "/", packages);
+            } else {
+                addPackage(name, packages);
+            }
+        }
+    }
+
+    private static void addPackage(String entryName, Set<String> packages) {
+        if (!entryName.endsWith(CLASS_FILE_SUFFIX)) {
+            return;
+        }
+
+        int lastSlash = entryName.lastIndexOf('/');
+        if (lastSlash > 0) {
+            packages.add(entryName.substring(0, lastSlash).replace('/', '.'));
+        }
+    }
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.joekerouac.plugin.loader;
+
+import java.util.Random;
+
+/**
+ * {@link DelegationRules}与原来逐个前缀startsWith匹配的性能对比，分别使用10、100、1000条规则，不是单元测试，需要手动运行main方法
+ * <p>
+ * 类名一半命中规则一半不命中，输出每次匹配的平均耗时
+ *
+ * @author JoeKerouac
+ * @date 2026-10-17 10:00
+ * @since 4.0.1
+ */
+public class DelegationRulesBenchmark {
+
+    private static final int NAMES = 1024;
+
+    private static final int ROUNDS = 10;
+
+    private static long sink;
+
+    public static void main(String[] args) {
+        for (int rules : new int[] {10, 100, 1000}) {
+            run(rules);
+        }
+        System.out.println("sink: " + sink);
+    }
+
+    private static void run(int ruleCount) {
+        Random random = new Random(ruleCount);
+        String[] needLoadByParent = packages(random, ruleCount - ruleCount / 5);
+        String[] forceLoadByParent = packages(random, ruleCount / 10);
+        String[] forceLoadByChild = packages(random, ruleCount / 10);
+        DelegationRules rules = DelegationRules.compile(needLoadByParent, forceLoadByParent, forceLoadByChild);
+
+        String[] names = new String[NAMES];
+        for (int i = 0; i < NAMES; i++) {
+            names[i] = i % 2 == 0 ? needLoadByParent[random.nextInt(needLoadByParent.length)] + "Clazz" + i
+                : "org.example.app" + random.nextInt(ruleCount) + ".Clazz" + i;
+        }
+
+        int iterations = Math.max(20, 20_000 / ruleCount);
+        double linear = 0;
+        double trie = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                for (String name : names) {
+                    sink += DelegationRulesTest.linearScan(name, needLoadByParent, forceLoadByParent, forceLoadByChild)
+                        .ordinal();
+                }
+            }
+            linear = (System.nanoTime() - start) / (double)iterations / NAMES;
+
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                for (String name : names) {
+                    sink += rules.match(name).ordinal();
+                }
+            }
+            trie = (System.nanoTime() - start) / (double)iterations / NAMES;
+        }
+
+        // 只输出最后一轮，前面的轮次作为预热
+        System.out.printf("rules=%d linear=%.1f ns/op trie=%.1f ns/op%n", ruleCount, linear, trie);
+    }
+
+    private static String[] packages(Random random, int count) {
+        String[] packages = new String[Math.max(1, count)];
+        for (int i = 0; i < packages.length; i++) {
+            packages[i] = "com.vendor" + random.nextInt(100) + ".lib" + i + ".";
+        }
+        return packages;
+    }
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.joekerouac.plugin.loader;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * {@link DelegationRules}测试
+ *
+ * @author JoeKerouac
+ * @date 2026-10-17 10:00
+ * @since 4.0.1
+ */
+public class DelegationRulesTest {
+
+    @Test
+    public void testNoRules() {
+        DelegationRules rules = DelegationRules.compile(null, null, null);
+        Assert.assertEquals(rules.match("a.b.C"), Delegation.CHILD_FIRST);
+        Assert.assertEquals(rules.match(""), Delegation.CHILD_FIRST);
+
+        rules = DelegationRules.compile(new String[0], new String[] {null}, new String[0]);
+        Assert.assertEquals(rules.match("a.b.C"), Delegation.CHILD_FIRST);
+    }
+
+    @Test
+    public void testPrefixMatch() {
+        DelegationRules rules = DelegationRules.compile(new String[] {"org.slf4j."}, new String[] {"javax.servlet."},
+            new String[] {"com.a."});
+
+        Assert.assertEquals(rules.match("org.slf4j.Logger"), Delegation.PARENT_FIRST);
+        Assert.assertEquals(rules.match("javax.servlet.Filter"), Delegation.FORCE_PARENT);
+        Assert.assertEquals(rules.match("com.a.Plugin"), Delegation.FORCE_CHILD);
+
+        // 只匹配前缀，类名比前缀短或者中途不同都不命中
+        Assert.assertEquals(rules.match("org.slf4j"), Delegation.CHILD_FIRST);
+        Assert.assertEquals(rules.match("org.slf4jx.Logger"), Delegation.CHILD_FIRST);
+        Assert.assertEquals(rules.match("com.b.Plugin"), Delegation.CHILD_FIRST);
+    }
+
+    @Test
+    public void testEmptyPrefixMatchesAll() {
+        DelegationRules rules = DelegationRules.compile(new String[] {""}, null, null);
+        Assert.assertEquals(rules.match("any.Class"), Delegation.PARENT_FIRST);
+        Assert.assertEquals(rules.match(""), Delegation.PARENT_FIRST);
+    }
+
+    @Test
+    public void testPrecedence() {
+        // 强制父加载器 > 强制子加载器 > 父加载器优先，与前缀长短无关
+        DelegationRules rules = DelegationRules.compile(new String[] {"a.", "a.b.c."}, new String[] {"a.b."},
+            new String[] {"a.", "a.b.c.d."});
+
+        Assert.assertEquals(rules.match("a.X"), Delegation.FORCE_CHILD);
+        Assert.assertEquals(rules.match("a.b.X"), Delegation.FORCE_PARENT);
+        Assert.assertEquals(rules.match("a.b.c.X"), Delegation.FORCE_PARENT);
+        Assert.assertEquals(rules.match("a.b.c.d.X"), Delegation.FORCE_PARENT);
+
+        rules = DelegationRules.compile(new String[] {"x.y."}, null, new String[] {"x."});
+        Assert.assertEquals(rules.match("x.y.Z"), Delegation.FORCE_CHILD);
+
+        // 同一个前缀同时出现在多组规则中
+        rules = DelegationRules.compile(new String[] {"p."}, new String[] {"p."}, new String[] {"p."});
+        Assert.assertEquals(rules.match("p.Q"), Delegation.FORCE_PARENT);
+    }
+
+    @Test
+    public void testSameAsLinearScan() {
+        Random random = new Random(20261017L);
+        for (int round = 0; round < 50; round++) {
+            String[] needLoadByParent = randomPrefixes(random, random.nextInt(20));
+            String[] forceLoadByParent = randomPrefixes(random, random.nextInt(5));
+            String[] forceLoadByChild = randomPrefixes(random, random.nextInt(10));
+            DelegationRules rules = DelegationRules.compile(needLoadByParent, forceLoadByParent, forceLoadByChild);
+
+            for (int i = 0; i < 200; i++) {
+                String name = randomName(random);
+                Assert.assertEquals(rules.match(name),
+                    linearScan(name, needLoadByParent, forceLoadByParent, forceLoadByChild), name);
+            }
+        }
+    }
+
+    /**
+     * 编译为前缀树之前PluginClassLoader中的匹配逻辑
+     */
+    static Delegation linearScan(String name, String[] needLoadByParent, String[] forceLoadByParent,
+        String[] forceLoadByChild) {
+        if (Arrays.stream(forceLoadByParent).anyMatch(name::startsWith)) {
+            return Delegation.FORCE_PARENT;
+        } else if (Arrays.stream(forceLoadByChild).anyMatch(name::startsWith)) {
+            return Delegation.FORCE_CHILD;
+        } else if (Arrays.stream(needLoadByParent).anyMatch(name::startsWith)) {
+            return Delegation.PARENT_FIRST;
+        } else {
+            return Delegation.CHILD_FIRST;
+        }
+    }
+
+    static String[] randomPrefixes(Random random, int count) {
+        String[] prefixes = new String[count];
+        for (int i = 0; i < count; i++) {
+            String name = randomName(random);
+            prefixes[i] = name.substring(0, 1 + random.nextInt(name.length()));
+        }
+        return prefixes;
+    }
+
+    static String randomName(Random random) {
+        // 使用很小的字母表，保证随机的类名和前缀之间有足够多的公共前缀
+        StringBuilder sb = new StringBuilder();
+        int segments = 1 + random.nextInt(4);
+        for (int i = 0; i < segments; i++) {
+            if (i > 0) {
+                sb.append('.');
+            }
+            int length = 1 + random.nextInt(3);
+            for (int j = 0; j < length; j++) {
+                sb.append((char)('a' + random.nextInt(3)));
+            }
+        }
+        return sb.toString();
+    }
+
+}
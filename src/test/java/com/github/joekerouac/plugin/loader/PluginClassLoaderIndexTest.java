@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.joekerouac.plugin.loader;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import com.github.joekerouac.plugin.loader.data.FileAccessMode;
+import com.github.joekerouac.plugin.loader.jar.ClassPathIndex;
+import com.github.joekerouac.plugin.loader.jar.JarEntry;
+import com.github.joekerouac.plugin.loader.jar.JarFile;
+import com.github.joekerouac.plugin.loader.jar.TestJars;
+
+/**
+ * 使用class path索引（包括direct模式）时{@link PluginClassLoader}直接从jar中读取字节码定义类的测试
+ *
+ * @author JoeKerouac
+ * @date 2026-10-17 18:30
+ * @since 4.0.1
+ */
+public class PluginClassLoaderIndexTest {
+
+    private File file;
+
+    private JarFile root;
+
+    private final List<URL> urls = new ArrayList<>();
+
+    private final List<JarFile> jarFiles = new ArrayList<>();
+
+    @BeforeClass
+    public void init() throws IOException {
+        byte[] a = TestJars.content()
+            .add("META-INF/MANIFEST.MF", "Manifest-Version: 1.0\r\nImplementation-Title: a\r\n\r\n")
+            .add(classEntry(SampleA.class), classBytes(SampleA.class))
+            .add(classEntry(SampleB.class), classBytes(SampleB.class)).add("a.txt", "a").toBytes();
+        byte[] b = TestJars.content().add(classEntry(SampleC.class), classBytes(SampleC.class)).toBytes();
+        file = TestJars.content().add("lib/a.jar", a).add("lib/b.jar", b)
+            .write(new File(TestJars.tempDir(), "index.jar"));
+        root = new JarFile(file);
+        for (String name : new String[] {"lib/a.jar", "lib/b.jar"}) {
+            JarFile jarFile = root.getNestedJarFile(root.getJarEntry(name));
+            jarFiles.add(jarFile);
+            urls.add(jarFile.getUrl());
+        }
+    }
+
+    @AfterClass
+    public void destroy() throws IOException {
+        root.close();
+    }
+
+    @DataProvider
+    public Object[][] modes() {
+        return new Object[][] {{"true"}, {"direct"}};
+    }
+
+    @Test(dataProvider = "modes")
+    public void testDefineFromJar(String mode) throws Exception {
+        ClassPathIndex index = "direct".equals(mode) ? ClassPathIndex.direct(urls, jarFiles, null)
+            : ClassPathIndex.build(urls, jarFiles, null);
+        try (PluginClassLoader loader = new PluginClassLoader(urls.toArray(new URL[0]), null, new String[0],
+            new String[0], new String[0], false, index)) {
+            Class<?> sampleA = loader.loadClass(SampleA.class.getName());
+            Class<?> sampleB = loader.loadClass(SampleB.class.getName());
+            Class<?> sampleC = loader.loadClass(SampleC.class.getName());
+            Assert.assertNotSame(sampleA, SampleA.class);
+            Assert.assertSame(sampleA.getClassLoader(), loader);
+            Assert.assertSame(loader.loadClass(SampleA.class.getName()), sampleA);
+
+            // 同一个jar中的类共用一个ProtectionDomain，CodeSource与URLClassLoader一样是jar在class path上的url
+            Assert.assertSame(sampleB.getProtectionDomain(), sampleA.getProtectionDomain());
+            Assert.assertNotSame(sampleC.getProtectionDomain(), sampleA.getProtectionDomain());
+            Assert.assertEquals(sampleA.getProtectionDomain().getCodeSource().getLocation(), urls.get(0));
+            Assert.assertEquals(sampleC.getProtectionDomain().getCodeSource().getLocation(), urls.get(1));
+            Assert.assertSame(sampleA.getProtectionDomain().getClassLoader(), loader);
+
+            // 包使用类所在jar的manifest定义
+            Assert.assertEquals(sampleA.getPackage().getImplementationTitle(), "a");
+
+            Assert.assertTrue(loader.isDefinedByIndex(SampleA.class.getName()));
+            Assert.assertFalse(loader.isDefinedByIndex("java.lang.String"));
+            Assert.assertFalse(loader.isDefinedByIndex("com.x.Missing"));
+            Assert.expectThrows(ClassNotFoundException.class, () -> loader.loadClass("com.x.Missing"));
+            Assert.assertEquals(new String(TestJars.read(loader.getResource("a.txt").openStream()), "UTF-8"), "a");
+            Assert.assertEquals(loader.getMetrics().getChildClassLoadCount(), 3);
+        }
+    }
+
+    @Test
+    public void testDefineFromMappedJar() throws Exception {
+        try (JarFile mapped = new JarFile(file, FileAccessMode.MAPPED)) {
+            JarFile jarFile = mapped.getNestedJarFile(mapped.getJarEntry("lib/a.jar"));
+            JarEntry entry = jarFile.getJarEntry(classEntry(SampleA.class));
+
+            // 未压缩的entry直接返回映射内存的只读视图，不拷贝字节码
+            ByteBuffer buffer = jarFile.getStoredBuffer(entry);
+            Assert.assertNotNull(buffer);
+            Assert.assertTrue(buffer.isReadOnly());
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            Assert.assertEquals(bytes, classBytes(SampleA.class));
+            Assert.assertNull(jarFiles.get(0).getStoredBuffer(jarFiles.get(0).getJarEntry(classEntry(SampleA.class))));
+
+            List<URL> mappedUrls = Collections.singletonList(jarFile.getUrl());
+            ClassPathIndex index = ClassPathIndex.direct(mappedUrls, Collections.singletonList(jarFile), null);
+            try (PluginClassLoader loader = new PluginClassLoader(mappedUrls.toArray(new URL[0]), null,
+                new String[0], new String[0], new String[0], false, index)) {
+                Class<?> sampleA = loader.loadClass(SampleA.class.getName());
+                Assert.assertSame(sampleA.getClassLoader(), loader);
+                Assert.assertNotNull(sampleA.getDeclaredConstructor().newInstance());
+                Assert.assertEquals(sampleA.getPackage().getImplementationTitle(), "a");
+            }
+        }
+    }
+
+    @Test
+    public void testDeflatedEntryNotMapped() throws IOException {
+        File deflated = new File(TestJars.tempDir(), "deflated.jar");
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(deflated))) {
+            out.putNextEntry(new ZipEntry(classEntry(SampleA.class)));
+            out.write(classBytes(SampleA.class));
+            out.closeEntry();
+        }
+        try (JarFile jarFile = new JarFile(deflated, FileAccessMode.MAPPED)) {
+            JarEntry entry = jarFile.getJarEntry(classEntry(SampleA.class));
+            Assert.assertEquals(entry.getMethod(), ZipEntry.DEFLATED);
+            Assert.assertNull(jarFile.getStoredBuffer(entry));
+            Assert.assertEquals(jarFile.getBytes(entry), classBytes(SampleA.class));
+        }
+    }
+
+    private static String classEntry(Class<?> clazz) {
+        return clazz.getName().replace('.', '/') + ".class";
+    }
+
+    private static byte[] classBytes(Class<?> clazz) throws IOException {
+        return TestJars.read(clazz.getClassLoader().getResourceAsStream(classEntry(clazz)));
+    }
+
+    public static class SampleA {}
+
+    public static class SampleB {}
+
+    public static class SampleC {}
+
+}
@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.joekerouac.plugin.loader;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Enumeration;
+import java.util.Random;
+
+import com.github.joekerouac.plugin.loader.jar.JarFile;
+import com.github.joekerouac.plugin.loader.jar.TestJars;
+
+/**
+ * 没有使用class path索引时{@link PluginClassLoader}查找资源的性能，class path上分别有20、100、400个嵌套jar，不是单元测试，需要
+ * 手动运行main方法
+ * <p>
+ * 查找以未命中为主：90%的资源不存在，10%的资源随机分布在各个jar中，分别输出findResource与findResources每次查找的平均耗时
+ *
+ * @author JoeKerouac
+ * @date 2026-10-17 15:00
+ * @since 4.0.1
+ */
+public class PluginClassLoaderLookupBenchmark {
+
+    private static final int ENTRIES_PER_JAR = 200;
+
+    private static final int NAMES = 1000;
+
+    private static final int ROUNDS = 5;
+
+    private static long sink;
+
+    public static void main(String[] args) throws IOException {
+        for (int jars : new int[] {20, 100, 400}) {
+            run(jars);
+        }
+        System.out.println("sink: " + sink);
+    }
+
+    private static void run(int jarCount) throws IOException {
+        TestJars.Content fat = TestJars.content();
+        for (int i = 0; i < jarCount; i++) {
+            TestJars.Content nested = TestJars.content();
+            for (int j = 0; j < ENTRIES_PER_JAR; j++) {
+                nested.add("com/vendor" + i + "/Res" + j + ".txt", "res-" + j);
+            }
+            fat.add("lib/lib" + i + ".jar", nested.toBytes());
+        }
+        File fatJar = fat.write(new File(TestJars.tempDir(), "fat.jar"));
+
+        Random random = new Random(jarCount);
+        String[] names = new String[NAMES];
+        for (int i = 0; i < NAMES; i++) {
+            names[i] = i % 10 == 0
+                ? "com/vendor" + random.nextInt(jarCount) + "/Res" + random.nextInt(ENTRIES_PER_JAR) + ".txt"
+                : "com/example/app/Missing" + i + ".txt";
+        }
+
+        try (JarFile root = new JarFile(fatJar)) {
+            URL[] urls = new URL[jarCount];
+            for (int i = 0; i < jarCount; i++) {
+                urls[i] = root.getNestedJarFile(root.getJarEntry("lib/lib" + i + ".jar")).getUrl();
+            }
+
+            try (PluginClassLoader loader =
+                new PluginClassLoader(urls, null, new String[0], new String[0], new String[0], false)) {
+                int iterations = Math.max(2, 4000 / jarCount);
+                double findResource = 0;
+                double findResources = 0;
+                for (int round = 0; round < ROUNDS; round++) {
+                    long start = System.nanoTime();
+                    for (int i = 0; i < iterations; i++) {
+                        for (String name : names) {
+                            URL url = loader.findResource(name);
+                            sink += url == null ? 0 : 1;
+                        }
+                    }
+                    findResource = (System.nanoTime() - start) / (double)iterations / NAMES;
+
+                    start = System.nanoTime();
+                    for (int i = 0; i < iterations; i++) {
+                        for (String name : names) {
+                            Enumeration<URL> resources = loader.findResources(name);
+                            while (resources.hasMoreElements()) {
+                                sink += resources.nextElement().getFile().length();
+                            }
+                        }
+                    }
+                    findResources = (System.nanoTime() - start) / (double)iterations / NAMES;
+                }
+
+                // 只输出最后一轮，前面的轮次作为预热
+                System.out.printf("jars=%d findResource=%.1f ns/op findResources=%.1f ns/op%n", jarCount,
+                    findResource, findResources);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.joekerouac.plugin.loader;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.github.joekerouac.plugin.loader.jar.JarFile;
+import com.github.joekerouac.plugin.loader.jar.TestJars;
+
+/**
+ * 没有使用class path索引时{@link PluginClassLoader}的测试，查找资源的结果与URLClassPath（URLClassLoader）逐个比较
+ *
+ * @author JoeKerouac
+ * @date 2026-10-17 15:00
+ * @since 4.0.1
+ */
+public class PluginClassLoaderTest {
+
+    private static final String[] NAMES = {"shared.txt", "a.txt", "b.txt", "c.txt", "dir", "dir/", "dir/f.txt",
+        "missing.txt", "a b.txt", "中文/名字.txt"};
+
+    private JarFile root;
+
+    private URL[] urls;
+
+    @BeforeClass
+    public void init() throws IOException {
+        byte[] a = TestJars.content().add("shared.txt", "a").add("a.txt", "a").add("dir/", (String)null)
+            .add("dir/f.txt", "a-f").add("中文/名字.txt", "a-cn").toBytes();
+        byte[] b = TestJars.content().add("shared.txt", "b").add("b.txt", "b").add("a b.txt", "b-space").toBytes();
+        byte[] c = TestJars.content().add("shared.txt", "c").add("c.txt", "c").add("dir/f.txt", "c-f").toBytes();
+        File file = TestJars.content().add("lib/a.jar", a).add("lib/b.jar", b).add("lib/c.jar", c)
+            .write(new File(TestJars.tempDir(), "root.jar"));
+
+        root = new JarFile(file);
+        urls = new URL[3];
+        for (int i = 0; i < urls.length; i++) {
+            urls[i] = root.getNestedJarFile(root.getJarEntry("lib/" + (char)('a' + i) + ".jar")).getUrl();
+        }
+    }
+
+    @AfterClass
+    public void destroy() throws IOException {
+        root.close();
+    }
+
+    @Test
+    public void testSameAsUrlClassPath() throws IOException {
+        try (PluginClassLoader loader = create(urls);
+            URLClassLoader urlClassLoader = new URLClassLoader(urls, null)) {
+            for (String name : NAMES) {
+                Assert.assertEquals(String.valueOf(loader.findResource(name)),
+                    String.valueOf(urlClassLoader.findResource(name)), name);
+                Assert.assertEquals(Collections.list(loader.findResources(name)).toString(),
+                    Collections.list(urlClassLoader.findResources(name)).toString(), name);
+            }
+            Assert.assertEquals(new String(TestJars.read(loader.findResource("dir/f.txt").openStream()), "UTF-8"),
+                "a-f");
+        }
+    }
+
+    @Test
+    public void testAddUrl() throws IOException {
+        try (PluginClassLoader loader = create(new URL[] {urls[1]})) {
+            Assert.assertNull(loader.findResource("c.txt"));
+            Assert.assertEquals(Collections.list(loader.findResources("shared.txt")).size(), 1);
+
+            // 添加url后重新获取class path上的jar，重复的url会被忽略
+            loader.addURL(urls[2]);
+            loader.addURL(urls[1]);
+            Assert.assertNotNull(loader.findResource("c.txt"));
+            Assert.assertEquals(Collections.list(loader.findResources("shared.txt")).size(), 2);
+        }
+    }
+
+    @Test
+    public void testNestedJarOpenCount() throws IOException {
+        byte[] x = TestJars.content().add("x.txt", "x").toBytes();
+        File file = TestJars.content().add("lib/x.jar", x).write(new File(TestJars.tempDir(), "count.jar"));
+        URL url = new URL("jar:" + file.toURI() + "!/lib/x.jar!/");
+
+        // 默认不使用class path索引，嵌套jar在第一次查找资源时由URLClassPath打开
+        PluginClassLoader loader = create(new URL[] {url});
+        try {
+            Assert.assertEquals(loader.getMetrics().getNestedJarOpenCount(), 0);
+            Assert.assertNotNull(loader.findResource("x.txt"));
+            Assert.assertEquals(loader.getMetrics().getNestedJarOpenCount(), 1);
+            Assert.assertNotNull(loader.findResource("x.txt"));
+            Assert.assertEquals(loader.getMetrics().getNestedJarOpenCount(), 1);
+
+            // 根jar不在本加载器class path上的嵌套jar不计入
+            File other = TestJars.content().add("lib/y.jar", x).write(new File(TestJars.tempDir(), "other.jar"));
+            try (JarFile otherJar = new JarFile(other)) {
+                otherJar.getNestedJarFile(otherJar.getJarEntry("lib/y.jar")).close();
+            }
+            Assert.assertEquals(loader.getMetrics().getNestedJarOpenCount(), 1);
+        } finally {
+            loader.close();
+        }
+    }
+
+    @Test
+    public void testDefinePackage() throws Exception {
+        String classEntry = Sample.class.getName().replace('.', '/') + ".class";
+        byte[] classBytes = TestJars.read(getClass().getClassLoader().getResourceAsStream(classEntry));
+        byte[] x = TestJars.content().add("META-INF/MANIFEST.MF", manifest("x")).add(classEntry, classBytes)
+            .add("p/Q.class", "q").toBytes();
+        byte[] y = TestJars.content().add("META-INF/MANIFEST.MF", manifest("y")).add("p/", (String)null)
+            .add("p/Q.class", "q").add("other/", (String)null).toBytes();
+        File file = TestJars.content().add("lib/x.jar", x).add("lib/y.jar", y)
+            .write(new File(TestJars.tempDir(), "package.jar"));
+
+        try (JarFile jarFile = new JarFile(file)) {
+            JarFile jarY = jarFile.getNestedJarFile(jarFile.getJarEntry("lib/y.jar"));
+            Assert.assertEquals(new HashSet<>(jarY.getDirectoryNames()), new HashSet<>(Arrays.asList("p/", "other/")));
+            Assert.assertTrue(jarFile.getNestedJarFile(jarFile.getJarEntry("lib/x.jar")).getDirectoryNames().isEmpty());
+
+            URL[] packageUrls = {new URL("jar:" + file.toURI() + "!/lib/x.jar!/"),
+                new URL("jar:" + file.toURI() + "!/lib/y.jar!/")};
+            try (PluginClassLoader loader = create(packageUrls)) {
+                // 直接从类所在的jar定义类时使用该jar的manifest
+                Class<?> sample = loader.loadClass(Sample.class.getName());
+                Assert.assertSame(sample.getClassLoader(), loader);
+                Assert.assertEquals(sample.getPackage().getImplementationTitle(), "x");
+
+                // 交给URLClassPath定义类之前通过包索引定义包，只使用同时包含类和包目录的jar
+                Method definePackage =
+                    PluginClassLoader.class.getDeclaredMethod("definePackage", String.class, String.class);
+                definePackage.setAccessible(true);
+                definePackage.invoke(loader, "p.Q", "p");
+                Method getDefinedPackage =
+                    PluginClassLoader.class.getDeclaredMethod("getDefinedPackageOf", String.class);
+                getDefinedPackage.setAccessible(true);
+                Assert.assertEquals(((Package)getDefinedPackage.invoke(loader, "p")).getImplementationTitle(), "y");
+            }
+        }
+    }
+
+    private static String manifest(String title) {
+        return "Manifest-Version: 1.0\r\nImplementation-Title: " + title + "\r\n\r\n";
+    }
+
+    private static PluginClassLoader create(URL[] urls) {
+        return new PluginClassLoader(urls, null, new String[0], new String[0], new String[0], false);
+    }
+
+    public static class Sample {}
+
+}
@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.joekerouac.plugin.loader.data;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link RandomAccessDataFile}各个{@link FileAccessMode}在1到64个线程并发读取时的吞吐对比，不是单元测试，需要手动运行main方法
+ * <p>
+ * 分别测试随机位置读取4K（block）和通过输入流逐字节读取64字节（byte）两种场景，输出每秒操作数
+ * <p>
+ * 这只是一个粗略的冒烟基准：手工计时，没有使用JMH（离线构建环境中没有JMH依赖），所有模式在同一个JVM中运行，没有fork隔离以及JIT、GC
+ * 控制；每个组合运行{@link #ROUNDS}轮取最好的一轮以减小抖动。结果只能用来看出各模式之间数量级上的差距，不能作为精确的性能数据
+ *
+ * @author JoeKerouac
+ * @date 2026-10-17 11:30
+ * @since 4.0.1
+ */
+public class RandomAccessDataFileBenchmark {
+
+    private static final int FILE_SIZE = 16 * 1024 * 1024;
+
+    private static final int BLOCK_SIZE = 4096;
+
+    private static final int BYTES = 64;
+
+    private static final long DURATION_MILLIS = 200;
+
+    private static final int ROUNDS = 3;
+
+    private static final int[] THREADS = {1, 2, 4, 8, 16, 32, 64};
+
+    private static volatile long sink;
+
+    public static void main(String[] args) throws Exception {
+        File file = File.createTempFile("plugin-loader-benchmark", ".dat");
+        file.deleteOnExit();
+        byte[] data = new byte[FILE_SIZE];
+        new Random(0).nextBytes(data);
+        try (OutputStream out = new FileOutputStream(file)) {
+            out.write(data);
+        }
+
+        for (FileAccessMode mode : FileAccessMode.values()) {
+            RandomAccessDataFile dataFile = new RandomAccessDataFile(file, mode);
+            try {
+                // 预热
+                run(dataFile, 4, true);
+                run(dataFile, 4, false);
+                for (int threads : THREADS) {
+                    System.out.printf("mode=%-18s threads=%-2d block=%,12.0f ops/s byte=%,12.0f ops/s%n", mode,
+                        threads, best(dataFile, threads, true), best(dataFile, threads, false));
+                }
+            } finally {
+                dataFile.close();
+            }
+        }
+        System.out.println("sink: " + sink);
+    }
+
+    private static double best(RandomAccessDataFile dataFile, int threads, boolean block) throws Exception {
+        double best = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            best = Math.max(best, run(dataFile, threads, block));
+        }
+        return best;
+    }
+
+    private static double run(RandomAccessDataFile dataFile, int threads, boolean block) throws Exception {
+        AtomicBoolean stop = new AtomicBoolean();
+        LongAdder ops = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread(() -> {
+                long count = 0;
+                long local = 0;
+                try {
+                    start.await();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (!stop.get()) {
+                        if (block) {
+                            local += dataFile.read(random.nextInt(FILE_SIZE - BLOCK_SIZE), BLOCK_SIZE)[0];
+                        } else {
+                            InputStream in =
+                                dataFile.getSubsection(random.nextInt(FILE_SIZE - BYTES), BYTES).getInputStream();
+                            for (int j = 0; j < BYTES; j++) {
+                                local += in.read();
+                            }
+                        }
+                        count++;
+                    }
+                } catch (InterruptedException | IOException e) {
+                    throw new IllegalStateException(e);
+                }
+                ops.add(count);
+                sink += local;
+            });
+            workers[i].start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        Thread.sleep(DURATION_MILLIS);
+        stop.set(true);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return ops.sum() * 1e9 / (System.nanoTime() - begin);
+    }
+
+}
@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.joekerouac.plugin.loader.data;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+/**
+ * {@link RandomAccessDataFile}测试，所有{@link FileAccessMode}读取结果一致
+ *
+ * @author JoeKerouac
+ * @date 2026-10-17 11:30
+ * @since 4.0.1
+ */
+public class RandomAccessDataFileTest {
+
+    private byte[] data;
+
+    private File file;
+
+    @BeforeClass
+    public void init() throws IOException {
+        data = new byte[10000];
+        new Random(20261017L).nextBytes(data);
+        file = File.createTempFile("plugin-loader-test", ".dat");
+        file.deleteOnExit();
+        try (OutputStream out = new FileOutputStream(file)) {
+            out.write(data);
+        }
+    }
+
+    @DataProvider
+    public Object[][] modes() {
+        return Arrays.stream(FileAccessMode.values()).map(mode -> new Object[] {mode}).toArray(Object[][]::new);
+    }
+
+    @Test(dataProvider = "modes")
+    public void testRead(FileAccessMode mode) throws IOException {
+        RandomAccessDataFile dataFile = new RandomAccessDataFile(file, mode);
+        try {
+            Assert.assertEquals(dataFile.read(), data);
+            Assert.assertEquals(dataFile.read(100, 50), Arrays.copyOfRange(data, 100, 150));
+
+            RandomAccessData subsection = dataFile.getSubsection(9990, 10);
+            Assert.assertEquals(subsection.read(), Arrays.copyOfRange(data, 9990, 10000));
+            try (InputStream in = subsection.getInputStream()) {
+                for (int i = 9990; i < 10000; i++) {
+                    Assert.assertEquals(in.read(), data[i] & 0xFF);
+                }
+                Assert.assertEquals(in.read(), -1);
+            }
+        } finally {
+            dataFile.close();
+        }
+    }
+
+    @Test(dataProvider = "modes")
+    public void testSlice(FileAccessMode mode) throws IOException {
+        RandomAccessDataFile dataFile = new RandomAccessDataFile(file, mode);
+        try {
+            ByteBuffer slice = ((RandomAccessDataFile)dataFile.getSubsection(1000, 2000)).slice(100, 50);
+            if (mode != FileAccessMode.MAPPED) {
+                // 只有内存映射时才能直接拿到文件内容的视图
+                Assert.assertNull(slice);
+                return;
+            }
+
+            Assert.assertTrue(slice.isReadOnly());
+            Assert.assertEquals(slice.remaining(), 50);
+            byte[] bytes = new byte[slice.remaining()];
+            slice.get(bytes);
+            Assert.assertEquals(bytes, Arrays.copyOfRange(data, 1100, 1150));
+            Assert.assertNull(dataFile.slice(0, 0));
+            try {
+                dataFile.slice(9990, 11);
+                Assert.fail("slice out of bounds");
+            } catch (IndexOutOfBoundsException e) {
+                // 预期
+            }
+        } finally {
+            dataFile.close();
+        }
+    }
+
+    @Test(dataProvider = "modes")
+    public void testEmptyFile(FileAccessMode mode) throws IOException {
+        File empty = File.createTempFile("plugin-loader-test", ".dat");
+        empty.deleteOnExit();
+        RandomAccessDataFile dataFile = new RandomAccessDataFile(empty, mode);
+        try {
+            Assert.assertEquals(dataFile.getSize(), 0);
+            Assert.assertEquals(dataFile.read(), new byte[0]);
+            try (InputStream in = dataFile.getInputStream()) {
+                Assert.assertEquals(in.read(), -1);
+            }
+        } finally {
+            dataFile.close();
+        }
+    }
+
+    @Test(dataProvider = "modes")
+    public void testReadByteConcurrently(FileAccessMode mode) throws Exception {
+        RandomAccessDataFile dataFile = new RandomAccessDataFile(file, mode);
+        try {
+            Thread[] threads = new Thread[8];
+            Throwable[] errors = new Throwable[threads.length];
+            for (int t = 0; t < threads.length; t++) {
+                int index = t;
+                threads[t] = new Thread(() -> {
+                    try (InputStream in = dataFile.getInputStream()) {
+                        for (byte b : data) {
+                            Assert.assertEquals(in.read(), b & 0xFF);
+                        }
+                    } catch (Throwable e) {
+                        errors[index] = e;
+                    }
+                });
+                threads[t].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            for (Throwable error : errors) {
+                Assert.assertNull(error);
+            }
+        } finally {
+            dataFile.close();
+        }
+    }
+
+}
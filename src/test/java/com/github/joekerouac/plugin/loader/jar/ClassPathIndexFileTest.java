@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.joekerouac.plugin.loader.jar;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * {@link ClassPathIndexFile}测试
+ *
+ * @author JoeKerouac
+ * @date 2026-10-17 11:00
+ * @since 4.0.1
+ */
+public class ClassPathIndexFileTest {
+
+    private File dir;
+
+    private final List<URL> urls = new ArrayList<>();
+
+    private final List<JarFile> jarFiles = new ArrayList<>();
+
+    @BeforeMethod
+    public void init() throws IOException {
+        dir = TestJars.tempDir();
+        File a = TestJars.content().add("com/x/A.class", "a-A").add("shared.txt", "a").write(new File(dir, "a.jar"));
+        File b = TestJars.content().add("com/x/B.class", "b-B").add("shared.txt", "b").write(new File(dir, "b.jar"));
+        for (File file : Arrays.asList(a, b)) {
+            urls.add(file.toURI().toURL());
+            jarFiles.add(new JarFile(file));
+        }
+    }
+
+    @AfterMethod
+    public void destroy() throws IOException {
+        for (JarFile jarFile : jarFiles) {
+            jarFile.close();
+        }
+        urls.clear();
+        jarFiles.clear();
+    }
+
+    @Test
+    public void testStoreAndLoad() throws IOException {
+        File file = ClassPathIndexFile.getFile(dir, urls);
+        String key = ClassPathIndexFile.createKey(urls, jarFiles, Collections.singletonList("lib/"));
+        ClassPathIndex built = ClassPathIndex.build(urls, jarFiles, null);
+        Assert.assertTrue(ClassPathIndexFile.store(file, key, built, jarFiles));
+
+        ClassPathIndex loaded = ClassPathIndexFile.load(file, key, urls, jarFiles, null);
+        Assert.assertNotNull(loaded);
+        for (String name : new String[] {"com/x/A.class", "com/x/B.class", "shared.txt", "missing.txt"}) {
+            Assert.assertEquals(loaded.findAll(name), built.findAll(name), name);
+        }
+
+        // key不同（例如jar发生变化）时不使用文件中的索引
+        Assert.assertNull(ClassPathIndexFile.load(file, key + "x", urls, jarFiles, null));
+    }
+
+    @Test
+    public void testRebuildWhileLoaded() throws IOException {
+        File file = ClassPathIndexFile.getFile(dir, urls);
+        String key = ClassPathIndexFile.createKey(urls, jarFiles, Collections.emptyList());
+        ClassPathIndex built = ClassPathIndex.build(urls, jarFiles, null);
+        Assert.assertTrue(ClassPathIndexFile.store(file, key, built, jarFiles));
+        ClassPathIndex loaded = ClassPathIndexFile.load(file, key, urls, jarFiles, null);
+        Assert.assertNotNull(loaded);
+
+        // 已经加载的索引不能占用文件，否则重建时无法替换
+        String newKey = key + "rebuild";
+        Assert.assertTrue(ClassPathIndexFile.store(file, newKey, built, jarFiles));
+        Assert.assertNotNull(ClassPathIndexFile.load(file, newKey, urls, jarFiles, null));
+        Assert.assertEquals(loaded.find("com/x/B.class"), built.find("com/x/B.class"));
+    }
+
+}
@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.joekerouac.plugin.loader.jar;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+/**
+ * {@link ClassPathIndex}测试，查找结果与URLClassPath（URLClassLoader）逐个比较
+ *
+ * @author JoeKerouac
+ * @date 2026-10-17 10:30
+ * @since 4.0.1
+ */
+public class ClassPathIndexTest {
+
+    private static final String[] NAMES = {"com/x/A.class", "com/x/B.class", "com/x/C.class", "shared.txt", "dir",
+        "dir/", "dir/f.txt", "dir/g.txt", "only-dir", "only-dir/", "missing.txt", "a b.txt", "sp#c%t;x=y.txt",
+        "中文/名字.txt", "META-INF/MANIFEST.MF"};
+
+    private static final Pattern ESCAPE = Pattern.compile("%[0-9a-fA-F]{2}");
+
+    private final List<URL> urls = new ArrayList<>();
+
+    private final List<JarFile> jarFiles = new ArrayList<>();
+
+    private URLClassLoader urlClassLoader;
+
+    @BeforeClass
+    public void init() throws IOException {
+        File dir = TestJars.tempDir();
+        File a = TestJars.content().add("com/x/A.class", "a-A").add("shared.txt", "a").add("dir/", (String)null)
+            .add("dir/f.txt", "a-f").add("a b.txt", "a-space").add("中文/名字.txt", "a-cn").write(new File(dir, "a.jar"));
+        File b = TestJars.content().add("com/x/A.class", "b-A").add("com/x/B.class", "b-B").add("shared.txt", "b")
+            .add("dir/g.txt", "b-g").add("only-dir/", (String)null).add("sp#c%t;x=y.txt", "b-special")
+            .write(new File(dir, "b.jar"));
+        File c = TestJars.content().add("shared.txt", "c").add("dir/", (String)null).add("a b.txt", "c-space")
+            .add("com/x/B.class", "c-B").write(new File(dir, "c.jar"));
+
+        for (File file : Arrays.asList(a, b, c)) {
+            urls.add(file.toURI().toURL());
+            jarFiles.add(new JarFile(file));
+        }
+        urlClassLoader = new URLClassLoader(urls.toArray(new URL[0]), null);
+    }
+
+    @AfterClass
+    public void destroy() throws IOException {
+        urlClassLoader.close();
+        for (JarFile jarFile : jarFiles) {
+            jarFile.close();
+        }
+    }
+
+    @Test
+    public void testIndexSameAsUrlClassPath() throws IOException {
+        check(ClassPathIndex.build(urls, jarFiles, null));
+    }
+
+    @Test
+    public void testDirectSameAsUrlClassPath() throws IOException {
+        check(ClassPathIndex.direct(urls, jarFiles, null));
+    }
+
+    @Test
+    public void testEncodePath() {
+        Assert.assertEquals(ClassPathIndex.encodePath("com/x/A.class"), "com/x/A.class");
+        Assert.assertEquals(ClassPathIndex.encodePath("a b#c%d;e.txt"), "a%20b%23c%25d%3be.txt");
+        Assert.assertEquals(ClassPathIndex.encodePath("中/x"), "%e4%b8%ad/x");
+    }
+
+    private void check(ClassPathIndex index) throws IOException {
+        for (String name : NAMES) {
+            List<URL> expected = Collections.list(urlClassLoader.findResources(name));
+
+            List<Long> locations = index.findAll(name);
+            List<Integer> expectedJars = new ArrayList<>();
+            List<Integer> actualJars = new ArrayList<>();
+            for (URL url : expected) {
+                expectedJars.add(jarIndexOf(url));
+            }
+            for (long location : locations) {
+                actualJars.add(index.getJarIndex(location));
+            }
+            Assert.assertEquals(actualJars, expectedJars, name);
+
+            long first = index.find(name);
+            if (expected.isEmpty()) {
+                Assert.assertEquals(first, ClassPathIndex.NOT_FOUND, name);
+                continue;
+            }
+            Assert.assertEquals(first, (long)locations.get(0), name);
+
+            for (int i = 0; i < expected.size(); i++) {
+                URL url = index.getResourceUrl(locations.get(i), name);
+                Assert.assertEquals(normalize(url), normalize(expected.get(i)), name);
+                if (!name.endsWith("/") && !expected.get(i).getPath().endsWith("/")) {
+                    Assert.assertEquals(TestJars.read(url.openStream()), TestJars.read(expected.get(i).openStream()),
+                        name);
+                }
+            }
+        }
+    }
+
+    /**
+     * 不同JDK版本的URLClassPath编码时十六进制的大小写不同，统一转为大写后比较
+     */
+    private static String normalize(URL url) {
+        Matcher matcher = ESCAPE.matcher(url.toExternalForm());
+        StringBuffer sb = new StringBuffer();
+        while (matcher.find()) {
+            matcher.appendReplacement(sb, matcher.group().toUpperCase());
+        }
+        return matcher.appendTail(sb).toString();
+    }
+
+    private int jarIndexOf(URL resource) {
+        for (int i = 0; i < urls.size(); i++) {
+            if (resource.toExternalForm().startsWith("jar:" + urls.get(i).toExternalForm() + "!/")) {
+                return i;
+            }
+        }
+        throw new IllegalStateException(resource.toString());
+    }
+
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.joekerouac.plugin.loader.jar;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * {@link EntryCache}测试，使用默认的缓存大小
+ *
+ * @author JoeKerouac
+ * @date 2026-10-17 17:50
+ * @since 4.0.1
+ */
+public class EntryCacheTest {
+
+    private static final int ENTRIES = 1000;
+
+    @Test
+    public void testHitAndMiss() {
+        EntryCache cache = new EntryCache(ENTRIES);
+        Assert.assertNull(cache.get(1));
+        Header header = new Header(1);
+        cache.put(1, header);
+        Assert.assertSame(cache.get(1), header);
+        Assert.assertSame(cache.peek(1), header);
+        Assert.assertNull(cache.peek(2));
+
+        // peek不计入统计
+        CacheStats stats = cache.getStats();
+        Assert.assertEquals(stats.getHitCount(), 1);
+        Assert.assertEquals(stats.getMissCount(), 1);
+        Assert.assertEquals(stats.getSize(), 1);
+
+        // 重复放入时替换，不占用新的槽位
+        Header replaced = new Header(1);
+        cache.put(1, replaced);
+        Assert.assertSame(cache.get(1), replaced);
+        Assert.assertEquals(cache.getStats().getSize(), 1);
+
+        cache.clear();
+        Assert.assertNull(cache.get(1));
+        Assert.assertEquals(cache.getStats().getSize(), 0);
+    }
+
+    @Test
+    public void testClockEviction() {
+        EntryCache cache = new EntryCache(ENTRIES);
+        int capacity = cache.getStats().getCapacity();
+        Assert.assertTrue(capacity > 2 && capacity < ENTRIES, String.valueOf(capacity));
+        for (int i = 0; i < capacity; i++) {
+            cache.put(i, new Header(i));
+        }
+        Assert.assertEquals(cache.getStats().getEvictionCount(), 0);
+
+        // 0被访问过，时钟指针跳过0并清除访问标记，淘汰只被放入过的1
+        Assert.assertNotNull(cache.get(0));
+        cache.put(capacity, new Header(capacity));
+        Assert.assertNotNull(cache.peek(0));
+        Assert.assertNull(cache.peek(1));
+        Assert.assertNotNull(cache.peek(capacity));
+
+        // 0的访问标记已经被清除，下一轮从2开始淘汰
+        cache.put(capacity + 1, new Header(capacity + 1));
+        Assert.assertNull(cache.peek(2));
+        Assert.assertNotNull(cache.peek(0));
+
+        CacheStats stats = cache.getStats();
+        Assert.assertEquals(stats.getEvictionCount(), 2);
+        Assert.assertEquals(stats.getSize(), capacity);
+    }
+
+    @Test
+    public void testSmallJar() {
+        // entry数量小于缓存大小时所有entry都能缓存
+        EntryCache cache = new EntryCache(3);
+        Assert.assertEquals(cache.getStats().getCapacity(), 3);
+        for (int i = 0; i < 3; i++) {
+            cache.put(i, new Header(i));
+        }
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals(((Header)cache.get(i)).index, i);
+        }
+        Assert.assertEquals(cache.getStats().getEvictionCount(), 0);
+    }
+
+    private static final class Header implements FileHeader {
+
+        private final int index;
+
+        private Header(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public boolean hasName(CharSequence name, char suffix) {
+            return false;
+        }
+
+        @Override
+        public long getLocalHeaderOffset() {
+            return index;
+        }
+
+        @Override
+        public long getCompressedSize() {
+            return 0;
+        }
+
+        @Override
+        public long getSize() {
+            return 0;
+        }
+
+        @Override
+        public int getMethod() {
+            return 0;
+        }
+
+    }
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.joekerouac.plugin.loader.jar;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * {@link InflaterPool}测试
+ *
+ * @author JoeKerouac
+ * @date 2026-10-17 18:20
+ * @since 4.0.1
+ */
+public class InflaterPoolTest {
+
+    @Test
+    public void testInflate() throws IOException {
+        Random random = new Random(20261017L);
+        for (int size : new int[] {0, 1, 100, 64 * 1024 + 7}) {
+            byte[] data = new byte[size];
+            // 一半随机一半重复，既有压缩不了的数据也有可以压缩的数据
+            random.nextBytes(data);
+            Arrays.fill(data, size / 2, size, (byte)'x');
+            Assert.assertEquals(InflaterPool.inflate(deflate(data), size), data, String.valueOf(size));
+        }
+    }
+
+    @Test
+    public void testInvalidSize() throws IOException {
+        byte[] data = new byte[1000];
+        Arrays.fill(data, (byte)'x');
+        byte[] compressed = deflate(data);
+        Assert.expectThrows(ZipException.class, () -> InflaterPool.inflate(compressed, 999));
+        Assert.expectThrows(ZipException.class, () -> InflaterPool.inflate(compressed, 1001));
+        // 解压失败后归还的Inflater仍然可以正常使用
+        Assert.assertEquals(InflaterPool.inflate(compressed, 1000), data);
+    }
+
+    @Test
+    public void testCorruptData() throws IOException {
+        byte[] data = new byte[1000];
+        new Random(1).nextBytes(data);
+        byte[] compressed = deflate(data);
+        byte[] truncated = Arrays.copyOf(compressed, compressed.length / 2);
+        Assert.expectThrows(IOException.class, () -> InflaterPool.inflate(truncated, data.length));
+        Assert.expectThrows(ZipException.class, () -> InflaterPool.inflate(new byte[] {(byte)0xFF, 1, 2}, 10));
+        Assert.assertEquals(InflaterPool.inflate(compressed, data.length), data);
+    }
+
+    @Test
+    public void testReuse() {
+        Inflater inflater = InflaterPool.acquire();
+        InflaterPool.release(inflater);
+        // 归还的Inflater被重置后再次借出
+        Inflater reused = InflaterPool.acquire();
+        try {
+            Assert.assertSame(reused, inflater);
+            Assert.assertEquals(reused.getBytesRead(), 0);
+        } finally {
+            InflaterPool.release(reused);
+        }
+    }
+
+    private static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            byte[] buffer = new byte[data.length + 64];
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+                length += deflater.deflate(buffer, length, buffer.length - length);
+            }
+            return Arrays.copyOf(buffer, length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+}
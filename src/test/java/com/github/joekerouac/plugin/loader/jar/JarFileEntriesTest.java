@@ -0,0 +1,287 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.joekerouac.plugin.loader.jar;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import com.github.joekerouac.plugin.loader.data.FileAccessMode;
+import com.github.joekerouac.plugin.loader.data.RandomAccessData;
+import com.github.joekerouac.plugin.loader.data.RandomAccessDataFile;
+
+/**
+ * {@link JarFileEntries}测试，不同的中央目录驻留方式查找entry的结果一致
+ *
+ * @author JoeKerouac
+ * @date 2026-10-17 18:00
+ * @since 4.0.1
+ */
+public class JarFileEntriesTest {
+
+    private final List<String> names = new ArrayList<>();
+
+    private File file;
+
+    private JarFile jarFile;
+
+    @BeforeClass
+    public void init() throws IOException {
+        TestJars.Content content = TestJars.content();
+        for (int i = 0; i < 300; i++) {
+            names.add("com/x/C" + i + ".class");
+        }
+        names.addAll(Arrays.asList("dir/", "dir/f.txt", "中文/名字.txt", "emoji/\uD83D\uDE00.txt", "Aa.txt", "BB.txt"));
+        for (String name : names) {
+            content.add(name, name.endsWith("/") ? null : name);
+        }
+        file = content.write(new File(TestJars.tempDir(), "entries.jar"));
+        jarFile = new JarFile(file);
+    }
+
+    @AfterClass
+    public void destroy() throws IOException {
+        jarFile.close();
+    }
+
+    @DataProvider
+    public Object[][] centralDirectoryModes() {
+        return Arrays.stream(CentralDirectoryMode.values()).map(mode -> new Object[] {mode})
+            .toArray(Object[][]::new);
+    }
+
+    @Test(dataProvider = "centralDirectoryModes")
+    public void testResidentCentralDirectory(CentralDirectoryMode mode) throws IOException {
+        RandomAccessDataFile dataFile = new RandomAccessDataFile(file, FileAccessMode.RANDOM_ACCESS_FILE);
+        try {
+            AtomicInteger reads = new AtomicInteger();
+            JarFileEntries entries = parse(new CountingData(dataFile, reads), mode, EntryIndexMode.SORTED);
+            reads.set(0);
+
+            assertEntries(entries);
+            Assert.assertNull(entries.getEntry("missing.txt"));
+            // 中央目录驻留后查找entry不会再读取文件
+            if (mode == CentralDirectoryMode.NONE) {
+                Assert.assertTrue(reads.get() > 0);
+            } else {
+                Assert.assertEquals(reads.get(), 0);
+            }
+        } finally {
+            dataFile.close();
+        }
+    }
+
+    @Test
+    public void testOffHeapUsesMappedFile() throws Exception {
+        RandomAccessDataFile dataFile = new RandomAccessDataFile(file, FileAccessMode.MAPPED);
+        try {
+            JarFileEntries entries = parse(dataFile, CentralDirectoryMode.OFF_HEAP, EntryIndexMode.SORTED);
+            assertEntries(entries);
+
+            // 内存映射的jar直接使用映射的内存（只读视图），不会拷贝到新分配的堆外内存
+            Field field = JarFileEntries.class.getDeclaredField("centralDirectoryBuffer");
+            field.setAccessible(true);
+            ByteBuffer buffer = (ByteBuffer)field.get(entries);
+            Assert.assertTrue(buffer.isDirect());
+            Assert.assertTrue(buffer.isReadOnly());
+        } finally {
+            dataFile.close();
+        }
+    }
+
+    @Test(dataProvider = "centralDirectoryModes")
+    public void testNameMatchesRawBytes(CentralDirectoryMode mode) throws IOException {
+        RandomAccessDataFile dataFile = new RandomAccessDataFile(file, FileAccessMode.RANDOM_ACCESS_FILE);
+        try {
+            JarFileEntries entries = parse(dataFile, mode, EntryIndexMode.SORTED);
+            String[] others = {"", "dir", "dir/f.tx", "dir/f.txtx", "中文/名字.txr", "中文/名字", "emoji/\uD83D\uDE01.txt",
+                "emoji/\uD83D.txt", "Aa.txt", "BB.txt", "AaBB.txt"};
+            for (int index = 0; index < entries.getSize(); index++) {
+                // 没有创建过entry，名字直接与中央目录中的原始字节比较
+                String name = entries.getNameAt(index);
+                Assert.assertTrue(entries.hasName(index, name, (char)0), name);
+                Assert.assertFalse(entries.hasName(index, name, 'x'), name);
+                if (name.endsWith("/")) {
+                    Assert.assertTrue(entries.hasName(index, name.substring(0, name.length() - 1), '/'), name);
+                }
+                for (String other : others) {
+                    Assert.assertEquals(entries.hasName(index, other, (char)0), other.equals(name), name + " " + other);
+                }
+            }
+            Assert.assertEquals(entries.getCacheStats().getSize(), 0);
+        } finally {
+            dataFile.close();
+        }
+    }
+
+    @DataProvider
+    public Object[][] indexModes() {
+        return Arrays.stream(EntryIndexMode.values()).map(mode -> new Object[] {mode}).toArray(Object[][]::new);
+    }
+
+    @Test(dataProvider = "indexModes")
+    public void testIndexMode(EntryIndexMode indexMode) throws IOException {
+        RandomAccessDataFile dataFile = new RandomAccessDataFile(file, FileAccessMode.RANDOM_ACCESS_FILE);
+        try {
+            JarFileEntries entries = parse(dataFile, CentralDirectoryMode.NONE, indexMode);
+            Assert.assertEquals(entries.getIndexMode(), indexMode);
+            assertEntries(entries);
+
+            // "Aa.txt"与"BB.txt"的hashCode相同
+            Assert.assertEquals("Aa.txt".hashCode(), "BB.txt".hashCode());
+            int aa = entries.findIndex("Aa.txt".hashCode(), "Aa.txt", (char)0);
+            int bb = entries.findIndex("BB.txt".hashCode(), "BB.txt", (char)0);
+            Assert.assertTrue(aa >= 0 && bb >= 0 && aa != bb);
+            Assert.assertEquals(entries.getNameAt(aa), "Aa.txt");
+            Assert.assertEquals(entries.getNameAt(bb), "BB.txt");
+            Assert.assertEquals(entries.findIndex("AaBB.txt".hashCode(), "AaBB.txt", (char)0), -1);
+
+            // 目录可以通过不带'/'的名字加后缀查找
+            int dir = entries.findIndex(AsciiBytes.hashCode(AsciiBytes.hashCode("dir"), '/'), "dir", '/');
+            Assert.assertEquals(entries.getNameAt(dir), "dir/");
+
+            List<String> iterated = new ArrayList<>();
+            for (int index = 0; index < entries.getSize(); index++) {
+                String name = entries.getNameAt(index);
+                Assert.assertEquals(entries.findIndex(name.hashCode(), name, (char)0), index, name);
+                Assert.assertEquals(entries.getHashCode(index), name.hashCode(), name);
+                Assert.assertEquals(entries.getEntryAt(index).getName(), name);
+            }
+            for (JarEntry entry : entries) {
+                iterated.add(entry.getName());
+            }
+            if (indexMode == EntryIndexMode.SORTED) {
+                Assert.assertEquals(new HashSet<>(iterated), new HashSet<>(names));
+            } else {
+                // 开放寻址表不改变entry顺序，序号就是中央目录中的顺序
+                Assert.assertEquals(iterated, names);
+            }
+        } finally {
+            dataFile.close();
+        }
+    }
+
+    @Test
+    public void testIndexModeProperty() throws IOException {
+        try {
+            System.setProperty(EntryIndexMode.PROPERTY, "seeded_hash");
+            try (JarFile hashed = new JarFile(file)) {
+                Assert.assertEquals(hashed.getEntries().getIndexMode(), EntryIndexMode.SEEDED_HASH);
+                Assert.assertEquals(hashed.getJarEntry("中文/名字.txt").getName(), "中文/名字.txt");
+            }
+            System.setProperty(EntryIndexMode.PROPERTY, "illegal");
+            Assert.assertEquals(EntryIndexMode.getDefault(), EntryIndexMode.SORTED);
+        } finally {
+            System.clearProperty(EntryIndexMode.PROPERTY);
+        }
+    }
+
+    @Test
+    public void testMatchesByteBuffer() {
+        String[] values = {"", "a", "dir/", "中文/名字.txt", "emoji/\uD83D\uDE00.txt", "\u00E9t\u00E9"};
+        for (String value : values) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            byte[] padded = new byte[bytes.length + 4];
+            System.arraycopy(bytes, 0, padded, 2, bytes.length);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(padded.length);
+            buffer.put(padded).flip();
+            for (String name : values) {
+                boolean expected = value.equals(name);
+                Assert.assertEquals(AsciiBytes.matches(padded, 2, bytes.length, name, (char)0), expected);
+                Assert.assertEquals(AsciiBytes.matches(buffer, 2, bytes.length, name, (char)0), expected);
+                if (value.endsWith("/")) {
+                    String prefix = value.substring(0, value.length() - 1);
+                    Assert.assertTrue(AsciiBytes.matches(padded, 2, bytes.length, prefix, '/'));
+                    Assert.assertTrue(AsciiBytes.matches(buffer, 2, bytes.length, prefix, '/'));
+                }
+            }
+        }
+    }
+
+    private JarFileEntries parse(RandomAccessData data, CentralDirectoryMode mode, EntryIndexMode indexMode)
+        throws IOException {
+        CentralDirectoryParser parser = new CentralDirectoryParser(mode);
+        JarFileEntries entries = parser.addVisitor(new JarFileEntries(jarFile, null, indexMode));
+        parser.parse(data, true);
+        return entries;
+    }
+
+    private void assertEntries(JarFileEntries entries) {
+        Assert.assertEquals(entries.getSize(), names.size());
+        for (String name : names) {
+            JarEntry entry = entries.getEntry(name);
+            Assert.assertNotNull(entry, name);
+            Assert.assertEquals(entry.getName(), name);
+            Assert.assertEquals(entry.isDirectory(), name.endsWith("/"), name);
+        }
+    }
+
+    /**
+     * 统计读取次数的数据
+     */
+    private static final class CountingData implements RandomAccessData {
+
+        private final RandomAccessData data;
+
+        private final AtomicInteger reads;
+
+        private CountingData(RandomAccessData data, AtomicInteger reads) {
+            this.data = data;
+            this.reads = reads;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            reads.incrementAndGet();
+            return data.getInputStream();
+        }
+
+        @Override
+        public RandomAccessData getSubsection(long offset, long length) {
+            return new CountingData(data.getSubsection(offset, length), reads);
+        }
+
+        @Override
+        public byte[] read() throws IOException {
+            reads.incrementAndGet();
+            return data.read();
+        }
+
+        @Override
+        public byte[] read(long offset, long length) throws IOException {
+            reads.incrementAndGet();
+            return data.read(offset, length);
+        }
+
+        @Override
+        public long getSize() {
+            return data.getSize();
+        }
+
+    }
+
+}
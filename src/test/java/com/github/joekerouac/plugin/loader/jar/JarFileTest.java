@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.joekerouac.plugin.loader.jar;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.net.URL;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.github.joekerouac.plugin.loader.util.JarFileUtil;
+
+/**
+ * {@link JarFile}嵌套jar的共享与关闭语义测试
+ *
+ * @author JoeKerouac
+ * @date 2026-10-17 13:00
+ * @since 4.0.1
+ */
+public class JarFileTest {
+
+    private File file;
+
+    @BeforeClass
+    public void init() throws IOException {
+        byte[] inner = TestJars.content().add("inner.txt", "inner").toBytes();
+        byte[] nested = TestJars.content().add("nested.txt", "nested").add("inner.jar", inner).toBytes();
+        file = TestJars.content().add("root.txt", "root").add("lib/nested.jar", nested)
+            .write(new File(TestJars.tempDir(), "root.jar"));
+    }
+
+    @Test
+    public void testNestedJarFileIsShared() throws IOException {
+        try (JarFile root = new JarFile(file)) {
+            JarFile first = root.getNestedJarFile(root.getJarEntry("lib/nested.jar"));
+            JarFile second = root.getNestedJarFile(root.getJarEntry("lib/nested.jar"));
+            Assert.assertSame(second, first);
+
+            // 一个持有者关闭不影响其他持有者
+            first.close();
+            Assert.assertFalse(second.isClosed());
+            Assert.assertEquals(read(second, "nested.txt"), "nested");
+
+            // 最后一个持有者关闭后才真正关闭，再次获取时重新打开
+            second.close();
+            Assert.assertTrue(second.isClosed());
+            JarFile third = root.getNestedJarFile(root.getJarEntry("lib/nested.jar"));
+            Assert.assertNotSame(third, second);
+            Assert.assertEquals(read(third, "nested.txt"), "nested");
+        }
+    }
+
+    @Test
+    public void testParentCloseClosesNestedJarFiles() throws IOException {
+        JarFile root = new JarFile(file);
+        JarFile nested = root.getNestedJarFile(root.getJarEntry("lib/nested.jar"));
+        JarFile inner = nested.getNestedJarFile(nested.getJarEntry("inner.jar"));
+        JarFile pinned = root.getPinnedNestedJarFile(root.getJarEntry("lib/nested.jar"));
+        Assert.assertSame(pinned, nested);
+
+        root.close();
+        Assert.assertTrue(nested.isClosed());
+        Assert.assertTrue(inner.isClosed());
+        Assert.expectThrows(IllegalStateException.class, () -> nested.getEntry("nested.txt"));
+        Assert.expectThrows(IllegalStateException.class, () -> root.getNestedJarFile(root.getJarEntry("root.txt")));
+    }
+
+    @Test
+    public void testPinnedNestedJarFileStaysOpen() throws IOException {
+        try (JarFile root = new JarFile(file)) {
+            JarFile nested = root.getNestedJarFile(root.getJarEntry("lib/nested.jar"));
+            JarFile pinned = root.getPinnedNestedJarFile(root.getJarEntry("lib/nested.jar"));
+            Assert.assertSame(pinned, nested);
+
+            // 被内部使用的嵌套jar不会被持有者关闭
+            nested.close();
+            nested.close();
+            Assert.assertFalse(pinned.isClosed());
+            Assert.assertEquals(read(pinned, "nested.txt"), "nested");
+        }
+    }
+
+    @Test
+    public void testFromUrlClosesOwnedRoot() throws Exception {
+        URL url = new URL("jar:" + file.toURI() + "!/lib/nested.jar!/inner.jar!/");
+        JarFile inner = JarFileUtil.fromUrl(url);
+        Assert.assertEquals(read(inner, "inner.txt"), "inner");
+
+        // 为了打开嵌套jar而打开的根jar随嵌套jar一起关闭
+        Field field = JarFile.class.getDeclaredField("ownedRoot");
+        field.setAccessible(true);
+        JarFile root = (JarFile)field.get(inner);
+        Assert.assertNotNull(root);
+        Assert.assertFalse(root.isClosed());
+        inner.close();
+        Assert.assertTrue(inner.isClosed());
+        Assert.assertTrue(root.isClosed());
+    }
+
+    @Test
+    public void testNoNativeOpenByDefault() throws IOException {
+        Assert.assertTrue(NativeAnchor.isEnabled());
+        long nativeOpenCount = NativeAnchor.getNativeOpenCount();
+        try (JarFile root = new JarFile(file)) {
+            JarFile nested = root.getNestedJarFile(root.getJarEntry("lib/nested.jar"));
+            JarFile inner = nested.getNestedJarFile(nested.getJarEntry("inner.jar"));
+            Assert.assertNotNull(root.getWrapper());
+            Assert.assertNotNull(inner.getWrapper());
+            Assert.assertEquals(read(inner, "inner.txt"), "inner");
+        }
+
+        // 父类构造器都指向共享的占位jar，根jar不会被JDK打开
+        Assert.assertEquals(NativeAnchor.getNativeOpenCount(), nativeOpenCount);
+    }
+
+    private static String read(JarFile jarFile, String name) throws IOException {
+        return new String(TestJars.read(jarFile.getInputStream(jarFile.getEntry(name))), "UTF-8");
+    }
+
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.joekerouac.plugin.loader.jar;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * {@link JarFile#NATIVE_ANCHOR_PROPERTY}开启（默认）与关闭时的启动耗时对比，不是单元测试，需要手动运行main方法
+ * <p>
+ * 构建一个包含大量entry和嵌套jar的fat jar，每种设置分别启动多个新的JVM，在新JVM中打开fat jar以及其中所有的嵌套jar，输出冷启动耗时的中位数
+ * 以及打开后进程持有的文件描述符数量（只在Linux上统计）
+ *
+ * @author JoeKerouac
+ * @date 2026-10-17 12:00
+ * @since 4.0.1
+ */
+public class NativeAnchorBenchmark {
+
+    private static final int ENTRIES = 20000;
+
+    private static final int NESTED_JARS = 200;
+
+    private static final int FORKS = 5;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 1) {
+            child(new File(args[0]));
+            return;
+        }
+
+        File fatJar = createFatJar();
+        for (String anchor : new String[] {"false", "true"}) {
+            List<Long> times = new ArrayList<>();
+            String fds = null;
+            for (int i = 0; i < FORKS; i++) {
+                String[] result = fork(anchor, fatJar).split(" ");
+                times.add(Long.parseLong(result[0]));
+                fds = result[1];
+            }
+            Collections.sort(times);
+            System.out.printf("anchor=%-5s startup=%.1f ms (median of %d JVMs) fds=%s%n", anchor,
+                times.get(FORKS / 2) / 1e6, FORKS, fds);
+        }
+    }
+
+    private static File createFatJar() throws IOException {
+        File dir = TestJars.tempDir();
+        TestJars.Content fat = TestJars.content();
+        for (int i = 0; i < ENTRIES; i++) {
+            fat.add("com/example/app/p" + (i % 100) + "/Clazz" + i + ".class", "class-" + i);
+        }
+        for (int i = 0; i < NESTED_JARS; i++) {
+            TestJars.Content nested = TestJars.content();
+            for (int j = 0; j < 50; j++) {
+                nested.add("com/vendor" + i + "/Clazz" + j + ".class", "class-" + j);
+            }
+            fat.add("lib/lib" + i + ".jar", nested.toBytes());
+        }
+        return fat.write(new File(dir, "fat.jar"));
+    }
+
+    private static String fork(String anchor, File fatJar) throws IOException, InterruptedException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        Process process = new ProcessBuilder(java, "-D" + JarFile.NATIVE_ANCHOR_PROPERTY + "=" + anchor, "-cp",
+            System.getProperty("java.class.path"), NativeAnchorBenchmark.class.getName(), fatJar.getAbsolutePath())
+                .redirectErrorStream(true).start();
+        String line;
+        try (BufferedReader reader =
+            new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            line = reader.readLine();
+        }
+        if (process.waitFor() != 0 || line == null) {
+            throw new IllegalStateException("benchmark jvm failed: " + line);
+        }
+        return line;
+    }
+
+    private static void child(File fatJar) throws IOException {
+        long start = System.nanoTime();
+        List<JarFile> nestedJarFiles = new ArrayList<>();
+        try (JarFile jarFile = new JarFile(fatJar)) {
+            Iterator<java.util.jar.JarEntry> iterator = jarFile.iterator();
+            while (iterator.hasNext()) {
+                java.util.jar.JarEntry entry = iterator.next();
+                if (entry.getName().endsWith(".jar")) {
+                    nestedJarFiles.add(jarFile.getNestedJarFile(entry));
+                }
+            }
+            long time = System.nanoTime() - start;
+            String[] fds = new File("/proc/self/fd").list();
+            System.out.println(time + " " + (fds == null ? "n/a" : String.valueOf(fds.length)));
+        }
+    }
+
+}
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.joekerouac.plugin.loader.jar;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLConnection;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * {@link ResolvedSpecCache}测试
+ *
+ * @author JoeKerouac
+ * @date 2026-10-17 14:00
+ * @since 4.0.1
+ */
+public class ResolvedSpecCacheTest {
+
+    @Test
+    public void testGetPutRemove() {
+        ResolvedSpecCache cache = new ResolvedSpecCache(16);
+        JarURLConnection.ResolvedSpec a = spec();
+        Assert.assertNull(cache.get("a"));
+        cache.put("a", a);
+        Assert.assertSame(cache.get("a"), a);
+
+        // 只移除对应的解析结果
+        cache.remove("a", spec());
+        Assert.assertSame(cache.get("a"), a);
+        cache.remove("a", a);
+        Assert.assertNull(cache.get("a"));
+
+        cache.put("a", a);
+        cache.clear();
+        Assert.assertNull(cache.get("a"));
+    }
+
+    @Test
+    public void testDisabled() {
+        ResolvedSpecCache cache = new ResolvedSpecCache(0);
+        cache.put("a", spec());
+        Assert.assertNull(cache.get("a"));
+    }
+
+    @Test
+    public void testHotSpecsSurviveScan() {
+        ResolvedSpecCache cache = new ResolvedSpecCache(64);
+        String[] hot = new String[16];
+        JarURLConnection.ResolvedSpec[] hotSpecs = new JarURLConnection.ResolvedSpec[hot.length];
+        for (int i = 0; i < hot.length; i++) {
+            hot[i] = "/hot/" + i;
+            hotSpecs[i] = spec();
+            cache.put(hot[i], hotSpecs[i]);
+            cache.get(hot[i]);
+        }
+
+        // 大量只访问一次的url优先被淘汰，不会让持续访问的url失效；只有两个热点url落在同一组时才会淘汰其中一个
+        for (int i = 0; i < 10000; i++) {
+            String file = "/cold/" + i;
+            if (cache.get(file) == null) {
+                cache.put(file, spec());
+            }
+            for (String key : hot) {
+                cache.get(key);
+            }
+        }
+
+        int survived = 0;
+        for (int i = 0; i < hot.length; i++) {
+            if (cache.get(hot[i]) == hotSpecs[i]) {
+                survived++;
+            }
+        }
+        Assert.assertTrue(survived >= hot.length - 4, "survived: " + survived);
+    }
+
+    @Test
+    public void testConnectionsThroughCache() throws IOException {
+        byte[] nested = TestJars.content().add("a.txt", "a").add("dir/", (String)null).toBytes();
+        File file = TestJars.content().add("lib/nested.jar", nested).write(new File(TestJars.tempDir(), "root.jar"));
+        try (JarFile root = new JarFile(file)) {
+            URL url = new URL(root.getUrl(), "lib/nested.jar!/a.txt");
+            for (int i = 0; i < 3; i++) {
+                URLConnection connection = url.openConnection();
+                Assert.assertEquals(new String(TestJars.read(connection.getInputStream()), "UTF-8"), "a");
+                Assert.assertEquals(((JarURLConnection)connection).getJarEntry().getName(), "a.txt");
+            }
+            Assert.assertNotNull(JarURLConnection.getJarFile(new URL(root.getUrl(), "lib/nested.jar!/"), root));
+            Assert.assertNull(JarURLConnection.getJarFile(new URL(root.getUrl(), "lib/missing.jar!/"), root));
+        }
+    }
+
+    @Test
+    public void testResolvedEntryIsReused() throws IOException {
+        byte[] nested = TestJars.content().add("a.txt", "a").toBytes();
+        File file = TestJars.content().add("lib/nested.jar", nested).write(new File(TestJars.tempDir(), "root.jar"));
+        try (JarFile root = new JarFile(file)) {
+            URL url = new URL(root.getUrl(), "lib/nested.jar!/a.txt");
+            java.util.jar.JarEntry first = ((JarURLConnection)url.openConnection()).getJarEntry();
+            JarFile nestedJarFile = JarURLConnection.getJarFile(new URL(root.getUrl(), "lib/nested.jar!/"), root);
+            CacheStats stats = nestedJarFile.getEntryCacheStats();
+
+            // 命中缓存的解析结果时直接使用解析时找到的entry，不再查找嵌套jar的entry
+            Assert.assertSame(((JarURLConnection)url.openConnection()).getJarEntry(), first);
+            Assert.assertEquals(nestedJarFile.getEntryCacheStats().getHitCount(), stats.getHitCount());
+            Assert.assertEquals(nestedJarFile.getEntryCacheStats().getMissCount(), stats.getMissCount());
+
+            // 嵌套jar的entry缓存清空后缓存的解析结果失效，重新查找entry
+            nestedJarFile.clearCache();
+            java.util.jar.JarEntry second = ((JarURLConnection)url.openConnection()).getJarEntry();
+            Assert.assertNotSame(second, first);
+            Assert.assertEquals(second.getName(), "a.txt");
+        }
+    }
+
+    private static JarURLConnection.ResolvedSpec spec() {
+        return new JarURLConnection.ResolvedSpec(null, null, null);
+    }
+
+}
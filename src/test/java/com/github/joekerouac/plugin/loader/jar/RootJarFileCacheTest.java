@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.joekerouac.plugin.loader.jar;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+/**
+ * {@link RootJarFileCache}淘汰测试
+ *
+ * @author JoeKerouac
+ * @date 2026-10-17 13:30
+ * @since 4.0.1
+ */
+public class RootJarFileCacheTest {
+
+    private File a;
+
+    private File b;
+
+    private File c;
+
+    @BeforeClass
+    public void init() throws IOException {
+        File dir = TestJars.tempDir();
+        byte[] nested = TestJars.content().add("nested.txt", "nested").toBytes();
+        a = TestJars.content().add("a.txt", "a").add("lib/nested.jar", nested).write(new File(dir, "a.jar"));
+        b = TestJars.content().add("b.txt", "b").write(new File(dir, "b.jar"));
+        c = TestJars.content().add("c.txt", "c").write(new File(dir, "c.jar"));
+    }
+
+    @Test
+    public void testEvictedRootStaysUsable() throws IOException {
+        RootJarFileCache cache = new RootJarFileCache(2);
+        JarFile rootA = cache.get(a);
+        JarFile nested = rootA.getPinnedNestedJarFile(rootA.getJarEntry("lib/nested.jar"));
+        Assert.assertSame(cache.get(a), rootA);
+        cache.get(b);
+        cache.get(c);
+
+        CacheStats stats = cache.getStats();
+        Assert.assertEquals(stats.getEvictionCount(), 1);
+        Assert.assertEquals(stats.getSize(), 2);
+
+        // 被淘汰的根jar可能仍然被使用，只释放底层文件，不关闭
+        Assert.assertFalse(rootA.isClosed());
+        Assert.assertFalse(nested.isClosed());
+        Assert.assertEquals(read(rootA, "a.txt"), "a");
+        Assert.assertEquals(read(nested, "nested.txt"), "nested");
+
+        // 淘汰后重新打开
+        Assert.assertNotSame(cache.get(a), rootA);
+    }
+
+    @Test
+    public void testRetainedRootIsNotEvicted() throws IOException {
+        RootJarFileCache cache = new RootJarFileCache(1);
+        cache.retain(a);
+        JarFile rootA = cache.get(a);
+        JarFile rootB = cache.get(b);
+        JarFile rootC = cache.get(c);
+        Assert.assertSame(cache.get(a), rootA);
+        Assert.assertSame(cache.get(c), rootC);
+        Assert.assertNotSame(cache.get(b), rootB);
+
+        // 释放引用后可以被淘汰
+        cache.release(a);
+        cache.get(c);
+        Assert.assertEquals(cache.getStats().getSize(), 1);
+        Assert.assertNotSame(cache.get(a), rootA);
+        Assert.assertFalse(rootA.isClosed());
+    }
+
+    private static String read(JarFile jarFile, String name) throws IOException {
+        return new String(TestJars.read(jarFile.getInputStream(jarFile.getEntry(name))), "UTF-8");
+    }
+
+}
@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.joekerouac.plugin.loader.jar;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 测试使用的jar构建工具
+ *
+ * @author JoeKerouac
+ * @date 2026-10-17 10:30
+ * @since 4.0.1
+ */
+public final class TestJars {
+
+    private TestJars() {}
+
+    /**
+     * 创建临时目录，JVM退出时删除
+     *
+     * @return 临时目录
+     * @throws IOException
+     *             IO异常
+     */
+    public static File tempDir() throws IOException {
+        File dir = Files.createTempDirectory("plugin-loader-test").toFile();
+        dir.deleteOnExit();
+        return dir;
+    }
+
+    /**
+     * 开始构建一个jar
+     *
+     * @return jar内容
+     */
+    public static Content content() {
+        return new Content();
+    }
+
+    /**
+     * 读取输入流中的全部内容
+     *
+     * @param inputStream
+     *            输入流，读取后关闭
+     * @return 内容
+     * @throws IOException
+     *             IO异常
+     */
+    public static byte[] read(InputStream inputStream) throws IOException {
+        try (InputStream in = inputStream) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int len;
+            while ((len = in.read(buffer)) > 0) {
+                out.write(buffer, 0, len);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    /**
+     * jar内容，entry按照添加顺序写入
+     */
+    public static final class Content {
+
+        private final Map<String, byte[]> entries = new LinkedHashMap<>();
+
+        /**
+         * 添加文本entry，名字以'/'结尾时是目录
+         */
+        public Content add(String name, String text) {
+            return add(name, text == null ? null : text.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * 添加entry，名字以'/'结尾时是目录
+         */
+        public Content add(String name, byte[] data) {
+            entries.put(name, data);
+            return this;
+        }
+
+        /**
+         * 生成jar的字节，所有entry都不压缩，可以作为嵌套jar使用
+         */
+        public byte[] toBytes() throws IOException {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            write(out);
+            return out.toByteArray();
+        }
+
+        /**
+         * 写入文件，所有entry都不压缩
+         */
+        public File write(File file) throws IOException {
+            try (OutputStream out = new FileOutputStream(file)) {
+                write(out);
+            }
+            file.deleteOnExit();
+            return file;
+        }
+
+        private void write(OutputStream out) throws IOException {
+            ZipOutputStream zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                byte[] data = entry.getValue() == null ? new byte[0] : entry.getValue();
+                ZipEntry zipEntry = new ZipEntry(entry.getKey());
+                zipEntry.setMethod(ZipEntry.STORED);
+                zipEntry.setSize(data.length);
+                CRC32 crc = new CRC32();
+                crc.update(data);
+                zipEntry.setCrc(crc.getValue());
+                zip.putNextEntry(zipEntry);
+                zip.write(data);
+                zip.closeEntry();
+            }
+            zip.finish();
+        }
+
+    }
+
+}
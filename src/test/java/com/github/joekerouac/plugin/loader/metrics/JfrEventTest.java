@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.joekerouac.plugin.loader.metrics;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.github.joekerouac.plugin.loader.jar.TestJars;
+
+/**
+ * {@link JfrEvent}测试，JFR的类通过反射访问，运行在没有JFR的JDK上时只验证不产生事件
+ *
+ * @author JoeKerouac
+ * @date 2026-10-17 19:20
+ * @since 4.0.1
+ */
+public class JfrEventTest {
+
+    private static final String CLASS_DEFINE = "com.github.joekerouac.plugin.loader.ClassDefine";
+
+    @Test
+    public void testRecording() throws Exception {
+        Class<?> recordingClass;
+        try {
+            recordingClass = Class.forName("jdk.jfr.Recording");
+        } catch (ClassNotFoundException e) {
+            Assert.assertNull(JfrEvent.CLASS_DEFINE.begin());
+            return;
+        }
+
+        Assert.assertNull(JfrEvent.CLASS_DEFINE.begin());
+
+        Object recording = recordingClass.getConstructor().newInstance();
+        try {
+            recordingClass.getMethod("enable", String.class).invoke(recording, CLASS_DEFINE);
+            recordingClass.getMethod("start").invoke(recording);
+
+            // JFR初始化后监听器在后台线程中注册，注册完成前begin返回null
+            Object event = awaitBegin(true);
+            JfrEvent.CLASS_DEFINE.commit(event, "com.x.A", "a.jar", 10L);
+
+            recordingClass.getMethod("stop").invoke(recording);
+            Path dump = new File(TestJars.tempDir(), "recording.jfr").toPath();
+            dump.toFile().deleteOnExit();
+            recordingClass.getMethod("dump", Path.class).invoke(recording, dump);
+
+            List<Object> events = readEvents(dump);
+            Assert.assertEquals(events.size(), 1);
+            Class<?> recordedObject = Class.forName("jdk.jfr.consumer.RecordedObject");
+            Assert.assertEquals(recordedObject.getMethod("getString", String.class).invoke(events.get(0), "className"),
+                "com.x.A");
+            Assert.assertEquals(recordedObject.getMethod("getString", String.class).invoke(events.get(0), "jar"),
+                "a.jar");
+            Assert.assertEquals(recordedObject.getMethod("getLong", String.class).invoke(events.get(0), "bytes"), 10L);
+        } finally {
+            recordingClass.getMethod("close").invoke(recording);
+        }
+
+        // recording结束后不再产生事件
+        awaitBegin(false);
+    }
+
+    /**
+     * 等待begin的结果符合预期
+     *
+     * @param recording
+     *            是否期望有正在运行的recording
+     * @return begin返回的事件
+     * @throws InterruptedException
+     *             中断异常
+     */
+    private static Object awaitBegin(boolean recording) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (true) {
+            Object event = JfrEvent.CLASS_DEFINE.begin();
+            if ((event != null) == recording) {
+                return event;
+            }
+            Assert.assertTrue(System.nanoTime() < deadline, "recording: " + recording);
+            Thread.sleep(1);
+        }
+    }
+
+    private static List<Object> readEvents(Path dump) throws ReflectiveOperationException {
+        Class<?> recordedEvent = Class.forName("jdk.jfr.consumer.RecordedEvent");
+        Class<?> eventType = Class.forName("jdk.jfr.EventType");
+        List<Object> events = new ArrayList<>();
+        for (Object event : (List<?>)Class.forName("jdk.jfr.consumer.RecordingFile")
+            .getMethod("readAllEvents", Path.class).invoke(null, dump)) {
+            Object type = recordedEvent.getMethod("getEventType").invoke(event);
+            if (CLASS_DEFINE.equals(eventType.getMethod("getName").invoke(type))) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+}
@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.joekerouac.plugin.loader.metrics;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * {@link LatencyHistogram}测试
+ *
+ * @author JoeKerouac
+ * @date 2026-10-17 19:10
+ * @since 4.0.1
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void testBucket() {
+        // 第i个桶统计[2^i, 2^(i+1))，第0个桶同时统计0和负数
+        long[][] cases = {{-5, 0}, {0, 0}, {1, 0}, {2, 1}, {3, 1}, {4, 2}, {1023, 9}, {1024, 10}, {1025, 10},
+            {Long.MAX_VALUE, 62}};
+        for (long[] c : cases) {
+            LatencyHistogram histogram = new LatencyHistogram();
+            histogram.record(c[0]);
+            long[] buckets = histogram.getBuckets();
+            Assert.assertEquals(buckets.length, LatencyHistogram.BUCKETS);
+            for (int i = 0; i < buckets.length; i++) {
+                Assert.assertEquals(buckets[i], i == c[1] ? 1 : 0, c[0] + " bucket " + i);
+            }
+        }
+    }
+
+    @Test
+    public void testCountAndTotal() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(10);
+        histogram.record(20);
+        histogram.record(-1);
+        Assert.assertEquals(histogram.getCount(), 3);
+        Assert.assertEquals(histogram.getTotalNanos(), 30);
+    }
+
+    @Test
+    public void testQuantile() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Assert.assertEquals(histogram.getQuantile(0.99), 0);
+
+        // 98个样本在[64, 128)，2个样本在[65536, 131072)
+        for (int i = 0; i < 98; i++) {
+            histogram.record(100);
+        }
+        histogram.record(100_000);
+        histogram.record(100_000);
+        Assert.assertEquals(histogram.getQuantile(0), 127);
+        Assert.assertEquals(histogram.getQuantile(0.5), 127);
+        Assert.assertEquals(histogram.getQuantile(0.98), 127);
+        Assert.assertEquals(histogram.getQuantile(0.99), 131071);
+        Assert.assertEquals(histogram.getQuantile(1), 131071);
+        // 超出范围的分位按照边界处理
+        Assert.assertEquals(histogram.getQuantile(-1), 127);
+        Assert.assertEquals(histogram.getQuantile(2), 131071);
+
+        histogram.record(Long.MAX_VALUE);
+        Assert.assertEquals(histogram.getQuantile(1), Long.MAX_VALUE);
+    }
+
+}
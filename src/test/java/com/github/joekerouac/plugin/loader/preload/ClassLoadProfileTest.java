@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.joekerouac.plugin.loader.preload;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.github.joekerouac.plugin.loader.jar.TestJars;
+
+/**
+ * {@link ClassLoadProfile}测试
+ *
+ * @author JoeKerouac
+ * @date 2026-10-17 17:10
+ * @since 4.0.1
+ */
+public class ClassLoadProfileTest {
+
+    @Test
+    public void testWriteAndRead() throws IOException {
+        String[] classNames = {"com.x.A", "com.x.AB", "com.x.y.C", "org.Z", "com.x.A"};
+        ClassLoadProfile profile = new ClassLoadProfile("key", Arrays.asList("main", "worker"),
+            new int[] {0, 0, 1, 1, 0}, new int[] {0, 1, 2, 3, Integer.MAX_VALUE}, classNames);
+        File file = new File(TestJars.tempDir(), "test.prof");
+        profile.write(file);
+
+        ClassLoadProfile read = ClassLoadProfile.read(file);
+        Assert.assertEquals(read.getKey(), "key");
+        Assert.assertEquals(read.size(), classNames.length);
+        Assert.assertEquals(read.getClassNames(), Arrays.asList(classNames));
+        for (int i = 0; i < classNames.length; i++) {
+            Assert.assertEquals(read.getThreadName(i), profile.getThreadName(i));
+            Assert.assertEquals(read.getTime(i), profile.getTime(i));
+        }
+    }
+
+    @Test
+    public void testReadCorrupt() throws IOException {
+        File file = new File(TestJars.tempDir(), "corrupt.prof");
+        new ClassLoadProfile("key", Collections.singletonList("main"), new int[] {0}, new int[] {0},
+            new String[] {"com.x.A"}).write(file);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 1);
+        }
+        assertReadFails(file);
+
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[] {1, 2, 3, 4, 0, 0, 0, 2});
+        }
+        assertReadFails(file);
+    }
+
+    @Test
+    public void testKeyChangesWithJar() throws IOException {
+        File jar = TestJars.content().add("com/x/A.class", "A").write(new File(TestJars.tempDir(), "a.jar"));
+        List<URL> urls = Arrays.asList(jar.toURI().toURL(), new URL("jar:" + jar.toURI() + "!/lib/b.jar!/"));
+        String key = ClassLoadProfile.createKey(urls);
+        Assert.assertEquals(ClassLoadProfile.createKey(urls), key);
+        Assert.assertEquals(ClassLoadProfile.getFile(jar.getParentFile(), urls),
+            ClassLoadProfile.getFile(jar.getParentFile(), urls));
+
+        // 插件升级后profile文件不变，但是key变化
+        TestJars.content().add("com/x/A.class", "A").add("com/x/B.class", "B").write(jar);
+        Assert.assertNotEquals(ClassLoadProfile.createKey(urls), key);
+    }
+
+    private static void assertReadFails(File file) {
+        try {
+            ClassLoadProfile.read(file);
+            Assert.fail("read corrupt profile");
+        } catch (IOException e) {
+            // 预期
+        }
+    }
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.joekerouac.plugin.loader.preload;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.github.joekerouac.plugin.loader.jar.TestJars;
+
+/**
+ * {@link ClassLoadRecorder}测试
+ *
+ * @author JoeKerouac
+ * @date 2026-10-17 17:10
+ * @since 4.0.1
+ */
+public class ClassLoadRecorderTest {
+
+    @Test
+    public void testClose() throws IOException {
+        File file = new File(TestJars.tempDir(), "close.prof");
+        ClassLoadRecorder recorder = new ClassLoadRecorder(file, "key", 1, TimeUnit.HOURS);
+        recorder.record("com.x.A");
+        recorder.record("com.x.B");
+        Assert.assertFalse(file.exists());
+
+        recorder.close();
+        Assert.assertFalse(recorder.isRecording());
+        recorder.record("com.x.C");
+        recorder.close();
+
+        ClassLoadProfile profile = ClassLoadProfile.read(file);
+        Assert.assertEquals(profile.getKey(), "key");
+        Assert.assertEquals(profile.getClassNames(), Arrays.asList("com.x.A", "com.x.B"));
+        Assert.assertEquals(profile.getThreadName(0), Thread.currentThread().getName());
+    }
+
+    @Test
+    public void testFlushInBackground() throws Exception {
+        File file = new File(TestJars.tempDir(), "flush.prof");
+        ClassLoadRecorder recorder = new ClassLoadRecorder(file, "key", 200, TimeUnit.MILLISECONDS);
+        recorder.record("com.x.A");
+        Thread.sleep(300);
+
+        // 时间窗口结束后的记录被忽略，并且不会在加载类的线程上写文件
+        Assert.assertFalse(recorder.isRecording());
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!file.exists() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertTrue(file.exists());
+        recorder.record("com.x.B");
+        Assert.assertEquals(ClassLoadProfile.read(file).getClassNames(), Arrays.asList("com.x.A"));
+    }
+
+}
@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.joekerouac.plugin.loader.preload;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.github.joekerouac.plugin.loader.jar.TestJars;
+
+/**
+ * {@link ClassPrefetcher#readClassNames(ByteBuffer)}测试
+ *
+ * @author JoeKerouac
+ * @date 2026-10-17 19:00
+ * @since 4.0.1
+ */
+public class ClassPrefetcherTest {
+
+    @Test
+    public void testReadClassNames() throws IOException {
+        byte[] classBytes = constantPool(false);
+        Assert.assertEquals(ClassPrefetcher.readClassNames(ByteBuffer.wrap(classBytes)),
+            Arrays.asList("com/x/A", "com/x/B", "com/x/中", "com/x/C"));
+
+        // 从position开始解析，不修改position
+        ByteBuffer buffer = ByteBuffer.allocateDirect(classBytes.length + 3);
+        buffer.position(3);
+        buffer.put(classBytes);
+        buffer.position(3);
+        Assert.assertEquals(ClassPrefetcher.readClassNames(buffer).size(), 4);
+        Assert.assertEquals(buffer.position(), 3);
+    }
+
+    @Test
+    public void testReadRealClass() throws IOException {
+        byte[] classBytes = TestJars.read(getClass().getResourceAsStream(getClass().getSimpleName() + ".class"));
+        Assert.assertTrue(ClassPrefetcher.readClassNames(ByteBuffer.wrap(classBytes)).containsAll(
+            Arrays.asList("org/testng/Assert", "java/nio/ByteBuffer", getClass().getName().replace('.', '/'))));
+    }
+
+    @Test
+    public void testMalformed() throws IOException {
+        byte[] classBytes = constantPool(false);
+        List<String> all = ClassPrefetcher.readClassNames(ByteBuffer.wrap(classBytes));
+        Assert.assertEquals(ClassPrefetcher.readClassNames(ByteBuffer.wrap(new byte[0])), Collections.emptyList());
+        Assert.assertEquals(ClassPrefetcher.readClassNames(ByteBuffer.wrap(new byte[] {1, 2, 3, 4, 5, 6, 7, 8})),
+            Collections.emptyList());
+        // 字节码不完整时不抛出异常，返回已经解析出的部分；有未知的tag时无法继续解析，返回空
+        for (int length = 0; length < classBytes.length; length++) {
+            List<String> names = ClassPrefetcher.readClassNames(ByteBuffer.wrap(Arrays.copyOf(classBytes, length)));
+            Assert.assertEquals(names, all.subList(0, names.size()), String.valueOf(length));
+        }
+        Assert.assertEquals(ClassPrefetcher.readClassNames(ByteBuffer.wrap(constantPool(true))),
+            Collections.emptyList());
+    }
+
+    /**
+     * 构造只有常量池的字节码，包含占用两个位置的long、double，引用类型数组、基本类型数组、非ASCII类名以及向后引用
+     */
+    private static byte[] constantPool(boolean unknownTag) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0xCAFEBABE);
+        out.writeShort(0);
+        out.writeShort(52);
+        out.writeShort(16);
+        // #1 #2
+        utf8(out, "com/x/A");
+        classRef(out, 1);
+        // #3 #4
+        out.writeByte(5);
+        out.writeLong(1L);
+        // #5 #6
+        utf8(out, "[[Lcom/x/B;");
+        classRef(out, 5);
+        // #7 #8
+        out.writeByte(6);
+        out.writeDouble(1D);
+        // #9 #10
+        utf8(out, "[I");
+        classRef(out, 9);
+        // #11 #12
+        utf8(out, "com/x/中");
+        classRef(out, 11);
+        // #13
+        out.writeByte(unknownTag ? 2 : 3);
+        out.writeInt(1);
+        // #14 #15
+        classRef(out, 15);
+        utf8(out, "com/x/C");
+        return bytes.toByteArray();
+    }
+
+    private static void utf8(DataOutputStream out, String value) throws IOException {
+        out.writeByte(1);
+        out.writeUTF(value);
+    }
+
+    private static void classRef(DataOutputStream out, int nameIndex) throws IOException {
+        out.writeByte(7);
+        out.writeShort(nameIndex);
+    }
+
+}
@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.joekerouac.plugin.loader.preload;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.jar.Attributes;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.github.joekerouac.plugin.loader.ManifestConst;
+import com.github.joekerouac.plugin.loader.jar.JarFile;
+import com.github.joekerouac.plugin.loader.jar.TestJars;
+
+/**
+ * {@link PreloadHints}测试
+ *
+ * @author JoeKerouac
+ * @date 2026-10-17 18:50
+ * @since 4.0.1
+ */
+public class PreloadHintsTest {
+
+    @Test
+    public void testEmpty() throws IOException {
+        PreloadHints hints = PreloadHints.parse(Arrays.asList(new Attributes(), attributes(" ", "", null)));
+        Assert.assertTrue(hints.isEmpty());
+        Assert.assertEquals(hints.resolve(Collections.emptyList()), Collections.emptyList());
+    }
+
+    @Test
+    public void testResolve() throws IOException {
+        File dir = TestJars.tempDir();
+        File a = TestJars.content().add("com/a/A1.class", "").add("com/a/package-info.class", "")
+            .add("com/a/sub/A2.class", "").add("com/ab/B.class", "").add("com/a/res.txt", "")
+            .add("META-INF/preload.list", "# comment\n com.list.L1 \n\ncom.c.C\r\ncom.list.L2\n")
+            .write(new File(dir, "a.jar"));
+        File b = TestJars.content().add("com/a/A3.class", "").add("org/o/O.class", "")
+            .add("META-INF/preload.list", "com.list.L3\n").write(new File(dir, "b.jar"));
+
+        // 多个Manifest的声明合并去重，值之间可以使用逗号或者空白分隔
+        PreloadHints hints = PreloadHints.parse(Arrays.asList(
+            attributes("com.a.*", "com.c.C,  com.d.D", "/META-INF/preload.list"),
+            attributes("org.o\tcom.a", "com.c.C", "META-INF/preload.list")));
+        Assert.assertFalse(hints.isEmpty());
+
+        List<JarFile> jarFiles = new ArrayList<>();
+        try {
+            jarFiles.add(new JarFile(a));
+            jarFiles.add(new JarFile(b));
+            // 顺序：声明的类、类列表文件（按照jar顺序）、包下的类（包括子包，不包括package-info）
+            Assert.assertEquals(hints.resolve(jarFiles), Arrays.asList("com.c.C", "com.d.D", "com.list.L1",
+                "com.list.L2", "com.list.L3", "com.a.A1", "com.a.sub.A2", "com.a.A3", "org.o.O"));
+        } finally {
+            for (JarFile jarFile : jarFiles) {
+                jarFile.close();
+            }
+        }
+    }
+
+    private static Attributes attributes(String packages, String classes, String classList) {
+        Attributes attributes = new Attributes();
+        attributes.putValue(ManifestConst.PRELOAD_PACKAGES, packages);
+        attributes.putValue(ManifestConst.PRELOAD_CLASSES, classes);
+        if (classList != null) {
+            attributes.putValue(ManifestConst.PRELOAD_CLASS_LIST, classList);
+        }
+        return attributes;
+    }
+
+}
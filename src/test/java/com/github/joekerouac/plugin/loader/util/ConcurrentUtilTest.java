@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.joekerouac.plugin.loader.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * {@link ConcurrentUtil}测试
+ *
+ * @author JoeKerouac
+ * @date 2026-10-17 16:30
+ * @since 4.0.1
+ */
+public class ConcurrentUtilTest {
+
+    private static final int TASKS = 8;
+
+    private static final int FAILED_TASK = 5;
+
+    @Test
+    public void testResultsInTaskOrder() throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<ConcurrentUtil.IOSupplier<Integer>> tasks = new ArrayList<>();
+            for (int i = 0; i < TASKS; i++) {
+                int value = i;
+                tasks.add(() -> value);
+            }
+            List<Integer> results = ConcurrentUtil.invokeAll(tasks, executor);
+            for (int i = 0; i < TASKS; i++) {
+                Assert.assertEquals(results.get(i).intValue(), i);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFailureClosesOtherResults() {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            AtomicInteger opened = new AtomicInteger();
+            AtomicInteger closed = new AtomicInteger();
+            IOException thrown =
+                Assert.expectThrows(IOException.class, () -> ConcurrentUtil.invokeAll(tasks(opened, closed), executor));
+            Assert.assertEquals(thrown.getMessage(), "task " + FAILED_TASK);
+            // 并发执行时所有任务都会执行，除了失败的任务外都被关闭
+            Assert.assertEquals(opened.get(), TASKS - 1);
+            Assert.assertEquals(closed.get(), TASKS - 1);
+            // 关闭失败的异常附加到抛出的异常上
+            Assert.assertEquals(thrown.getSuppressed().length, 1);
+            Assert.assertEquals(thrown.getSuppressed()[0].getMessage(), "close 0");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testSequentialFailureClosesPreviousResults() {
+        AtomicInteger opened = new AtomicInteger();
+        AtomicInteger closed = new AtomicInteger();
+        IOException thrown =
+            Assert.expectThrows(IOException.class, () -> ConcurrentUtil.invokeAll(tasks(opened, closed), null));
+        Assert.assertEquals(thrown.getMessage(), "task " + FAILED_TASK);
+        // 串行执行时失败后不再执行后续任务，之前的结果都被关闭
+        Assert.assertEquals(opened.get(), FAILED_TASK);
+        Assert.assertEquals(closed.get(), FAILED_TASK);
+        Assert.assertEquals(thrown.getSuppressed().length, 1);
+    }
+
+    /**
+     * 创建任务，第{@link #FAILED_TASK}个任务失败，第0个任务的结果关闭时抛出异常
+     */
+    private static List<ConcurrentUtil.IOSupplier<Closeable>> tasks(AtomicInteger opened, AtomicInteger closed) {
+        List<ConcurrentUtil.IOSupplier<Closeable>> tasks = new ArrayList<>();
+        for (int i = 0; i < TASKS; i++) {
+            int index = i;
+            tasks.add(() -> {
+                if (index == FAILED_TASK) {
+                    throw new IOException("task " + index);
+                }
+                opened.incrementAndGet();
+                return () -> {
+                    closed.incrementAndGet();
+                    if (index == 0) {
+                        throw new IOException("close " + index);
+                    }
+                };
+            });
+        }
+        return tasks;
+    }
+
+}
@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to You under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.github.joekerouac.plugin.loader.util;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * {@link PlatformPackageIndex}测试，索引的判断结果与{@code extClassLoader.getResource}探测的结果逐个比较
+ *
+ * @author JoeKerouac
+ * @date 2026-10-17 17:40
+ * @since 4.0.1
+ */
+public class PlatformPackageIndexTest {
+
+    private static final String[] PLATFORM_CLASSES = {"java.lang.String", "java.util.concurrent.atomic.AtomicLong",
+        "java.sql.Connection", "javax.sql.DataSource", "javax.crypto.Cipher", "sun.misc.Unsafe"};
+
+    private static final String[] OTHER_CLASSES = {"com.github.joekerouac.plugin.loader.PluginClassLoader",
+        "org.testng.Assert", "java.langx.String", "java.lan.String", "Foo", ".Foo"};
+
+    private final ClassLoader extClassLoader = ClassUtil.getExtClassLoader(getClass().getClassLoader());
+
+    @Test
+    public void testContains() {
+        PlatformPackageIndex index = PlatformPackageIndex.get(extClassLoader);
+        Assert.assertNotNull(index);
+        Assert.assertTrue(index.size() > 0);
+        Assert.assertSame(PlatformPackageIndex.get(extClassLoader), index);
+
+        for (String className : PLATFORM_CLASSES) {
+            Assert.assertTrue(index.contains(className), className);
+            Assert.assertNotNull(extClassLoader.getResource(className.replace('.', '/') + ".class"), className);
+        }
+        for (String className : OTHER_CLASSES) {
+            Assert.assertFalse(index.contains(className), className);
+            Assert.assertNull(extClassLoader.getResource(className.replace('.', '/') + ".class"), className);
+        }
+    }
+
+}